@@ -0,0 +1,39 @@
+package gr.university.thesis;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * This class turns away the logins that arrive without a session, before the csrf filter checks them. The login form
+ * is always sent from the login page, which starts the session that its csrf token is kept in, so a login without a
+ * session is either forged or its session has expired. Without this filter the csrf filter would create (and store) a
+ * session for each one of them, just to compare their token
+ */
+public class LoginSessionFilter extends OncePerRequestFilter {
+
+    /**
+     * this method redirects the logins without a session back to the login page, every other request goes on
+     *
+     * @param request:     the request of the user
+     * @param response:    the response to the user
+     * @param filterChain: the rest of the filters
+     * @throws ServletException : if a filter that follows fails
+     * @throws IOException      : if the redirection could not be sent
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if ("POST".equals(request.getMethod()) &&
+                (request.getContextPath() + "/login").equals(request.getRequestURI()) &&
+                request.getSession(false) == null) {
+            response.sendRedirect(request.getContextPath() + "/login?expired=true");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,31 @@
+package gr.university.thesis;
+
+import gr.university.thesis.service.SessionAttributeSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+/**
+ * Class that configures how the sessions of the users are stored, the sessions are kept in the database by spring
+ * session (spring.session.store-type in application.properties, 'none' keeps them in the container again), so that
+ * any node behind the load balancer can serve any request
+ */
+@Configuration
+public class SessionConfig {
+
+    /**
+     * the conversion service that spring session uses to store the attributes of the sessions, in the compact format
+     * of the serializer instead of java serialization
+     *
+     * @param sessionAttributeSerializer: service that turns the attributes of the sessions into bytes and back
+     * @return the conversion service of the attributes of the sessions
+     */
+    @Bean
+    public ConversionService springSessionConversionService(SessionAttributeSerializer sessionAttributeSerializer) {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, sessionAttributeSerializer::serialize);
+        conversionService.addConverter(byte[].class, Object.class, sessionAttributeSerializer::deserialize);
+        return conversionService;
+    }
+}
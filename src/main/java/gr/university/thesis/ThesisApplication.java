@@ -2,8 +2,10 @@ package gr.university.thesis;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ThesisApplication {
 
     public static void main(String[] args) {
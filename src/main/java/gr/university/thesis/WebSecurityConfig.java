@@ -1,5 +1,6 @@
 package gr.university.thesis;
 
+import gr.university.thesis.listener.LoginFailureHandler;
 import gr.university.thesis.service.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -9,6 +10,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
+import org.springframework.security.web.csrf.LazyCsrfTokenRepository;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 /**
@@ -19,6 +23,7 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
     UserDetailsServiceImpl userDetailsServiceImpl;
+    LoginFailureHandler loginFailureHandler;
     //Array instance that includes all the paths that need to be accessed by all users
     String[] resources = new String[]{
             "/include/**", "/css/**", "/icons/**", "/images/**", "/js/**", "/layer/**"
@@ -28,10 +33,12 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
      * constructor of this class, correct way to set the autowired attributes
      *
      * @param userDetailsServiceImpl: instance of a class that configures how a user should be loaded
+     * @param loginFailureHandler:    redirects the users that failed to login back to the login page
      */
     @Autowired
-    public WebSecurityConfig(UserDetailsServiceImpl userDetailsServiceImpl) {
+    public WebSecurityConfig(UserDetailsServiceImpl userDetailsServiceImpl, LoginFailureHandler loginFailureHandler) {
         this.userDetailsServiceImpl = userDetailsServiceImpl;
+        this.loginFailureHandler = loginFailureHandler;
     }
 
     /**
@@ -47,22 +54,28 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers(resources).permitAll()
                 .antMatchers("/", "/login", "/error", "/firstTime").permitAll()
                 //.antMatchers("/**").permitAll() //remove this to make security work again !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
-                .antMatchers("/admin/*").access("hasAuthority('ADMIN')")
-                .antMatchers("/user/*").access("hasAuthority('DEVELOPER') or hasAuthority('PRODUCT_OWNER') or hasAuthority('SCRUM_MASTER') or hasAuthority('ADMIN')")
-                .antMatchers("/pm/*").access("hasAuthority('PRODUCT_OWNER') or hasAuthority('SCRUM_MASTER') or hasAuthority('ADMIN')")
+                .antMatchers("/admin/*", "/actuator/**").access("hasAuthority('ADMIN')")
+                .antMatchers("/user/*", "/user/project/*/export", "/user/project/*/sprint/*/events", "/user/project/*/members").access("hasAuthority('DEVELOPER') or hasAuthority('PRODUCT_OWNER') or hasAuthority('SCRUM_MASTER') or hasAuthority('ADMIN')")
+                .antMatchers("/pm/*", "/pm/project/*/import").access("hasAuthority('PRODUCT_OWNER') or hasAuthority('SCRUM_MASTER') or hasAuthority('ADMIN')")
                 .antMatchers("/sm/*").access("hasAuthority('SCRUM_MASTER') or hasAuthority('ADMIN')")
                 .anyRequest().authenticated()
                 .and()
                 .formLogin()
                 .loginPage("/login").permitAll()
                 .defaultSuccessUrl("/")
-                .failureUrl("/login?error=true")
+                .failureHandler(loginFailureHandler)
                 .usernameParameter("email")
                 .passwordParameter("password")
                 .and()
                 .logout().permitAll()
                 //need to use this in order to perform GET action:
-                .logoutRequestMatcher(new AntPathRequestMatcher("/logout"));
+                .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
+                .and()
+                //the csrf token is only stored in the session when a page actually uses it, and the logins without a
+                //session are turned away before the csrf filter, so that a burst of forged logins creates no sessions
+                .csrf().csrfTokenRepository(new LazyCsrfTokenRepository(new HttpSessionCsrfTokenRepository()))
+                .and()
+                .addFilterBefore(new LoginSessionFilter(), CsrfFilter.class);
 
     }
 
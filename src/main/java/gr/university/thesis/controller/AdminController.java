@@ -1,19 +1,18 @@
 package gr.university.thesis.controller;
 
-import gr.university.thesis.entity.User;
+import gr.university.thesis.dto.UserPage;
 import gr.university.thesis.entity.enumeration.RoleEnum;
 import gr.university.thesis.exceptions.UserAlreadyExistsException;
 import gr.university.thesis.exceptions.UserHasEmptyEmailException;
 import gr.university.thesis.service.RoleService;
 import gr.university.thesis.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
-
 /**
  * This controller has to do with all the use cases relating to the admin of the system
  */
@@ -21,6 +20,11 @@ import java.util.List;
 @RequestMapping("/admin")
 public class AdminController {
 
+    /**
+     * how many users each page of the user panel has
+     */
+    private static final int USER_PAGE_SIZE = 50;
+
     UserService userService;
     RoleService roleService;
 
@@ -37,23 +41,43 @@ public class AdminController {
     }
 
     /**
-     * 'main' page of admin, here, the admin can manage all the users of the system
+     * 'main' page of admin, here, the admin can manage all the users of the system, the users themselves are fetched
+     * page by page by the page (check findUsers)
      *
      * @param model: user interface that is shown to user
      * @return : returns the manageUsers template
      */
     @GetMapping("/userPanel")
     public String manageUsers(Model model) {
-        //instantly getting the user id, which in all cases (hopefully if security works properly) is the admin
-        //we don't want the admin to be able to
-        List<User> users = userService.findAllUsers();
-        if (!users.isEmpty()) {
-            model.addAttribute("users", users);
-        }
         model.addAttribute("allRoleEnums", RoleEnum.values());
         return "userPanel";
     }
 
+    /**
+     * this method returns one page of the users of the system in JSON, used by the user panel while the admin
+     * searches or scrolls through the users
+     *
+     * @param query:   the start of the email, first name or last name of the users, empty for all the users
+     * @param role:    the role of the users, for example DEVELOPER, empty for all the roles
+     * @param afterId: the id of the last user of the previous page, 0 for the first page
+     * @return : returns the page of users, or bad request if the role does not exist
+     */
+    @GetMapping("/users")
+    @ResponseBody
+    public ResponseEntity<UserPage> findUsers(@RequestParam(defaultValue = "") String query,
+                                              @RequestParam(defaultValue = "") String role,
+                                              @RequestParam(defaultValue = "0") long afterId) {
+        RoleEnum roleEnum = null;
+        if (!role.isEmpty()) {
+            try {
+                roleEnum = RoleEnum.valueOf(role);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(userService.findUserPage(query, roleEnum, afterId, USER_PAGE_SIZE));
+    }
+
     /**
      * this method calls the user service in order to create a new user and store him in the repository
      *
@@ -1,5 +1,6 @@
 package gr.university.thesis.controller;
 
+import gr.university.thesis.dto.ImportReport;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.Project;
 import gr.university.thesis.entity.User;
@@ -8,17 +9,19 @@ import gr.university.thesis.entity.enumeration.ItemType;
 import gr.university.thesis.exceptions.ItemAlreadyExistsException;
 import gr.university.thesis.exceptions.ItemHasEmptyTitleException;
 import gr.university.thesis.exceptions.ProjectAlreadyExistsException;
+import gr.university.thesis.exceptions.ProjectDoesNotExistException;
 import gr.university.thesis.exceptions.ProjectHasEmptyTitleException;
 import gr.university.thesis.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * This is the project manager controller, here, a project manager can request actions such as creating a project
@@ -33,7 +36,7 @@ public class ProductOwnerController {
     ItemService itemService;
     SprintService sprintService;
     ItemSprintHistoryService itemSprintHistoryService;
-
+    ItemImportService itemImportService;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
@@ -43,16 +46,19 @@ public class ProductOwnerController {
      * @param itemService:             service that manages the items stored in the repository
      * @param sprintService:           service that manages the sprints stored in the repository
      * @param itemSprintHistoryService : services that manages all the associations between sprint and items
+     * @param itemImportService:       service that imports whole backlogs into a project from files
      */
     @Autowired
     public ProductOwnerController(ProjectService projectService, SessionService sessionService,
                                   ItemService itemService, SprintService sprintService,
-                                  ItemSprintHistoryService itemSprintHistoryService) {
+                                  ItemSprintHistoryService itemSprintHistoryService,
+                                  ItemImportService itemImportService) {
         this.projectService = projectService;
         this.sessionService = sessionService;
         this.itemService = itemService;
         this.sprintService = sprintService;
         this.itemSprintHistoryService = itemSprintHistoryService;
+        this.itemImportService = itemImportService;
     }
 
     /**
@@ -203,4 +209,35 @@ public class ProductOwnerController {
         }
         return "redirect:/user/project/" + projectId + "#createItemForm";
     }
+
+    /**
+     * this method imports a whole backlog (epics, stories, tasks and bugs) into a project from a CSV or a JSON file,
+     * the file is stored in batches and the rows that are not valid are reported instead of stopping the import
+     *
+     * @param projectId: the project that the items will be added to
+     * @param file:      the uploaded file, a JSON array of items if its name ends with '.json' (or its content type is
+     *                   JSON), otherwise a CSV file with a header row
+     * @param session:   the current session, needed to find the owner of the imported items
+     * @return : returns the report of the import in JSON, how many items were created and which rows failed
+     * @throws ProjectDoesNotExistException : if the project does not exist
+     * @throws IOException                  : if the file could not be read
+     */
+    @PostMapping("/project/{projectId}/import")
+    @ResponseBody
+    public ImportReport importItems(@PathVariable long projectId,
+                                    @RequestParam MultipartFile file,
+                                    HttpSession session)
+            throws ProjectDoesNotExistException, IOException {
+        Optional<Project> project = projectService.findProjectById(projectId);
+        if (!project.isPresent()) {
+            throw new ProjectDoesNotExistException("Project with id '" + projectId + "' does not exist.");
+        }
+        String fileName = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase();
+        boolean json = fileName.endsWith(".json") ||
+                (file.getContentType() != null && file.getContentType().contains("json"));
+        try (InputStream inputStream = file.getInputStream()) {
+            return itemImportService.importItems(project.get(), sessionService.getUserWithSessionId(session),
+                    inputStream, json);
+        }
+    }
 }
@@ -1,16 +1,22 @@
 package gr.university.thesis.controller;
 
+import gr.university.thesis.dto.BatchMoveReport;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.enumeration.MoveTarget;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
 import gr.university.thesis.exceptions.SprintHasZeroEffortException;
 import gr.university.thesis.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -81,6 +87,38 @@ public class ScrumMasterController {
         return "redirect:/user/project/" + itemProjectId;
     }
 
+    /**
+     * this method moves many items at once, in one transaction, into a ready sprint, back to the backlog from a ready
+     * sprint, or to a column of the task board of an active sprint
+     *
+     * @param projectId: the project that the items and the sprint belong to
+     * @param itemIds:   the items that the user wants to move
+     * @param target:    where the items are moved to: SPRINT, BACKLOG or TASK_BOARD
+     * @param sprintId:  the ready sprint that the items are moved into or out of, or the active sprint whose task board
+     *                   the items are moved on
+     * @param status:    the column of the task board that the items are moved to, only needed for the task board
+     * @return : returns in JSON what happened to each item, 'bad request' if the move is not possible at all, or
+     * 'conflict' if someone else moved/edited one of the items in the meantime (in which case nothing is moved)
+     */
+    @PostMapping("/moveItems")
+    @ResponseBody
+    public ResponseEntity<?> moveItems(@RequestParam long projectId,
+                                       @RequestParam List<Long> itemIds,
+                                       @RequestParam MoveTarget target,
+                                       @RequestParam long sprintId,
+                                       @RequestParam(required = false) TaskBoardStatus status) {
+        try {
+            BatchMoveReport report = itemSprintHistoryService.moveItems(projectId, itemIds, target, sprintId, status);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Collections.singletonMap("error", "Some of the items were modified by someone else, " +
+                            "nothing was moved."));
+        }
+    }
+
     /**
      * this method moves a ready sprint to the state of active
      *
@@ -112,19 +150,14 @@ public class ScrumMasterController {
     public String finishSprint(@RequestParam long sprintId,
                                @RequestParam long sprintProjectId,
                                RedirectAttributes redir) {
-        Optional<Sprint> oldSprintOptional = sprintService.finishSprint(sprintId);
+        Optional<Sprint> oldSprintOptional = itemSprintHistoryService.finishSprintAndTransferUnfinishedItems(sprintId);
         if (oldSprintOptional.isPresent()) {
             Sprint sprint = oldSprintOptional.get();
-            sprintService.calculateVelocity(sprint);
-            projectService.findProjectById(sprint.getProject().getId()).ifPresent(project -> project.setTeam_velocity(sprint.getVelocity()));
-            sprintService.calculateTotalEffort(sprint);
             redir.addFlashAttribute("sprintFinished", true);
             redir.addFlashAttribute("previousSprintGoal", sprint.getGoal());
             redir.addFlashAttribute("previousSprintVelocity", sprint.getVelocity());
             redir.addFlashAttribute("previousSprintTotalEffort", sprint.getTotal_effort());
         }
-        oldSprintOptional.ifPresent(sprint -> itemSprintHistoryService.transferUnfinishedItemsFromOldSprint(sprint));
-
         return "redirect:/user/project/" + sprintProjectId;
     }
 }
@@ -2,18 +2,31 @@ package gr.university.thesis.controller;
 
 
 import gr.university.thesis.dto.BurnDownChartData;
+import gr.university.thesis.dto.ProjectMember;
+import gr.university.thesis.dto.SprintHistory;
+import gr.university.thesis.dto.TaskBoard;
+import gr.university.thesis.dto.TaskBoardMove;
 import gr.university.thesis.entity.*;
 import gr.university.thesis.entity.enumeration.*;
 import gr.university.thesis.exceptions.*;
 import gr.university.thesis.service.*;
-import gr.university.thesis.util.Time;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -25,34 +38,54 @@ public class UserController {
 
     ProjectService projectService;
     SessionService sessionService;
-    UserService userService;
     CommentService commentService;
     ItemService itemService;
     SprintService sprintService;
     ItemSprintHistoryService itemSprintHistoryService;
+    ProjectExportService projectExportService;
+    TaskBoardTransitionService taskBoardTransitionService;
+    TaskBoardService taskBoardService;
+    TaskBoardEventService taskBoardEventService;
+    SprintHistoryService sprintHistoryService;
+    ProjectMemberService projectMemberService;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param projectService:           service that manages all the projects of the system
-     * @param sessionService:           the service that manages the current session
-     * @param userService:              service that manages all the users of the system
-     * @param itemService:              service that handles all the items of the system
-     * @param commentService:           service that handles all the comments
-     * @param sprintService:            service that handles all the sprints
-     * @param itemSprintHistoryService: service that handles all associations between items and sprints
+     * @param projectService:             service that manages all the projects of the system
+     * @param sessionService:             the service that manages the current session
+     * @param itemService:                service that handles all the items of the system
+     * @param commentService:             service that handles all the comments
+     * @param sprintService:              service that handles all the sprints
+     * @param itemSprintHistoryService:   service that handles all associations between items and sprints
+     * @param projectExportService:       service that exports whole projects to files
+     * @param taskBoardTransitionService: service that keeps the log of the moves on the task boards
+     * @param taskBoardService:           service that loads and caches the task boards of the sprints
+     * @param taskBoardEventService:      service that pushes the moves of the cards to the open task boards
+     * @param sprintHistoryService:       service that calculates (and stores) the histories of the sprints
+     * @param projectMemberService:       service that manages (and caches) the members of the projects
      */
     @Autowired
-    public UserController(ProjectService projectService, SessionService sessionService, UserService userService,
-                          ItemService itemService, CommentService commentService, SprintService sprintService,
-                          ItemSprintHistoryService itemSprintHistoryService) {
+    public UserController(ProjectService projectService, SessionService sessionService, ItemService itemService,
+                          CommentService commentService, SprintService sprintService,
+                          ItemSprintHistoryService itemSprintHistoryService,
+                          ProjectExportService projectExportService,
+                          TaskBoardTransitionService taskBoardTransitionService,
+                          TaskBoardService taskBoardService, TaskBoardEventService taskBoardEventService,
+                          SprintHistoryService sprintHistoryService,
+                          ProjectMemberService projectMemberService) {
         this.projectService = projectService;
         this.sessionService = sessionService;
-        this.userService = userService;
         this.itemService = itemService;
         this.commentService = commentService;
         this.sprintService = sprintService;
         this.itemSprintHistoryService = itemSprintHistoryService;
+        this.projectExportService = projectExportService;
+        this.taskBoardTransitionService = taskBoardTransitionService;
+        this.taskBoardService = taskBoardService;
+        this.taskBoardEventService = taskBoardEventService;
+        this.sprintHistoryService = sprintHistoryService;
+        this.projectMemberService = projectMemberService;
     }
 
     /**
@@ -73,15 +106,13 @@ public class UserController {
      *
      * @param projectId: the project id that was requested by the user to view
      * @param model:     the user interface that will be shown in the front-end
-     * @param redir:     allows the controller to add 'flash' attributes, which will only be valid during redirection
      * @return : returns the project template
      * @throws ProjectDoesNotExistException: throws this exception when the user tries to access a project that does
      *                                       not exist
      */
     @RequestMapping(value = "/project/{projectId}")
     public String viewProject(@PathVariable long projectId,
-                              Model model,
-                              RedirectAttributes redir) throws ProjectDoesNotExistException {
+                              Model model) throws ProjectDoesNotExistException {
         Optional<Project> projectOptional = projectService.findProjectById(projectId);
         if (projectOptional.isPresent()) {
             Project project = projectOptional.get();
@@ -91,19 +122,7 @@ public class UserController {
             Sprint sprint;
             if (sprintOptional.isPresent()) {
                 sprint = sprintOptional.get();
-                //this checks if the difference in ms remaining are 0 or less, which means that the sprint duration has expired
-                //and the sprint needs to be set to finished
-                if (sprint.getStatus() == SprintStatus.ACTIVE.getRepositoryId()
-                        && Time.calculateDifferenceInMs(new Date(), sprint.getEnd_date()) <= 0) {
-                    sprintService.finishSprint(sprint.getId());
-                    itemSprintHistoryService.transferUnfinishedItemsFromOldSprint(sprint);
-                    redir.addFlashAttribute("sprintFinished", true);
-                    redir.addFlashAttribute("previousSprintGoal", sprint.getGoal());
-                    redir.addFlashAttribute("previousSprintVelocity", sprint.getVelocity());
-                    redir.addFlashAttribute("previousSprintTotalEffort", sprint.getTotal_effort());
-                    //need to redirect here because project throws null exception if returned as normal template
-                    return "redirect:/user/project/" + projectId;
-                }
+                //a sprint whose duration has expired is finished in the background (check SprintExpiryService)
                 model.addAttribute("sprint", sprint);
                 //for the navbar
                 model.addAttribute("navSprint", sprint);
@@ -117,8 +136,8 @@ public class UserController {
                 }
                 model.addAttribute("MostImportantItemsIncluded", mostImportantItemsIncluded);
             }
-            //perhaps not the most sufficient but this application is not supposed to be scalable
-            model.addAttribute("allUsers", userService.findAllUsers());
+            //only the members of the project are listed, the rest of the users can be found through the search
+            model.addAttribute("projectMembers", projectMemberService.findMembers(projectId));
             model.addAttribute("backlog", allItemsInProjectBacklog);
             model.addAttribute("itemTypes", ItemType.values());
             model.addAttribute("itemPriorities", ItemPriority.values());
@@ -174,8 +193,8 @@ public class UserController {
                 model.addAttribute("sprint", sprintService.findActiveSprintInProject(project).get());
             }
             model.addAttribute("project", project);
-            //perhaps not the most sufficient but this application is not supposed to be scalable
-            model.addAttribute("allUsers", userService.findAllUsers());
+            //only the members of the project are listed, the rest of the users can be found through the search
+            model.addAttribute("projectMembers", projectMemberService.findMembers(projectId));
             model.addAttribute("backlog", itemService.findAllItemsByProjectId(projectId));
 
             model.addAttribute("itemTypes", ItemType.values());
@@ -379,28 +398,14 @@ public class UserController {
             if (sprint.getStatus() == SprintStatus.READY.getRepositoryId()) {
                 throw new SprintHasNotStartedException("Sprint task board has not yet started.");
             }
-            model.addAttribute("allUsers", userService.findAllUsers());
+            model.addAttribute("projectMembers", projectMemberService.findMembers(projectId));
             model.addAttribute("projectId", projectId);
-            Optional<List<ItemSprintHistory>> todoAssociations = itemSprintHistoryService.
-                    findAllAssociationsByStatus(new Sprint(sprintId), TaskBoardStatus.TO_DO,
-                            ItemType.TASK, ItemType.BUG);
-            todoAssociations.ifPresent(itemSprintHistories -> model.addAttribute("todoAssociations",
-                    itemSprintHistories));
-            Optional<List<ItemSprintHistory>> inProgressAssociations = itemSprintHistoryService.
-                    findAllAssociationsByStatus(new Sprint(sprintId), TaskBoardStatus.IN_PROGRESS,
-                            ItemType.TASK, ItemType.BUG);
-            inProgressAssociations.ifPresent(itemSprintHistories -> model.addAttribute("inProgressAssociations",
-                    itemSprintHistories));
-            Optional<List<ItemSprintHistory>> forReviewAssociations = itemSprintHistoryService.
-                    findAllAssociationsByStatus(new Sprint(sprintId), TaskBoardStatus.FOR_REVIEW,
-                            ItemType.TASK, ItemType.BUG);
-            forReviewAssociations.ifPresent(itemSprintHistories -> model.addAttribute("forReviewAssociations",
-                    itemSprintHistories));
-            Optional<List<ItemSprintHistory>> doneAssociations = itemSprintHistoryService.
-                    findAllAssociationsByStatus(new Sprint(sprintId), TaskBoardStatus.DONE,
-                            ItemType.TASK, ItemType.BUG);
-            doneAssociations.ifPresent(itemSprintHistories -> model.addAttribute("doneAssociations",
-                    itemSprintHistories));
+            //the whole task board is loaded at once (or taken from the cache) and then split into its columns
+            TaskBoard taskBoard = taskBoardService.findTaskBoard(sprint);
+            model.addAttribute("todoAssociations", taskBoard.getCards(TaskBoardStatus.TO_DO));
+            model.addAttribute("inProgressAssociations", taskBoard.getCards(TaskBoardStatus.IN_PROGRESS));
+            model.addAttribute("forReviewAssociations", taskBoard.getCards(TaskBoardStatus.FOR_REVIEW));
+            model.addAttribute("doneAssociations", taskBoard.getCards(TaskBoardStatus.DONE));
             model.addAttribute("itemPriorities", ItemPriority.values());
         } else {
             throw new SprintDoesNotExistException("Sprint with id '" + sprintId + "' does not exist in this project");
@@ -412,16 +417,20 @@ public class UserController {
      * this method calls the itemSprintHistory service in order to move an association
      * to the next status and store it in the repository
      *
-     * @param sprintId:      the sprint id of the association
-     * @param itemId:        the item id of the assoication
-     * @param itemProjectId: the project id that this association belongs to
+     * @param sprintId:          the sprint id of the association
+     * @param itemId:            the item id of the assoication
+     * @param itemProjectId:     the project id that this association belongs to
+     * @param associationStatus: the status of the association that the user saw, the association is not moved if it
+     *                           has been moved by someone else in the meantime
      * @return : returns a redirection to the task board page of the sprint
      */
     @RequestMapping(value = "/editAssociation", params = "action=nextStatus", method = RequestMethod.POST)
     public String moveAssociationStatusToNext(@RequestParam long sprintId,
                                               @RequestParam long itemId,
-                                              @RequestParam long itemProjectId) {
-        itemSprintHistoryService.changeStatusOfAssociationByOne(new Sprint(sprintId), new Item(itemId), 1);
+                                              @RequestParam long itemProjectId,
+                                              @RequestParam(required = false) TaskBoardStatus associationStatus) {
+        itemSprintHistoryService.changeStatusOfAssociationByOne(new Sprint(sprintId), new Item(itemId), 1,
+                associationStatus);
         return "redirect:/user/project/" + itemProjectId + "/sprint/" + sprintId;
     }
 
@@ -429,19 +438,80 @@ public class UserController {
      * this method calls the itemSprintHistory service in order to move an association
      * to the previous status and store it in the repository
      *
-     * @param sprintId:      the sprint id of the association
-     * @param itemId:        the item id of the assoication
-     * @param itemProjectId: the project id that this association belongs to
+     * @param sprintId:          the sprint id of the association
+     * @param itemId:            the item id of the assoication
+     * @param itemProjectId:     the project id that this association belongs to
+     * @param associationStatus: the status of the association that the user saw, the association is not moved if it
+     *                           has been moved by someone else in the meantime
      * @return : returns a redirection to the task board page of the sprint
      */
     @RequestMapping(value = "/editAssociation", params = "action=previousStatus", method = RequestMethod.POST)
     public String moveAssociationStatusToPrevious(@RequestParam long sprintId,
                                                   @RequestParam long itemId,
-                                                  @RequestParam long itemProjectId) {
-        itemSprintHistoryService.changeStatusOfAssociationByOne(new Sprint(sprintId), new Item(itemId), -1);
+                                                  @RequestParam long itemProjectId,
+                                                  @RequestParam(required = false) TaskBoardStatus associationStatus) {
+        itemSprintHistoryService.changeStatusOfAssociationByOne(new Sprint(sprintId), new Item(itemId), -1,
+                associationStatus);
         return "redirect:/user/project/" + itemProjectId + "/sprint/" + sprintId;
     }
 
+    /**
+     * this method moves an association to the next or the previous status, the same way as the two methods above, but
+     * it is called by the task board in the background and answers with the move instead of the whole task board
+     *
+     * @param sprintId:          the sprint id of the association
+     * @param itemId:            the item id of the association
+     * @param direction:         positive to move the association to the next status, negative to move it to the
+     *                           previous one
+     * @param associationStatus: the status of the association that the user saw, the association is not moved if it
+     *                           has been moved by someone else in the meantime
+     * @return : returns the move in JSON, or 'conflict' if the association could not be moved in that direction
+     */
+    @PostMapping("/moveAssociation")
+    @ResponseBody
+    public ResponseEntity<TaskBoardMove> moveAssociation(@RequestParam long sprintId,
+                                                         @RequestParam long itemId,
+                                                         @RequestParam int direction,
+                                                         @RequestParam(required = false)
+                                                                 TaskBoardStatus associationStatus) {
+        if (direction == 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<TaskBoardMove> move = itemSprintHistoryService.changeStatusOfAssociationByOne(new Sprint(sprintId),
+                new Item(itemId), Integer.signum(direction), associationStatus);
+        return move.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * this method opens a stream of Server-Sent Events, through which the task board of a sprint is told about every
+     * move of its cards, the repository is not accessed here, so the open streams do not hold any connections to it
+     *
+     * @param projectId: the project that this sprint belongs to
+     * @param sprintId:  the sprint whose task board the user is looking at
+     * @return : returns the emitter of the stream, the response stays open until the stream times out or is closed
+     */
+    @GetMapping(value = "/project/{projectId}/sprint/{sprintId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter subscribeToTaskBoard(@PathVariable long projectId,
+                                           @PathVariable long sprintId) {
+        return taskBoardEventService.subscribe(sprintId);
+    }
+
+    /**
+     * this method searches the users that can be assigned items of a project while the user types (typeahead), the
+     * members of the project come first and then the rest of the users
+     *
+     * @param projectId: the project that the user is searching the members of
+     * @param query:     what the user has typed so far, the start of a first name, last name or email
+     * @return : returns at most 10 users that were found
+     */
+    @GetMapping("/project/{projectId}/members")
+    @ResponseBody
+    public List<ProjectMember> searchProjectMembers(@PathVariable long projectId,
+                                                    @RequestParam String query) {
+        return projectMemberService.searchMembers(projectId, query, 10);
+    }
+
     /**
      * this method shows to the user the progress of a project, which includes all the sprints that took place and
      * a burn down chart for all the projects
@@ -477,6 +547,8 @@ public class UserController {
                 burnDownChartData = projectService.calculateBurnDownChartData(projectId, null);
             }
             model.addAttribute("burnDownChartData", burnDownChartData);
+            model.addAttribute("cumulativeFlowData",
+                    taskBoardTransitionService.calculateCumulativeFlowForProject(projectId));
         } else {
             throw new ProjectDoesNotExistException("Project with id '" + projectId + "' does not exist.");
         }
@@ -484,6 +556,32 @@ public class UserController {
         return "projectProgress";
     }
 
+    /**
+     * this method downloads the whole backlog and sprint history of a project (items, associations between items and
+     * sprints, comments), the records are written to the response while they are read from the database
+     *
+     * @param projectId: the project that the user requested to export
+     * @param format:    'csv' (default) or 'jsonl' for JSON Lines
+     * @param response:  the response that the file is written to
+     * @throws ProjectDoesNotExistException: this is thrown when a user tries to export a project that does not exist
+     * @throws IOException:                  if the file could not be written
+     */
+    @GetMapping("/project/{projectId}/export")
+    public void exportProject(@PathVariable long projectId,
+                              @RequestParam(defaultValue = "csv") String format,
+                              HttpServletResponse response) throws ProjectDoesNotExistException, IOException {
+        if (!projectService.findProjectById(projectId).isPresent()) {
+            throw new ProjectDoesNotExistException("Project with id '" + projectId + "' does not exist.");
+        }
+        boolean jsonLines = format.equalsIgnoreCase("jsonl");
+        response.setContentType(jsonLines ? "application/x-ndjson" : "text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"project-" + projectId + (jsonLines ? ".jsonl" : ".csv") + "\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        projectExportService.exportProject(projectId, jsonLines, writer);
+    }
+
     /**
      * this method shows to the user the history of a sprint, along with all the done tasks (per day), and a burn down
      * chart
@@ -503,8 +601,11 @@ public class UserController {
                 sprintService.findSprintByProjectId(projectId, sprintId);
         if (sprintOptional.isPresent()) {
             Sprint sprint = sprintOptional.get();
-            model.addAttribute("tasksDoneByDateList", itemSprintHistoryService.sortTasksByDate(sprint));
-            model.addAttribute("burnDownChartData", itemSprintHistoryService.calculateBurnDownChartData(sprint));
+            //the history of a finished sprint is read from the one stored when it finished
+            SprintHistory sprintHistory = sprintHistoryService.findSprintHistory(sprint);
+            model.addAttribute("tasksDoneByDateList", sprintHistory.getTasksDoneByDate());
+            model.addAttribute("burnDownChartData", sprintHistory.getBurnDownChartData());
+            model.addAttribute("cumulativeFlowData", sprintHistory.getCumulativeFlowData());
             Optional<Project> projectOptional = projectService.findProjectById(projectId);
             Project project = projectOptional.get();
             model.addAttribute("project", projectOptional.get());
@@ -619,6 +720,8 @@ public class UserController {
      * @param itemParentId            : the parent of the item
      * @param sprintId                : the sprint that this item belongs to
      * @param modifyItemPage:         allows the controller to know, which page this request comes from
+     * @param itemVersion:            the version of the item when the user opened it, the item is not updated if it
+     *                                has been updated by someone else since then
      * @param redir:                  allows the controller to add 'flash' attributes, which will only be valid during redirection
      * @return : returns a redirection to the current project backlog
      * @throws ItemAlreadyExistsException : user has tried to set the item's title to one that already exists
@@ -638,17 +741,23 @@ public class UserController {
                              @RequestParam long itemParentId,
                              @RequestParam long sprintId,
                              @RequestParam String modifyItemPage,
+                             @RequestParam(required = false) Integer itemVersion,
                              RedirectAttributes redir
     ) {
-        //the associations need to be defined before the item is updated
-        itemSprintHistoryService.manageItemSprintAssociation(new Item(itemId), new Sprint(sprintId), new Item(itemParentId));
         try {
+            //nothing is changed if the user was looking at an out of date copy of the item
+            itemService.checkItemVersion(itemId, itemVersion);
+            //the associations need to be defined before the item is updated
+            itemSprintHistoryService.manageItemSprintAssociation(new Item(itemId), new Sprint(sprintId), new Item(itemParentId));
             itemService.updateItem(itemId, itemTitle, itemDescription, itemAcceptanceCriteria, itemType, itemPriority,
                     itemEffort, itemEstimatedEffort,
                     new User(itemAssigneeId), new Item(itemParentId));
             redir.addFlashAttribute("itemUpdated", true);
         } catch (ItemAlreadyExistsException | ItemHasEmptyTitleException e) {
             redir.addFlashAttribute("failedToUpdateItem", itemId);
+        } catch (ItemHasBeenModifiedException e) {
+            redir.addFlashAttribute("failedToUpdateItem", itemId);
+            redir.addFlashAttribute("itemUpdateConflict", true);
         }
         if (modifyItemPage.equals("projectPage"))
             return "redirect:/user/project/" + itemProjectId;
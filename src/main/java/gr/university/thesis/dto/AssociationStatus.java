@@ -0,0 +1,38 @@
+package gr.university.thesis.dto;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the current status of an association between a
+ * sprint and an item and when it was last moved, without loading the association, the sprint or the item, mainly used
+ * to log the status of the associations that existed before the moves were logged
+ */
+@Getter
+@AllArgsConstructor
+public class AssociationStatus {
+
+    /**
+     * the id of the sprint
+     */
+    Long sprintId;
+
+    /**
+     * the id of the item
+     */
+    Long itemId;
+
+    /**
+     * the status of the item on the task board of the sprint
+     */
+    TaskBoardStatus status;
+
+    /**
+     * when the item was last moved on the task board, or when the sprint started if it was never moved, null if
+     * neither is known
+     */
+    Date movedAt;
+}
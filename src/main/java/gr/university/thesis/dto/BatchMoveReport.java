@@ -0,0 +1,78 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the outcome of moving many items at once back to
+ * the user, items that cannot be moved do not stop the others from being moved, the reason is reported for each one
+ */
+@Getter
+public class BatchMoveReport {
+
+    /**
+     * the number of items that were moved
+     */
+    int itemsMoved;
+
+    /**
+     * the outcome of each requested item, in the order they were requested
+     */
+    List<ItemMoveOutcome> outcomes = new ArrayList<>();
+
+    /**
+     * this method reports an item that was moved
+     *
+     * @param itemId: the item that was moved
+     */
+    public void moved(long itemId) {
+        itemsMoved++;
+        outcomes.add(new ItemMoveOutcome(itemId, "moved", null));
+    }
+
+    /**
+     * this method reports an item that did not need to be moved, because it already was where it was requested to go
+     *
+     * @param itemId:  the item that was not moved
+     * @param message: where the item already is
+     */
+    public void unchanged(long itemId, String message) {
+        outcomes.add(new ItemMoveOutcome(itemId, "unchanged", message));
+    }
+
+    /**
+     * this method reports an item that could not be moved
+     *
+     * @param itemId:  the item that was not moved
+     * @param message: the reason the item could not be moved
+     */
+    public void rejected(long itemId, String message) {
+        outcomes.add(new ItemMoveOutcome(itemId, "rejected", message));
+    }
+
+    /**
+     * the outcome of one item: 'moved', 'unchanged' or 'rejected', together with the reason if it was not moved
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ItemMoveOutcome {
+
+        /**
+         * the item that was requested to be moved
+         */
+        long itemId;
+
+        /**
+         * what happened to the item
+         */
+        String outcome;
+
+        /**
+         * why the item was not moved, null if it was moved
+         */
+        String message;
+    }
+}
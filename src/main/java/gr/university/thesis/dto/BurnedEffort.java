@@ -0,0 +1,25 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer when a task/bug was moved to 'done' and its effort,
+ * without loading the association or the item, mainly used to rebuild the burn of a sprint
+ */
+@Getter
+@AllArgsConstructor
+public class BurnedEffort {
+
+    /**
+     * when the item was moved to 'done'
+     */
+    Date lastMoved;
+
+    /**
+     * the effort of the item
+     */
+    Integer effort;
+}
@@ -0,0 +1,62 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one comment of an item of a project to an export
+ * file, without loading the item
+ */
+@Getter
+@AllArgsConstructor
+public class CommentExportRecord {
+
+    /**
+     * the names of the columns of the comment rows in CSV exports
+     */
+    public static final List<String> CSV_HEADER = Arrays.asList("record", "id", "itemId", "ownerEmail",
+            "dateCreated", "body");
+
+    /**
+     * the id of the comment
+     */
+    Long id;
+
+    /**
+     * the id of the item the comment was written on
+     */
+    Long itemId;
+
+    /**
+     * the email of the user that wrote the comment
+     */
+    String ownerEmail;
+
+    /**
+     * when the comment was written
+     */
+    Date dateCreated;
+
+    /**
+     * the text of the comment
+     */
+    String body;
+
+    /**
+     * @return : returns the kind of record, so that the lines of an export can be told apart
+     */
+    public String getRecord() {
+        return "comment";
+    }
+
+    /**
+     * @return : returns the values of the record in the order of the CSV header
+     */
+    public List<Object> csvValues() {
+        return Arrays.asList(getRecord(), id, itemId, ownerEmail, dateCreated, body);
+    }
+}
@@ -0,0 +1,37 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the data of a cumulative flow diagram to the user
+ * interface, for every day it contains how many tasks/bugs (and how much effort) were in each column of the task board
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CumulativeFlowData {
+
+    /**
+     * the days of the diagram in order, for example [03/03, 04/03, ...]
+     */
+    String[] categories;
+
+    /**
+     * the names of the columns of the task board, for example [To Do, In Progress, ...]
+     */
+    String[] statuses;
+
+    /**
+     * counts[s][d] is the number of tasks/bugs that were in column s at the end of day d
+     */
+    int[][] counts;
+
+    /**
+     * efforts[s][d] is the sum of the effort of the tasks/bugs that were in column s at the end of day d
+     */
+    int[][] efforts;
+}
@@ -0,0 +1,77 @@
+package gr.university.thesis.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the outcome of a backlog import back to the user,
+ * the import does not stop on invalid rows, these are counted and described here instead
+ */
+@Getter
+public class ImportReport {
+
+    /**
+     * the maximum number of error messages kept, so that a completely wrong file does not produce a huge report
+     */
+    public static final int MAX_ERRORS = 100;
+
+    /**
+     * the number of rows read from the file
+     */
+    int rowsRead;
+
+    /**
+     * the number of items that were created
+     */
+    int itemsImported;
+
+    /**
+     * the number of rows that were not imported
+     */
+    int rowsFailed;
+
+    /**
+     * the description of the first errors, up to MAX_ERRORS
+     */
+    List<String> errors = new ArrayList<>();
+
+    /**
+     * this method counts a row that was read from the file
+     */
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    /**
+     * this method counts a number of items that were created
+     *
+     * @param count: the number of created items
+     */
+    public void itemsImported(int count) {
+        itemsImported += count;
+    }
+
+    /**
+     * this method counts a row that was not imported and keeps the reason, if there is still space in the report
+     *
+     * @param rowNumber: the position of the row inside the file, 0 if the error does not belong to a row
+     * @param message:   the reason the row was not imported
+     */
+    public void rowFailed(int rowNumber, String message) {
+        if (rowNumber > 0) {
+            rowsFailed++;
+        }
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(rowNumber > 0 ? "Row " + rowNumber + ": " + message : message);
+        }
+    }
+
+    /**
+     * @return : returns true if there were more errors than the ones kept in the report
+     */
+    public boolean isErrorsTruncated() {
+        return rowsFailed > errors.size();
+    }
+}
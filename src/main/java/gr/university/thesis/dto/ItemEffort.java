@@ -0,0 +1,23 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the combined effort of an epic/story (calculated
+ * by the database), without loading the children of the epic/story
+ */
+@Getter
+@AllArgsConstructor
+public class ItemEffort {
+
+    /**
+     * the epic/story that the effort belongs to
+     */
+    Long itemId;
+
+    /**
+     * the sum of the effort of all the tasks/bugs etc. under the epic/story
+     */
+    Long effort;
+}
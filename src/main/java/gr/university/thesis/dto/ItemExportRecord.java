@@ -0,0 +1,104 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one item of a project to an export file, without
+ * loading the item (and its children, sprints, comments etc.) itself
+ */
+@Getter
+@AllArgsConstructor
+public class ItemExportRecord {
+
+    /**
+     * the names of the columns of the item rows in CSV exports
+     */
+    public static final List<String> CSV_HEADER = Arrays.asList("record", "id", "parentId", "type", "title",
+            "description", "acceptanceCriteria", "effort", "estimatedEffort", "priority", "status", "ownerEmail",
+            "assigneeEmail", "dateCreated");
+
+    /**
+     * the id of the item
+     */
+    Long id;
+
+    /**
+     * the id of the parent of the item, null if the item has no parent
+     */
+    Long parentId;
+
+    /**
+     * the repository id of the type of the item
+     */
+    Integer type;
+
+    /**
+     * the title of the item
+     */
+    String title;
+
+    /**
+     * the description of the item
+     */
+    String description;
+
+    /**
+     * the acceptance criteria of the item
+     */
+    String acceptanceCriteria;
+
+    /**
+     * the effort of the item
+     */
+    Integer effort;
+
+    /**
+     * the estimated effort of the item
+     */
+    Integer estimatedEffort;
+
+    /**
+     * the repository id of the priority of the item
+     */
+    Integer priority;
+
+    /**
+     * the repository id of the status of the item
+     */
+    Byte status;
+
+    /**
+     * the email of the user that created the item
+     */
+    String ownerEmail;
+
+    /**
+     * the email of the user that the item is assigned to, null if it is not assigned
+     */
+    String assigneeEmail;
+
+    /**
+     * when the item was created
+     */
+    Date dateCreated;
+
+    /**
+     * @return : returns the kind of record, so that the lines of an export can be told apart
+     */
+    public String getRecord() {
+        return "item";
+    }
+
+    /**
+     * @return : returns the values of the record in the order of the CSV header
+     */
+    public List<Object> csvValues() {
+        return Arrays.asList(getRecord(), id, parentId, type, title, description, acceptanceCriteria, effort,
+                estimatedEffort, priority, status, ownerEmail, assigneeEmail, dateCreated);
+    }
+}
@@ -0,0 +1,61 @@
+package gr.university.thesis.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one row (CSV) or object (JSON) of an imported
+ * backlog file to the import service, all the values are kept as text so that every row can be validated separately
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemImportRow {
+
+    /**
+     * the position of the row inside the file (first item is 1), used when reporting errors
+     */
+    int rowNumber;
+
+    /**
+     * the title of the item, must be unique inside the project
+     */
+    String title;
+
+    /**
+     * the description of the item
+     */
+    String description;
+
+    /**
+     * the acceptance criteria of the item
+     */
+    String acceptanceCriteria;
+
+    /**
+     * the type of the item, for example 'EPIC' or 'Epic'
+     */
+    String type;
+
+    /**
+     * the priority of the item, for example 'HIGH', 'High' or 'Must Have'
+     */
+    String priority;
+
+    /**
+     * the effort of the item (tasks/bugs)
+     */
+    String effort;
+
+    /**
+     * the estimated effort of the item
+     */
+    String estimatedEffort;
+
+    /**
+     * the title of the parent of the item (an epic or a story), the parent must either already exist in the project
+     * or appear earlier in the file
+     */
+    String parent;
+}
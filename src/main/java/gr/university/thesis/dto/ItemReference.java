@@ -0,0 +1,28 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the identity of an item (id, title and type)
+ * without loading the whole item, mainly used to resolve parents by their title during an import
+ */
+@Getter
+@AllArgsConstructor
+public class ItemReference {
+
+    /**
+     * the id of the item
+     */
+    Long id;
+
+    /**
+     * the title of the item, unique inside a project
+     */
+    String title;
+
+    /**
+     * the repository id of the type of the item
+     */
+    Integer type;
+}
@@ -0,0 +1,63 @@
+package gr.university.thesis.dto;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one association between a sprint and an item of
+ * a project to an export file, without loading the sprint or the item
+ */
+@Getter
+@AllArgsConstructor
+public class ItemSprintHistoryExportRecord {
+
+    /**
+     * the names of the columns of the association rows in CSV exports
+     */
+    public static final List<String> CSV_HEADER = Arrays.asList("record", "sprintId", "sprintGoal", "itemId",
+            "status", "lastMoved");
+
+    /**
+     * the id of the sprint
+     */
+    Long sprintId;
+
+    /**
+     * the goal of the sprint
+     */
+    String sprintGoal;
+
+    /**
+     * the id of the item
+     */
+    Long itemId;
+
+    /**
+     * the status of the item on the task board of the sprint
+     */
+    TaskBoardStatus status;
+
+    /**
+     * when the item was last moved on the task board
+     */
+    Date lastMoved;
+
+    /**
+     * @return : returns the kind of record, so that the lines of an export can be told apart
+     */
+    public String getRecord() {
+        return "association";
+    }
+
+    /**
+     * @return : returns the values of the record in the order of the CSV header
+     */
+    public List<Object> csvValues() {
+        return Arrays.asList(getRecord(), sprintId, sprintGoal, itemId, status, lastMoved);
+    }
+}
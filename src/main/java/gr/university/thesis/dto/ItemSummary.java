@@ -0,0 +1,32 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the few attributes of an item that are shown in
+ * lists (id, title and effort), without loading the whole item, mainly used in the history of the sprints
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSummary {
+
+    /**
+     * the id of the item
+     */
+    Long id;
+
+    /**
+     * the title of the item
+     */
+    String title;
+
+    /**
+     * the effort of the item
+     */
+    Integer effort;
+}
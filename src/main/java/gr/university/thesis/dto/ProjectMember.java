@@ -0,0 +1,33 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the few attributes of a user that are shown in the
+ * member directory of a project (for example the assignee dropdowns), without loading the whole user and their roles
+ */
+@Getter
+@AllArgsConstructor
+public class ProjectMember {
+
+    /**
+     * the id of the user
+     */
+    Long id;
+
+    /**
+     * the first name of the user
+     */
+    String firstName;
+
+    /**
+     * the last name of the user
+     */
+    String lastName;
+
+    /**
+     * the email of the user
+     */
+    String email;
+}
@@ -0,0 +1,61 @@
+package gr.university.thesis.dto;
+
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the statistics of a project (calculated by the
+ * database in one query) to the services, without loading any of the items or the sprints of the project
+ */
+@Getter
+public class ProjectStatisticsSummary {
+
+    /**
+     * the project that these statistics belong to
+     */
+    long projectId;
+
+    /**
+     * the velocity of the team, needed in order to estimate the sprints needed
+     */
+    int teamVelocity;
+
+    /**
+     * the total effort of the project, check the respective attribute in the Project class for more info
+     */
+    long totalEffort;
+
+    /**
+     * the remaining effort of the project, check the respective attribute in the Project class for more info
+     */
+    long remainingEffort;
+
+    /**
+     * the estimated total effort of the project, check the respective attribute in the Project class for more info
+     */
+    long estimatedTotalEffort;
+
+    /**
+     * the number of executed sprints, check the respective attribute in the Project class for more info
+     */
+    long executedSprints;
+
+    /**
+     * constructor used by the repository, the sums can be null when a project has no items at all
+     *
+     * @param projectId:            the project that these statistics belong to
+     * @param teamVelocity:         the velocity of the team
+     * @param totalEffort:          the total effort of the project
+     * @param remainingEffort:      the remaining effort of the project
+     * @param estimatedTotalEffort: the estimated total effort of the project
+     * @param executedSprints:      the number of finished sprints of the project
+     */
+    public ProjectStatisticsSummary(Long projectId, Integer teamVelocity, Long totalEffort, Long remainingEffort,
+                                    Long estimatedTotalEffort, Long executedSprints) {
+        this.projectId = projectId;
+        this.teamVelocity = teamVelocity == null ? 0 : teamVelocity;
+        this.totalEffort = totalEffort == null ? 0 : totalEffort;
+        this.remainingEffort = remainingEffort == null ? 0 : remainingEffort;
+        this.estimatedTotalEffort = estimatedTotalEffort == null ? 0 : estimatedTotalEffort;
+        this.executedSprints = executedSprints == null ? 0 : executedSprints;
+    }
+}
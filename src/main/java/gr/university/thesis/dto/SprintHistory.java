@@ -0,0 +1,34 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer everything that is shown in the history page of a
+ * sprint, the history of a finished sprint never changes, so it is stored in JSON once (check SprintHistorySnapshot)
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SprintHistory {
+
+    /**
+     * the burn down chart of the sprint
+     */
+    BurnDownChartData burnDownChartData;
+
+    /**
+     * the cumulative flow diagram of the sprint, null if the sprint never started
+     */
+    CumulativeFlowData cumulativeFlowData;
+
+    /**
+     * the tasks/bugs that were done in the sprint, grouped by the day they were done
+     */
+    List<TasksDoneByDate> tasksDoneByDate;
+}
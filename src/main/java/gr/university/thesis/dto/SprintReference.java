@@ -0,0 +1,23 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the identity of a sprint (id and project) without
+ * loading the whole sprint, mainly used by the background jobs that go through many sprints
+ */
+@Getter
+@AllArgsConstructor
+public class SprintReference {
+
+    /**
+     * the id of the sprint
+     */
+    Long sprintId;
+
+    /**
+     * the id of the project that the sprint belongs to
+     */
+    Long projectId;
+}
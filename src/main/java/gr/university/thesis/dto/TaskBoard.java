@@ -0,0 +1,36 @@
+package gr.university.thesis.dto;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the task board of a sprint, with the cards
+ * already grouped by the column they are in, mainly kept in the cache of the task boards
+ */
+@Getter
+@AllArgsConstructor
+public class TaskBoard {
+
+    /**
+     * the project that the sprint of the task board belongs to
+     */
+    long projectId;
+
+    /**
+     * the cards of each column of the task board, in the order they were last moved
+     */
+    Map<TaskBoardStatus, List<TaskBoardCard>> cardsByStatus;
+
+    /**
+     * @param status: the column of the task board
+     * @return : returns the cards of the column, an empty list if the column has no cards
+     */
+    public List<TaskBoardCard> getCards(TaskBoardStatus status) {
+        return cardsByStatus.getOrDefault(status, Collections.emptyList());
+    }
+}
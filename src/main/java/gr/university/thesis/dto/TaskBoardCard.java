@@ -0,0 +1,54 @@
+package gr.university.thesis.dto;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one card of a task board (a task/bug of a sprint)
+ * together with everything the task board shows about it, without loading the association or the item
+ */
+@Getter
+@AllArgsConstructor
+public class TaskBoardCard {
+
+    /**
+     * the sprint that the card belongs to
+     */
+    Long sprintId;
+
+    /**
+     * the item of the card
+     */
+    Long itemId;
+
+    /**
+     * the type of the item (task or bug)
+     */
+    Integer type;
+
+    /**
+     * the title of the item
+     */
+    String title;
+
+    /**
+     * the effort of the item
+     */
+    Integer effort;
+
+    /**
+     * the priority of the item
+     */
+    Integer priority;
+
+    /**
+     * the user that the item is assigned to, null if the item has no assignee
+     */
+    Long assigneeId;
+
+    /**
+     * the column of the task board that the card is in
+     */
+    TaskBoardStatus status;
+}
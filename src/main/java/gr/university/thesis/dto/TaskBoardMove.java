@@ -0,0 +1,39 @@
+package gr.university.thesis.dto;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one move of a card on a task board to the browsers
+ * that show the task board, so that they can move the card without reloading the whole task board
+ */
+@Getter
+@AllArgsConstructor
+public class TaskBoardMove {
+
+    /**
+     * the sprint of the task board
+     */
+    long sprintId;
+
+    /**
+     * the item of the card that was moved
+     */
+    long itemId;
+
+    /**
+     * the column that the card was moved from
+     */
+    TaskBoardStatus fromStatus;
+
+    /**
+     * the column that the card was moved to
+     */
+    TaskBoardStatus toStatus;
+
+    /**
+     * when the card was moved (milliseconds since epoch), used by the browsers to ignore moves that arrive late
+     */
+    long movedAt;
+}
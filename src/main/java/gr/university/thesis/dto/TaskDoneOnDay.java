@@ -0,0 +1,31 @@
+package gr.university.thesis.dto;
+
+import java.util.Date;
+
+/**
+ * this interface serves as a projection, in order to transfer a task/bug that is done in a sprint together with the
+ * day (calculated by the database) that it was done, without loading the association or the item, mainly used to group
+ * the tasks done by date in the history page of the sprints
+ */
+public interface TaskDoneOnDay {
+
+    /**
+     * @return : returns the day that the item was moved to 'done', the clock is set to 00:00:00
+     */
+    Date getDay();
+
+    /**
+     * @return : returns the id of the item
+     */
+    Long getId();
+
+    /**
+     * @return : returns the title of the item
+     */
+    String getTitle();
+
+    /**
+     * @return : returns the effort of the item
+     */
+    Integer getEffort();
+}
@@ -1,6 +1,5 @@
 package gr.university.thesis.dto;
 
-import gr.university.thesis.entity.Item;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -27,7 +26,7 @@ public class TasksDoneByDate {
     /**
      * the list of items that belong to that certain date(day)
      */
-    List<Item> items;
+    List<ItemSummary> items;
 
     /**
      * custom constructor to initialize the array
@@ -0,0 +1,36 @@
+package gr.university.thesis.dto;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one move of a task board together with the effort
+ * of the item that was moved, without loading the move or the item, mainly used to calculate cumulative flows
+ */
+@Getter
+@AllArgsConstructor
+public class TransitionRecord {
+
+    /**
+     * the item that was moved
+     */
+    Long itemId;
+
+    /**
+     * the status of the item after the move
+     */
+    TaskBoardStatus toStatus;
+
+    /**
+     * when the item was moved
+     */
+    Date movedAt;
+
+    /**
+     * the effort of the item
+     */
+    Integer effort;
+}
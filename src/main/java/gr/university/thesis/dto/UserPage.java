@@ -0,0 +1,25 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer one page of the user panel of the admins, the users
+ * are ordered by id, so the next page is requested with the id of the last user of this page (keyset pagination)
+ */
+@Getter
+@AllArgsConstructor
+public class UserPage {
+
+    /**
+     * the users of the page
+     */
+    List<UserRow> users;
+
+    /**
+     * the id to request the next page with, null if this is the last page
+     */
+    Long nextAfterId;
+}
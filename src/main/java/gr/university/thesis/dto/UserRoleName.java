@@ -0,0 +1,23 @@
+package gr.university.thesis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer the name of a role of a user, without loading the
+ * user or the role
+ */
+@Getter
+@AllArgsConstructor
+public class UserRoleName {
+
+    /**
+     * the id of the user
+     */
+    Long userId;
+
+    /**
+     * the name of the role, for example DEVELOPER
+     */
+    String role;
+}
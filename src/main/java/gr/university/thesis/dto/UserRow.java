@@ -0,0 +1,53 @@
+package gr.university.thesis.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * this class serves as a Data Transfer Object, in order to transfer a user (without their password) to the user panel
+ * of the admins, the roles are added after the users of a page have been found, with one query for the whole page
+ */
+@Getter
+public class UserRow {
+
+    /**
+     * the id of the user
+     */
+    Long id;
+
+    /**
+     * the email of the user
+     */
+    String email;
+
+    /**
+     * the first name of the user
+     */
+    String firstName;
+
+    /**
+     * the last name of the user
+     */
+    String lastName;
+
+    /**
+     * the names of the roles of the user, for example [DEVELOPER]
+     */
+    List<String> roles;
+
+    /**
+     * @param id:        the id of the user
+     * @param email:     the email of the user
+     * @param firstName: the first name of the user
+     * @param lastName:  the last name of the user
+     */
+    public UserRow(Long id, String email, String firstName, String lastName) {
+        this.id = id;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.roles = new ArrayList<>();
+    }
+}
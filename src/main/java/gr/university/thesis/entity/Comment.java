@@ -20,7 +20,8 @@ public class Comment {
      * unique identifier
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_generator")
+    @SequenceGenerator(name = "comment_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     /**
@@ -14,6 +14,8 @@ import java.util.Set;
  * items/tasks that can be added to a backlog or a sprint
  */
 @Entity
+@Table(indexes = {@Index(name = "idx_item_project_status_priority", columnList = "project_id, status, priority"),
+        @Index(name = "idx_item_project_title", columnList = "project_id, title")})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,7 +25,8 @@ public class Item {
      * unique identifier
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_generator")
+    @SequenceGenerator(name = "item_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     /**
@@ -117,6 +120,14 @@ public class Item {
     @Column
     private byte status;
 
+    /**
+     * increased every time the item is updated, so that an update based on an out of date copy of the item fails
+     * instead of overwriting the changes of someone else
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private int version;
+
     /**
      * the list of comments this item contains
      */
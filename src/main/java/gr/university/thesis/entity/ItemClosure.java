@@ -0,0 +1,39 @@
+package gr.university.thesis.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * this class links every item with each one of its ancestors (and with itself), so that the whole hierarchy under an
+ * epic/story can be found with one query instead of walking the children of each item, for example:
+ * epic -> story -> task is stored as (epic, epic, 0), (epic, story, 1), (epic, task, 2), (story, story, 0),
+ * (story, task, 1), (task, task, 0)
+ * the links are maintained by the item service every time an item is created, deleted or has its parent changed
+ */
+@Entity
+@Table(name = "item_closure")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemClosure {
+
+    /**
+     * unique identifier, composite key of ancestor and descendant
+     */
+    @EmbeddedId
+    private ItemClosureId itemClosureId;
+
+    /**
+     * how many levels below the ancestor the descendant is, 0 means that the link is between the item and itself
+     */
+    @Column
+    private int depth;
+}
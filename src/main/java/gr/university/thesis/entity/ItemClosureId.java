@@ -0,0 +1,60 @@
+package gr.university.thesis.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * class that is being used as an @Embeddable type to hold the composite entity identifier of the closure table
+ * between an item and each one of its ancestors
+ */
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemClosureId implements Serializable {
+
+    /**
+     * id of the ancestor (for example an epic) that belongs to the link
+     */
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    /**
+     * id of the descendant (for example a task) that belongs to the link
+     */
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    /**
+     * this method compares if two links are equal by comparing both of their ids
+     *
+     * @param o: object the user requested to compare this with
+     * @return returns true if the composite keys are equal, false if not
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ItemClosureId that = (ItemClosureId) o;
+        return Objects.equals(ancestorId, that.ancestorId) &&
+                Objects.equals(descendantId, that.descendantId);
+    }
+
+    /**
+     * this method converts the composite key to a set of numbers, mainly used for integrity reasons
+     *
+     * @return : returns the hashcode of the ancestor-descendant id which is an int
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(ancestorId, descendantId);
+    }
+}
@@ -1,10 +1,11 @@
 package gr.university.thesis.entity;
 
 import gr.university.thesis.entity.enumeration.TaskBoardStatus;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -13,13 +14,16 @@ import java.util.Objects;
 /**
  * this class tracks the status of an item for every sprint that it was associated with
  * when the user wants to check past sprints, the status of each item also needs to be known
+ * the class implements Persistable, as the composite identifier is always set by the application, so without it
+ * every save of a new association would first select it from the repository and could not be batched
  */
 @Entity
+@Table(indexes = @Index(name = "idx_item_sprint_history_sprint_status_moved",
+        columnList = "sprint_id, status, last_moved"))
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
-public class ItemSprintHistory {
+public class ItemSprintHistory implements Persistable<SprintItemId> {
 
     /**
      * unique identifier, composite key of sprint and item
@@ -53,6 +57,22 @@ public class ItemSprintHistory {
     @Column
     private Date last_moved;
 
+    /**
+     * increased every time the association is updated, so that two moves of the same card at the same time cannot
+     * both succeed
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private int version;
+
+    /**
+     * whether this association has not been stored in the repository yet, not stored in the repository
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newAssociation = true;
+
     /**
      * constructor that sets the association between an item and a sprint
      *
@@ -67,6 +87,33 @@ public class ItemSprintHistory {
         sprintItemId = new SprintItemId();
     }
 
+    /**
+     * @return : returns the composite identifier of the association
+     */
+    @Override
+    public SprintItemId getId() {
+        return sprintItemId;
+    }
+
+    /**
+     * @return : returns true if the association has not been stored in the repository yet, so that it is persisted
+     * (and batched) instead of merged
+     */
+    @Override
+    public boolean isNew() {
+        return newAssociation;
+    }
+
+    /**
+     * this method marks the association as stored, it is called after the association is loaded from or stored in the
+     * repository
+     */
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newAssociation = false;
+    }
+
     /**
      * this method compares if two associations are equal by comparing their items and sprints (which in turn compare
      * with their ids)
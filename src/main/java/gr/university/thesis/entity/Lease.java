@@ -0,0 +1,43 @@
+package gr.university.thesis.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * a lease on a piece of background work (for example finishing the expired sprints of a project), when the
+ * application runs on many nodes, only the node that holds the lease does the work, until the lease expires or is
+ * released, the leases are only changed with conditional statements, so two nodes can never hold the same lease
+ */
+@Entity
+@Table(name = "lease")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Lease {
+
+    /**
+     * unique identifier, the name of the work that the lease is held for
+     */
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    /**
+     * the node that holds (or last held) the lease
+     */
+    @Column
+    private String owner;
+
+    /**
+     * until when the lease is held, the lease is free once this has passed (time of the database)
+     */
+    @Column(name = "locked_until", nullable = false)
+    private Date lockedUntil;
+}
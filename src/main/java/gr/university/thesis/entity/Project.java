@@ -20,7 +20,8 @@ public class Project {
      * unique identifier
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_generator")
+    @SequenceGenerator(name = "project_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     /**
@@ -0,0 +1,66 @@
+package gr.university.thesis.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * this class holds the rollup of the numbers shown for every project in the project panel, instead of calculating
+ * them every time the panel is requested, they are updated every time the items or the sprints of the project change
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProjectStatistics {
+
+    /**
+     * unique identifier, the id of the project that these statistics belong to
+     */
+    @Id
+    @Column(name = "project_id")
+    private Long projectId;
+
+    /**
+     * the total effort of the project, check the respective attribute in the Project class for more info
+     */
+    @Column
+    private long total_effort;
+
+    /**
+     * the remaining effort of the project, check the respective attribute in the Project class for more info
+     */
+    @Column
+    private long remaining_effort;
+
+    /**
+     * the estimated total effort of the project, check the respective attribute in the Project class for more info
+     */
+    @Column
+    private long estimated_total_effort;
+
+    /**
+     * the estimated sprints needed, check the respective attribute in the Project class for more info
+     */
+    @Column
+    private long estimated_sprints_needed;
+
+    /**
+     * the number of executed sprints, check the respective attribute in the Project class for more info
+     */
+    @Column
+    private long executed_sprints;
+
+    /**
+     * constructor that creates the statistics of a project
+     *
+     * @param projectId: the project that these statistics belong to
+     */
+    public ProjectStatistics(long projectId) {
+        this.projectId = projectId;
+    }
+}
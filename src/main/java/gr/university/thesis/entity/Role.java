@@ -18,10 +18,9 @@ import javax.persistence.*;
 public class Role {
 
     /**
-     * unique identifier
+     * unique identifier, it is not generated as the roles are known beforehand, check the RoleEnum class
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
 
     /**
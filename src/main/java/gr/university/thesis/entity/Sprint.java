@@ -13,6 +13,8 @@ import java.util.Set;
  * the sprint that is associated with a project, and contains items
  */
 @Entity
+@Table(indexes = {@Index(name = "idx_sprint_status_end_date", columnList = "status, end_date"),
+        @Index(name = "idx_sprint_project_status", columnList = "project_id, status")})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,7 +24,8 @@ public class Sprint {
      * unique identifier
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sprint_generator")
+    @SequenceGenerator(name = "sprint_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     /**
@@ -62,6 +65,13 @@ public class Sprint {
     @Transient
     private int velocity;
 
+    /**
+     * the totals of the sprint, stored once when the sprint finishes (check SprintSummary class for more info), null
+     * before that
+     */
+    @Embedded
+    private SprintSummary summary;
+
     /**
      * the days remaining for this project: calculated by subtracting the starting date from the end date
      */
@@ -76,6 +86,13 @@ public class Sprint {
     @Column
     private byte status;
 
+    /**
+     * increased every time the sprint is updated, so that a sprint cannot be started or finished twice at the same time
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private int version;
+
     /**
      * the project that this sprint is associated with
      */
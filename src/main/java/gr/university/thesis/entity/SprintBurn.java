@@ -0,0 +1,38 @@
+package gr.university.thesis.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * this class keeps the effort that was burned (tasks/bugs moved to 'done') during each day of a sprint, so that the
+ * burn down chart of the sprint can be drawn by reading one row per day instead of going through all the done items,
+ * the rows are created when the sprint starts, updated every time an item is moved into or out of 'done' and rebuilt
+ * when the sprint finishes
+ */
+@Entity
+@Table(name = "sprint_burn")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SprintBurn {
+
+    /**
+     * unique identifier, composite key of sprint and day
+     */
+    @EmbeddedId
+    private SprintBurnId sprintBurnId;
+
+    /**
+     * the sum of the effort of the tasks/bugs that were moved to 'done' during that day (and are still done)
+     */
+    @Column
+    private int burnedEffort;
+}
@@ -0,0 +1,60 @@
+package gr.university.thesis.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * class that is being used as an @Embeddable type to hold the composite entity identifier of the burn of a sprint
+ * during one of its days
+ */
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SprintBurnId implements Serializable {
+
+    /**
+     * id of the sprint that the burn belongs to
+     */
+    @Column(name = "sprint_id")
+    private Long sprintId;
+
+    /**
+     * the day of the sprint, 0 is the day the sprint started
+     */
+    @Column(name = "day_index")
+    private Integer dayIndex;
+
+    /**
+     * this method compares if two burns are equal by comparing both of their ids
+     *
+     * @param o: object the user requested to compare this with
+     * @return returns true if the composite keys are equal, false if not
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SprintBurnId that = (SprintBurnId) o;
+        return Objects.equals(sprintId, that.sprintId) &&
+                Objects.equals(dayIndex, that.dayIndex);
+    }
+
+    /**
+     * this method converts the composite key to a set of numbers, mainly used for integrity reasons
+     *
+     * @return : returns the hashcode of the sprint-day id which is an int
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(sprintId, dayIndex);
+    }
+}
@@ -0,0 +1,43 @@
+package gr.university.thesis.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * the history page of a finished sprint (burn down chart, cumulative flow diagram and the tasks/bugs done per day),
+ * stored in JSON when the sprint finishes, a finished sprint never changes, so its history is read with one query
+ * instead of being calculated from its items every time it is viewed
+ */
+@Entity
+@Table(name = "sprint_history")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SprintHistorySnapshot {
+
+    /**
+     * unique identifier, the id of the sprint that the history belongs to
+     */
+    @Id
+    @Column(name = "sprint_id")
+    private Long sprintId;
+
+    /**
+     * the history of the sprint in JSON, check the SprintHistory class for more info
+     */
+    @Lob
+    @Column(nullable = false)
+    private String document;
+
+    /**
+     * when the history was stored
+     */
+    @Column(name = "frozen_at", nullable = false)
+    private Date frozenAt;
+}
@@ -0,0 +1,53 @@
+package gr.university.thesis.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * class that is being used as an @Embeddable type to hold the totals of a sprint (only tasks/bugs count), they are
+ * calculated once, when the sprint finishes, and are never changed afterwards (the columns are not updatable), so
+ * that the history of the project can be shown without going through the items of every finished sprint
+ */
+@Embeddable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SprintSummary {
+
+    /**
+     * the effort of all the tasks/bugs of the sprint
+     */
+    @Column(name = "summary_total_effort", updatable = false)
+    private Long totalEffort;
+
+    /**
+     * the effort of the tasks/bugs that were done by the end of the sprint
+     */
+    @Column(name = "summary_velocity", updatable = false)
+    private Long velocity;
+
+    /**
+     * the number of tasks/bugs of the sprint
+     */
+    @Column(name = "summary_task_count", updatable = false)
+    private Long taskCount;
+
+    /**
+     * the number of tasks/bugs that were done by the end of the sprint
+     */
+    @Column(name = "summary_done_count", updatable = false)
+    private Long doneCount;
+
+    /**
+     * custom constructor, used by the repository to calculate the totals of a sprint in one query
+     */
+    public SprintSummary(Long totalEffort, Long velocity, Long taskCount, Long doneCount) {
+        this.totalEffort = totalEffort;
+        this.velocity = velocity;
+        this.taskCount = taskCount;
+        this.doneCount = doneCount;
+    }
+}
@@ -0,0 +1,74 @@
+package gr.university.thesis.entity;
+
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * every move of an item on the task board of a sprint (including the moment the item is added to or removed from the
+ * sprint), the moves are only appended and never changed, so that the whole history of a sprint can be read in order
+ * of time, unlike the association between the item and the sprint, which only keeps the latest status
+ */
+@Entity
+@Table(name = "task_board_transition",
+        indexes = @Index(name = "idx_task_board_transition_sprint_moved", columnList = "sprint_id, moved_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class TaskBoardTransition {
+
+    /**
+     * unique identifier
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_board_transition_generator")
+    @SequenceGenerator(name = "task_board_transition_generator", sequenceName = "hibernate_sequence",
+            allocationSize = 50)
+    private Long id;
+
+    /**
+     * the sprint that the task board belongs to
+     */
+    @Column(name = "sprint_id", nullable = false)
+    private Long sprintId;
+
+    /**
+     * the item that was moved
+     */
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    /**
+     * the status of the item before the move, 'NONE' if the item was added to the sprint
+     */
+    @Column(name = "from_status", nullable = false)
+    private TaskBoardStatus fromStatus;
+
+    /**
+     * the status of the item after the move, 'NONE' if the item was removed from the sprint
+     */
+    @Column(name = "to_status", nullable = false)
+    private TaskBoardStatus toStatus;
+
+    /**
+     * when the item was moved
+     */
+    @Column(name = "moved_at", nullable = false)
+    private Date movedAt;
+
+    /**
+     * custom constructor
+     */
+    public TaskBoardTransition(Long sprintId, Long itemId, TaskBoardStatus fromStatus, TaskBoardStatus toStatus,
+                               Date movedAt) {
+        this.sprintId = sprintId;
+        this.itemId = itemId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.movedAt = movedAt;
+    }
+}
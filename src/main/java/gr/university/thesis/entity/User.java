@@ -12,6 +12,9 @@ import java.util.Set;
  * User that is saved in the repository
  */
 @Entity
+@Table(indexes = {@Index(name = "idx_user_email", columnList = "email"),
+        @Index(name = "idx_user_first_name", columnList = "first_name"),
+        @Index(name = "idx_user_last_name", columnList = "last_name")})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,7 +24,8 @@ public class User {
      * unique identifier
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_generator")
+    @SequenceGenerator(name = "user_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     /**
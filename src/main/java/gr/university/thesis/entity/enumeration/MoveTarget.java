@@ -0,0 +1,28 @@
+package gr.university.thesis.entity.enumeration;
+
+/**
+ * this enum class helps in identifying where a group of items is moved to, when many items are moved at once (for
+ * example during the planning of a sprint)
+ */
+public enum MoveTarget {
+
+    SPRINT("Ready Sprint"),
+    BACKLOG("Backlog"),
+    TASK_BOARD("Task Board");
+
+    private final String name;
+
+    /**
+     * @param name: where the items are moved to
+     */
+    MoveTarget(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return returns the name of the wanted enum
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,28 @@
+package gr.university.thesis.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * this event is published every time the items or the sprints of a project are changed in a way that affects the
+ * statistics of the project (efforts, sprints etc.)
+ */
+public class ProjectModifiedEvent extends ApplicationEvent {
+
+    private final long projectId;
+
+    /**
+     * @param source:    the object that published this event, most likely a service
+     * @param projectId: the project that was modified
+     */
+    public ProjectModifiedEvent(Object source, long projectId) {
+        super(source);
+        this.projectId = projectId;
+    }
+
+    /**
+     * @return : returns the id of the project that was modified
+     */
+    public long getProjectId() {
+        return projectId;
+    }
+}
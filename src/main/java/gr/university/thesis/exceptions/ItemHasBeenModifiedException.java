@@ -0,0 +1,11 @@
+package gr.university.thesis.exceptions;
+
+/**
+ * this exception is thrown when the item the user is trying to update, has been updated by someone else since the user
+ * opened it
+ */
+public class ItemHasBeenModifiedException extends Exception {
+    public ItemHasBeenModifiedException(String description) {
+        super(description);
+    }
+}
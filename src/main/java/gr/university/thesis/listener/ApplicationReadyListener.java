@@ -0,0 +1,43 @@
+package gr.university.thesis.listener;
+
+import gr.university.thesis.service.ItemService;
+import gr.university.thesis.service.TaskBoardTransitionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class allows the system to listen to the application being ready to serve requests, mainly used to prepare
+ * data that the system keeps up to date from then on
+ */
+@Component
+public class ApplicationReadyListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private ItemService itemService;
+    private TaskBoardTransitionService taskBoardTransitionService;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param itemService:                service that manages items
+     * @param taskBoardTransitionService: service that keeps the log of the moves on the task boards
+     */
+    @Autowired
+    public ApplicationReadyListener(ItemService itemService, TaskBoardTransitionService taskBoardTransitionService) {
+        this.itemService = itemService;
+        this.taskBoardTransitionService = taskBoardTransitionService;
+    }
+
+    /**
+     * this method listens to the application being ready and builds the hierarchy of the items and the log of the
+     * task board moves, in case the items/associations were created before these were stored in the repository
+     *
+     * @param event: an event triggered by spring when the application has started
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        itemService.initializeItemClosure();
+        taskBoardTransitionService.initializeTransitions();
+    }
+}
@@ -1,6 +1,7 @@
 package gr.university.thesis.listener;
 
 import gr.university.thesis.entity.SessionUser;
+import gr.university.thesis.service.LoginAttemptService;
 import gr.university.thesis.service.SessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
@@ -11,24 +12,28 @@ import javax.servlet.http.HttpSession;
 
 /**
  * This class allows the system to listen to login events, mainly used to record successful logins from users
- * and setting their session attributes for usage all over the system
+ * and setting their session attributes for usage all over the system, the failed logins of their email are forgotten
  */
 @Component
 public class AuthenticationSuccessListener implements ApplicationListener<AuthenticationSuccessEvent> {
 
     private HttpSession session;
     private SessionService sessionService;
+    private LoginAttemptService loginAttemptService;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param session:       the http session that is associated with the user
-     * @param sessionService : service that manages the session with the user
+     * @param session:             the http session that is associated with the user
+     * @param sessionService :      service that manages the session with the user
+     * @param loginAttemptService: service that keeps the failed logins of each email
      */
     @Autowired
-    public AuthenticationSuccessListener(HttpSession session, SessionService sessionService) {
+    public AuthenticationSuccessListener(HttpSession session, SessionService sessionService,
+                                         LoginAttemptService loginAttemptService) {
         this.session = session;
         this.sessionService = sessionService;
+        this.loginAttemptService = loginAttemptService;
     }
 
     /**
@@ -43,5 +48,6 @@ public class AuthenticationSuccessListener implements ApplicationListener<Authen
         SessionUser user = (SessionUser) event.getAuthentication().getPrincipal();
         //set the attributes
         sessionService.setSessionAttributes(user, session);
+        loginAttemptService.loginSucceeded(user.getUsername());
     }
 }
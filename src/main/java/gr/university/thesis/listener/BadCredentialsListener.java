@@ -1,47 +1,43 @@
 package gr.university.thesis.listener;
 
+import gr.university.thesis.service.LoginAttemptService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
 import org.springframework.stereotype.Component;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
-
 /**
- * This class allows the system to listen to login events, mainly used to capture the email of a user that failed to
- * login and passing it to the redirection towards the login page
+ * This class allows the system to listen to login events, mainly used to record the failed logins of each email, so
+ * that emails that keep failing are locked for a while, nothing is kept in the session (a burst of failed logins
+ * would otherwise create a session for each one of them)
  */
 @Component
 public class BadCredentialsListener implements ApplicationListener<AuthenticationFailureBadCredentialsEvent> {
 
-    private HttpServletRequest request;
+    private LoginAttemptService loginAttemptService;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param request: the http request received from a user
+     * @param loginAttemptService: service that keeps the failed logins of each email
      */
     @Autowired
-    public BadCredentialsListener(HttpServletRequest request) {
-        this.request = request;
+    public BadCredentialsListener(LoginAttemptService loginAttemptService) {
+        this.loginAttemptService = loginAttemptService;
     }
 
     /**
      * this method listens for application events, and specifically for bad credentials requests
-     * and sets the email value in the form through a session attribute,
-     * for the convenience of the user (so he does not have to type it again).
+     * and records the failed login of the email that the user attempted to login with
+     *
      * @param event: an event triggered by the user (login failed)
      */
     @Override
     public void onApplicationEvent(AuthenticationFailureBadCredentialsEvent event) {
         //get the email that the user attempted to login with
         Object emailObj = event.getAuthentication().getPrincipal();
-        //get the string email
-        String email = emailObj.toString();
-        //set for the upcoming session, the session of the request received
-        HttpSession session = request.getSession();
-        //set the userEmail attribute of the session
-        session.setAttribute("userEmail", email);
+        if (emailObj != null) {
+            loginAttemptService.loginFailed(emailObj.toString());
+        }
     }
-}
\ No newline at end of file
+}
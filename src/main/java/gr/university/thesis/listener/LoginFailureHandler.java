@@ -0,0 +1,47 @@
+package gr.university.thesis.listener;
+
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class handles the failed logins, the user is redirected back to the login page with the email that they
+ * attempted to login with as a parameter (so they do not have to type it again), and whether the email is locked
+ * because of too many failed logins, nothing is kept in the session, unlike the default handler of spring that keeps
+ * the exception there
+ */
+@Component
+public class LoginFailureHandler implements AuthenticationFailureHandler {
+
+    //emails cannot be longer than this, longer values are not sent back
+    private static final int MAXIMUM_EMAIL_LENGTH = 254;
+
+    /**
+     * this method redirects the user back to the login page after a failed login
+     *
+     * @param request:   the login request of the user
+     * @param response:  the response that the redirection is sent with
+     * @param exception: the reason the login failed
+     * @throws IOException : if the redirection could not be sent
+     */
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+                                        AuthenticationException exception) throws IOException {
+        StringBuilder url = new StringBuilder(request.getContextPath()).append("/login?error=true");
+        if (exception instanceof LockedException) {
+            url.append("&locked=true");
+        }
+        String email = request.getParameter("email");
+        if (email != null && !email.isEmpty() && email.length() <= MAXIMUM_EMAIL_LENGTH) {
+            url.append("&email=").append(URLEncoder.encode(email, StandardCharsets.UTF_8.name()));
+        }
+        response.sendRedirect(url.toString());
+    }
+}
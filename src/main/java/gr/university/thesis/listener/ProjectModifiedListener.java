@@ -0,0 +1,75 @@
+package gr.university.thesis.listener;
+
+import gr.university.thesis.event.ProjectModifiedEvent;
+import gr.university.thesis.service.ProjectService;
+import gr.university.thesis.service.TaskBoardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class allows the system to listen to modifications of projects, mainly used to keep the statistics of each
+ * project (shown in the project panel) and the cached task boards of its sprints up to date
+ */
+@Component
+public class ProjectModifiedListener implements ApplicationListener<ProjectModifiedEvent> {
+
+    private ProjectService projectService;
+    private TaskBoardService taskBoardService;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param projectService:   service that manages all the projects of the system
+     * @param taskBoardService: service that loads and caches the task boards of the sprints
+     */
+    @Autowired
+    public ProjectModifiedListener(ProjectService projectService, TaskBoardService taskBoardService) {
+        this.projectService = projectService;
+        this.taskBoardService = taskBoardService;
+    }
+
+    /**
+     * this method listens to modifications of projects and refreshes their statistics, if the modification happens
+     * inside a transaction (for example when a sprint finishes and many items change at once), then the statistics
+     * are refreshed only once per project, right before the transaction commits, so that they are part of it, the
+     * cached task boards of the project are evicted in any case, since the items shown on them might have changed
+     *
+     * @param event: an event triggered by a service that modified the project
+     */
+    @Override
+    public void onApplicationEvent(ProjectModifiedEvent event) {
+        taskBoardService.evictTaskBoardsOfProject(event.getProjectId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            projectService.refreshStatistics(event.getProjectId());
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> modifiedProjects = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        //first modification in this transaction, the refresh needs to be registered
+        if (modifiedProjects == null) {
+            Set<Long> projectsToRefresh = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, projectsToRefresh);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    for (long projectId : projectsToRefresh) {
+                        projectService.refreshStatistics(projectId);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProjectModifiedListener.this);
+                }
+            });
+            modifiedProjects = projectsToRefresh;
+        }
+        modifiedProjects.add(event.getProjectId());
+    }
+}
@@ -1,10 +1,32 @@
 package gr.university.thesis.repository;
 
+import gr.university.thesis.dto.CommentExportRecord;
 import gr.university.thesis.entity.Comment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
 
 /**
  * Repository that manages everything that has to do with comments
  */
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    /**
+     * this method streams all the comments of the items of a project, the rows are read from the database one at a
+     * time, so the stream must be closed and consumed inside a transaction
+     *
+     * @param projectId: the id of the project that the items belong to
+     * @return : returns a stream with the export records of all the comments of the project
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE,
+            value = ItemRepository.STREAMING_FETCH_SIZE))
+    @Query("SELECT new gr.university.thesis.dto.CommentExportRecord(comment.id, item.id, owner.email, " +
+            "comment.date_created, comment.body) " +
+            "FROM Comment comment JOIN comment.item item JOIN comment.owner owner " +
+            "WHERE item.project.id=:projectId ORDER BY comment.id")
+    Stream<CommentExportRecord> streamExportRecordsByProjectId(@Param("projectId") long projectId);
 }
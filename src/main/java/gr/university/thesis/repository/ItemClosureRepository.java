@@ -0,0 +1,220 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.dto.ItemEffort;
+import gr.university.thesis.entity.Item;
+import gr.university.thesis.entity.ItemClosure;
+import gr.university.thesis.entity.ItemClosureId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository that manages everything that has to do with the hierarchy (ancestors/descendants) of the items
+ */
+public interface ItemClosureRepository extends JpaRepository<ItemClosure, ItemClosureId> {
+
+    /**
+     * this method links a newly created item with itself and with all the ancestors of its parent
+     *
+     * @param itemId:   the item that was created
+     * @param parentId: the parent of the item, 0 if the item has no parent
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO item_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT closure.ancestor_id, :itemId, closure.depth + 1 FROM item_closure closure " +
+            "WHERE closure.descendant_id=:parentId " +
+            "UNION ALL SELECT :itemId, :itemId, 0", nativeQuery = true)
+    void insertLinksOfNewItem(@Param("itemId") long itemId, @Param("parentId") long parentId);
+
+    /**
+     * this method links a group of newly created items with themselves, it is the first step of linking items that
+     * were created together (for example during an import)
+     *
+     * @param itemIds: the items that were created
+     * @return : returns the number of links created
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO item_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT id, id, 0 FROM item WHERE id IN :itemIds", nativeQuery = true)
+    int insertSelfLinksOfNewItems(@Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * this method links a group of newly created items with the ancestors of their parents, since the parent of an
+     * item might be in the same group, each call links one more level and the links that already exist are skipped,
+     * so it is called repeatedly until nothing is linked
+     *
+     * @param itemIds: the items that were created
+     * @return : returns the number of links created, 0 means that all the items are fully linked
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO item_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT closure.ancestor_id, item.id, closure.depth + 1 FROM item " +
+            "JOIN item_closure closure ON closure.descendant_id=item.parent_id " +
+            "WHERE item.id IN :itemIds", nativeQuery = true)
+    int insertLinksOfNewItemsToAncestors(@Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * this method removes the links between an item (and its descendants) and the ancestors of the item, it is used
+     * right before the item is placed under another parent, the links inside the subtree of the item are kept
+     * (MySQL does not allow selecting from the table being deleted from, so the subqueries are wrapped)
+     *
+     * @param itemId: the item that is going to have its parent changed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM item_closure " +
+            "WHERE descendant_id IN (SELECT subtree.descendant_id FROM " +
+            "(SELECT descendant_id FROM item_closure WHERE ancestor_id=:itemId) subtree) " +
+            "AND ancestor_id IN (SELECT supertree.ancestor_id FROM " +
+            "(SELECT ancestor_id FROM item_closure WHERE descendant_id=:itemId AND ancestor_id<>:itemId) supertree)",
+            nativeQuery = true)
+    void deleteLinksToAncestors(@Param("itemId") long itemId);
+
+    /**
+     * this method links an item (and its descendants) with its new parent and all the ancestors of the new parent
+     *
+     * @param itemId:   the item that had its parent changed
+     * @param parentId: the new parent of the item
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO item_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT supertree.ancestor_id, subtree.descendant_id, supertree.depth + subtree.depth + 1 " +
+            "FROM item_closure supertree CROSS JOIN item_closure subtree " +
+            "WHERE supertree.descendant_id=:parentId AND subtree.ancestor_id=:itemId", nativeQuery = true)
+    void insertLinksToAncestors(@Param("itemId") long itemId, @Param("parentId") long parentId);
+
+    /**
+     * this method removes all the links of an item and its descendants, used right before the item is deleted
+     *
+     * @param itemId: the item that is going to be deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM item_closure " +
+            "WHERE descendant_id IN (SELECT subtree.descendant_id FROM " +
+            "(SELECT descendant_id FROM item_closure WHERE ancestor_id=:itemId) subtree)", nativeQuery = true)
+    void deleteLinksOfSubtree(@Param("itemId") long itemId);
+
+    /**
+     * this method removes all the links of the items of a project, used right before the project is deleted
+     *
+     * @param projectId: the project that is going to be deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ItemClosure closure WHERE closure.itemClosureId.descendantId IN " +
+            "(SELECT item.id FROM Item item WHERE item.project.id=:projectId)")
+    void deleteLinksOfProject(@Param("projectId") long projectId);
+
+    /**
+     * this method links every existing item with itself, it is the first step of building the closure table for
+     * items that were created before the table existed
+     *
+     * @return : returns the number of links created
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO item_closure (ancestor_id, descendant_id, depth) SELECT id, id, 0 FROM item",
+            nativeQuery = true)
+    int insertSelfLinksOfAllItems();
+
+    /**
+     * this method links the children of the items found at a certain depth with the ancestors of these items, by
+     * calling it with depth 0, 1, 2... the whole closure table is built one level at a time
+     *
+     * @param depth: the depth of the links that will be extended by one level
+     * @return : returns the number of links created, 0 means that there are no more levels
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO item_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT closure.ancestor_id, item.id, closure.depth + 1 FROM item_closure closure " +
+            "JOIN item ON item.parent_id=closure.descendant_id " +
+            "WHERE closure.depth=:depth", nativeQuery = true)
+    int insertLinksOfNextLevel(@Param("depth") int depth);
+
+    /**
+     * this method calculates the combined effort of a set of epics/stories, which is the sum of the effort of all the
+     * items under them that are not epics/stories themselves
+     *
+     * @param itemIds: the epics/stories that the user requested the effort of
+     * @param epic:    the repository id of the epic type
+     * @param story:   the repository id of the story type
+     * @return : returns the combined effort of each epic/story that has at least one such descendant
+     */
+    @Query("SELECT new gr.university.thesis.dto.ItemEffort(closure.itemClosureId.ancestorId, SUM(item.effort)) " +
+            "FROM ItemClosure closure, Item item " +
+            "WHERE item.id=closure.itemClosureId.descendantId " +
+            "AND closure.itemClosureId.ancestorId IN :itemIds AND closure.depth>0 " +
+            "AND item.type<>:epic AND item.type<>:story " +
+            "GROUP BY closure.itemClosureId.ancestorId")
+    List<ItemEffort> findCombinedEfforts(@Param("itemIds") Collection<Long> itemIds,
+                                         @Param("epic") int epic,
+                                         @Param("story") int story);
+
+    /**
+     * this method returns all the descendants (children, children of children etc.) of an item that do not have a
+     * certain status
+     *
+     * @param itemId: the item that the user requested the descendants of
+     * @param status: the status that the descendants should not have (for example finished)
+     * @return : returns the list of descendants
+     */
+    @Query("SELECT item FROM ItemClosure closure, Item item " +
+            "WHERE item.id=closure.itemClosureId.descendantId " +
+            "AND closure.itemClosureId.ancestorId=:itemId AND closure.depth>0 AND item.status<>:status")
+    List<Item> findDescendantsWithoutStatus(@Param("itemId") long itemId, @Param("status") byte status);
+
+    /**
+     * this method returns the ids of a set of items and all their descendants (children, children of children etc.)
+     * that do not have a certain status, an item that is a descendant of another item of the set is returned once
+     *
+     * @param itemIds: the items that the user requested the subtrees of
+     * @param status:  the status that the items should not have (for example finished)
+     * @return : returns the ids of the items found
+     */
+    @Query("SELECT DISTINCT item.id FROM ItemClosure closure, Item item " +
+            "WHERE item.id=closure.itemClosureId.descendantId " +
+            "AND closure.itemClosureId.ancestorId IN :itemIds AND item.status<>:status")
+    List<Long> findSubtreeIdsWithoutStatus(@Param("itemIds") Collection<Long> itemIds, @Param("status") byte status);
+
+    /**
+     * this method counts the descendants of an item that have a certain status
+     *
+     * @param itemId: the item that the user requested to check the descendants of
+     * @param status: the status of the descendants (for example finished)
+     * @return : returns the number of descendants with that status
+     */
+    @Query("SELECT COUNT(item) FROM ItemClosure closure, Item item " +
+            "WHERE item.id=closure.itemClosureId.descendantId " +
+            "AND closure.itemClosureId.ancestorId=:itemId AND closure.depth>0 AND item.status=:status")
+    long countDescendantsWithStatus(@Param("itemId") long itemId, @Param("status") byte status);
+
+    /**
+     * this method counts the descendants of an item that are not epics/stories (tasks/bugs etc.) and have not been
+     * finished yet, if there are none, then the item itself can be considered finished
+     *
+     * @param itemId:   the item that the user requested to check the descendants of
+     * @param finished: the repository id of the finished status
+     * @param epic:     the repository id of the epic type
+     * @param story:    the repository id of the story type
+     * @return : returns the number of unfinished tasks/bugs etc. under the item
+     */
+    @Query("SELECT COUNT(item) FROM ItemClosure closure, Item item " +
+            "WHERE item.id=closure.itemClosureId.descendantId " +
+            "AND closure.itemClosureId.ancestorId=:itemId AND closure.depth>0 " +
+            "AND item.type<>:epic AND item.type<>:story AND item.status<>:finished")
+    long countUnfinishedWorkItems(@Param("itemId") long itemId,
+                                  @Param("finished") byte finished,
+                                  @Param("epic") int epic,
+                                  @Param("story") int story);
+}
@@ -1,18 +1,34 @@
 package gr.university.thesis.repository;
 
+import gr.university.thesis.dto.ItemExportRecord;
+import gr.university.thesis.dto.ItemReference;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.Project;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository that manages everything that has to do with items
  */
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
+    /**
+     * the fetch size that makes the MySQL driver stream the rows of a result one at a time, instead of loading the
+     * whole result in memory, used by the queries that export whole projects
+     */
+    String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
     /**
      * this method returns all the items that belong to a project
      *
@@ -33,6 +49,16 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
      */
     Optional<Item> findFirstByTitleAndProject(String title, Project project);
 
+    /**
+     * this method returns the id, title and type of every item of a project, without loading the items themselves
+     *
+     * @param projectId: the id of the project that these items belong to
+     * @return : returns the references of all the items of the project
+     */
+    @Query("SELECT new gr.university.thesis.dto.ItemReference(item.id, item.title, item.type) " +
+            "FROM Item item WHERE item.project.id=:projectId")
+    List<ItemReference> findReferencesByProjectId(@Param("projectId") long projectId);
+
     /**
      * this method returns a unique item that belong to a project
      *
@@ -43,5 +69,149 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT item FROM Item item WHERE item.id=:itemId AND item.project.id=:projectId")
     Optional<Item> findDistinctItemByProjectId(@Param("itemId") long itemId, @Param("projectId") long projectId);
 
+    /**
+     * this method returns the items of a project that have one of the given ids, the ids that do not belong to an
+     * item of the project are ignored
+     *
+     * @param itemIds:   the ids of the items that the user requested to find
+     * @param projectId: the id of the project that the items belong to
+     * @return : returns the items found
+     */
+    @Query("SELECT item FROM Item item WHERE item.id IN :itemIds AND item.project.id=:projectId")
+    List<Item> findAllByIdsAndProjectId(@Param("itemIds") Collection<Long> itemIds,
+                                        @Param("projectId") long projectId);
+
+    /**
+     * this method updates the status of a set of items with one statement, the pending changes are flushed before, the
+     * loaded items are not touched, so the caller needs to detach the ones that keep their old status (their version is
+     * increased as well)
+     *
+     * @param itemIds: the items that the user requested to update
+     * @param status:  the new status of the items
+     * @return : returns the number of items updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE Item item SET item.status=:status, item.version=item.version+1 WHERE item.id IN :itemIds")
+    int updateStatusOfItems(@Param("itemIds") Collection<Long> itemIds, @Param("status") byte status);
+
+    /**
+     * this method updates the status of all the unfinished descendants (children, children of children etc.) of an item
+     * with one statement, the pending changes are flushed before, the loaded items are not touched, so the caller needs
+     * to detach the ones that keep their old status (its version is increased as well)
+     *
+     * @param itemId:   the item (epic/story) that the user requested to update the descendants of
+     * @param status:   the new status of the descendants
+     * @param finished: the repository id of the finished status, finished descendants keep their status
+     * @return : returns the number of items updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE Item item SET item.status=:status, item.version=item.version+1 WHERE item.status<>:finished AND item.id IN " +
+            "(SELECT closure.itemClosureId.descendantId FROM ItemClosure closure " +
+            "WHERE closure.itemClosureId.ancestorId=:itemId AND closure.depth>0)")
+    int updateStatusOfUnfinishedDescendants(@Param("itemId") long itemId,
+                                            @Param("status") byte status,
+                                            @Param("finished") byte finished);
 
+    /**
+     * this method updates the status of all the unfinished items of a sprint (and their descendants) with one
+     * statement, the pending changes are flushed before, the loaded items are not touched, so the caller needs to
+     * detach the ones that keep their old status (its version is increased as well)
+     *
+     * @param sprintId: the sprint that the items are associated with
+     * @param status:   the new status of the items
+     * @param finished: the repository id of the finished status, finished items keep their status
+     * @return : returns the number of items updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE Item item SET item.status=:status, item.version=item.version+1 WHERE item.status<>:finished AND item.id IN " +
+            "(SELECT closure.itemClosureId.descendantId FROM ItemClosure closure " +
+            "WHERE closure.itemClosureId.ancestorId IN " +
+            "(SELECT ish.item.id FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId))")
+    int updateStatusOfUnfinishedItemsInSprint(@Param("sprintId") long sprintId,
+                                              @Param("status") byte status,
+                                              @Param("finished") byte finished);
+
+    /**
+     * this method finishes all the items that were left with a certain task board status (for example 'done') when a
+     * sprint ended, with one statement, the pending changes are flushed before, the loaded items are not touched, so
+     * the caller needs to detach the ones that keep their old status (its version is increased as well)
+     *
+     * @param sprintId:        the sprint that the items are associated with
+     * @param taskBoardStatus: the task board status that the items were left with
+     * @param finished:        the repository id of the finished status
+     * @return : returns the number of items updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE Item item SET item.status=:finished, item.version=item.version+1 WHERE item.id IN " +
+            "(SELECT ish.item.id FROM ItemSprintHistory ish " +
+            "WHERE ish.sprint.id=:sprintId AND ish.status=:taskBoardStatus)")
+    int finishItemsInSprintWithTaskBoardStatus(@Param("sprintId") long sprintId,
+                                               @Param("taskBoardStatus") TaskBoardStatus taskBoardStatus,
+                                               @Param("finished") byte finished);
+
+    /**
+     * this method finishes all the epics/stories that an item left 'done' in a sprint belongs to (directly or not), as
+     * long as they have no unfinished tasks/bugs etc. left under them, with one statement. The completed epics and
+     * stories are collected in a derived table first, because MySQL does not allow the updated table to be read in a
+     * subquery of the update (error 1093), the pending changes are flushed before, the loaded items are not touched, so
+     * the caller needs to detach the ones that keep their old status (its version is increased as well)
+     *
+     * @param sprintId: the sprint that the items are associated with
+     * @param done:     the repository id of the 'done' task board status
+     * @param finished: the repository id of the finished status
+     * @param epic:     the repository id of the epic type
+     * @param story:    the repository id of the story type
+     * @return : returns the number of items finished
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = "UPDATE item SET status=:finished, version=version+1 WHERE id IN " +
+            "(SELECT ancestor_id FROM (SELECT DISTINCT closure.ancestor_id FROM item_sprint_history ish " +
+            "JOIN item_closure closure ON closure.descendant_id=ish.item_id AND closure.depth>0 " +
+            "JOIN item ancestor ON ancestor.id=closure.ancestor_id AND ancestor.status<>:finished " +
+            "WHERE ish.sprint_id=:sprintId AND ish.status=:done AND NOT EXISTS " +
+            "(SELECT 1 FROM item_closure descendant JOIN item work ON work.id=descendant.descendant_id " +
+            "WHERE descendant.ancestor_id=closure.ancestor_id AND descendant.depth>0 " +
+            "AND work.type<>:epic AND work.type<>:story AND work.status<>:finished)) AS completed_ancestors)",
+            nativeQuery = true)
+    int finishCompletedAncestorsOfItemsInSprint(@Param("sprintId") long sprintId,
+                                                @Param("done") int done,
+                                                @Param("finished") byte finished,
+                                                @Param("epic") int epic,
+                                                @Param("story") int story);
+
+    /**
+     * this method updates the status of all the items associated with a sprint (and only them, not their descendants)
+     * with one statement, the pending changes are flushed before, the loaded items are not touched, so the caller needs
+     * to detach the ones that keep their old status (its version is increased as well)
+     *
+     * @param sprintId: the sprint that the items are associated with
+     * @param status:   the new status of the items
+     * @return : returns the number of items updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE Item item SET item.status=:status, item.version=item.version+1 WHERE item.id IN " +
+            "(SELECT ish.item.id FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId)")
+    int updateStatusOfItemsInSprint(@Param("sprintId") long sprintId, @Param("status") byte status);
+
+    /**
+     * this method streams all the items of a project, with their parent, owner and assignee, the rows are read from
+     * the database one at a time and are not kept in the persistence context, so the stream must be closed and
+     * consumed inside a transaction
+     *
+     * @param projectId: the id of the project that these items belong to
+     * @return : returns a stream with the export records of all the items of the project
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE))
+    @Query("SELECT new gr.university.thesis.dto.ItemExportRecord(item.id, parent.id, item.type, item.title, " +
+            "item.description, item.acceptanceCriteria, item.effort, item.estimatedEffort, item.priority, " +
+            "item.status, owner.email, assignee.email, item.date_created) " +
+            "FROM Item item JOIN item.owner owner LEFT JOIN item.parent parent LEFT JOIN item.assignee assignee " +
+            "WHERE item.project.id=:projectId ORDER BY item.id")
+    Stream<ItemExportRecord> streamExportRecordsByProjectId(@Param("projectId") long projectId);
 }
@@ -1,20 +1,33 @@
 package gr.university.thesis.repository;
 
+import gr.university.thesis.dto.AssociationStatus;
+import gr.university.thesis.dto.BurnedEffort;
+import gr.university.thesis.dto.ItemSprintHistoryExportRecord;
+import gr.university.thesis.dto.TaskBoardCard;
+import gr.university.thesis.dto.TaskDoneOnDay;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.ItemSprintHistory;
 import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.SprintItemId;
+import gr.university.thesis.entity.SprintSummary;
 import gr.university.thesis.entity.enumeration.TaskBoardStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository that manages everything that has to do with the history between an item and a sprint
  */
-public interface ItemSprintHistoryRepository extends JpaRepository<ItemSprintHistory, Long> {
+public interface ItemSprintHistoryRepository extends JpaRepository<ItemSprintHistory, SprintItemId> {
     /**
      * @param item:   the item that is associated with the sprint
      * @param sprint: the sprint that is associated with the item
@@ -24,27 +37,23 @@ public interface ItemSprintHistoryRepository extends JpaRepository<ItemSprintHis
 
 
     /**
-     * this method takes as input two types (at max) of item (bug and task for example), and returns all the items
-     * that belongs to a certain sprint and have a certain task board status (for example 'done'), the developer chose
-     * two item types, because at the time of creating this method, they needed a way to fetch both tasks and bugs,
-     * and instead of using 2 queries for it, they used only one
+     * this method returns the cards of the task board of a sprint, the items and their assignees are joined in the
+     * same query, so the whole task board is loaded with one query, no matter how many cards it has
      *
-     * @param sprintId:  the sprint that the items belong to
-     * @param statusId:  the status that we are looking for (for example 'to_do',in_progress etc.)
-     * @param itemType1: type of the item1, for example bug or task
-     * @param itemType2: type of the item2,
-     * @return : returns an optional that may contain a list with items of two types (at max)
+     * @param sprintId:  the sprint that the user requested the task board of
+     * @param itemType1: item type 1 (for example task)
+     * @param itemType2: item type 2 (for example bug)
+     * @return : returns the cards of the task board, in the order they were last moved
      */
-    @Query("SELECT ish FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId " +
-            "AND ish.status=:statusId " +
-            "AND (ish.item.type=:itemType1 " +
-            "OR ish.item.type=:itemType2) " +
-            "ORDER BY ish.last_moved")
-    Optional<List<ItemSprintHistory>> findAllBySprintAndStatusAndItemTypes(@Param("sprintId") long sprintId,
-                                                                           @Param("statusId") TaskBoardStatus statusId,
-                                                                           @Param("itemType1") int itemType1,
-                                                                           @Param("itemType2") int itemType2);
-
+    @Query("SELECT new gr.university.thesis.dto.TaskBoardCard(association.sprintItemId.sprintId, item.id, " +
+            "item.type, item.title, item.effort, item.priority, assignee.id, association.status) " +
+            "FROM ItemSprintHistory association JOIN association.item item LEFT JOIN item.assignee assignee " +
+            "WHERE association.sprintItemId.sprintId=:sprintId " +
+            "AND (item.type=:itemType1 OR item.type=:itemType2) " +
+            "ORDER BY association.last_moved")
+    List<TaskBoardCard> findTaskBoardCards(@Param("sprintId") long sprintId,
+                                           @Param("itemType1") int itemType1,
+                                           @Param("itemType2") int itemType2);
 
     /**
      * this method is mainly used to calculate the total effort of a sprint, it takes all the items and sums the effort
@@ -63,6 +72,220 @@ public interface ItemSprintHistoryRepository extends JpaRepository<ItemSprintHis
                                                                   @Param("itemType1") int itemType1,
                                                                   @Param("itemType2") int itemType2);
 
-}
+    /**
+     * this method returns which of the items requested are already associated with a sprint
+     *
+     * @param sprintId: the sprint that the items might be associated with
+     * @param itemIds:  the items that the user requested to check
+     * @return : returns the ids of the items that are already associated with the sprint
+     */
+    @Query("SELECT ish.item.id FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId AND ish.item.id IN :itemIds")
+    List<Long> findItemIdsAssociatedWithSprint(@Param("sprintId") long sprintId,
+                                               @Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * this method returns the associations between a sprint and a set of items
+     *
+     * @param sprintId: the sprint that the items are associated with
+     * @param itemIds:  the items that the user requested the associations of
+     * @return : returns the associations that exist
+     */
+    @Query("SELECT ish FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId AND ish.item.id IN :itemIds")
+    List<ItemSprintHistory> findAllBySprintIdAndItemIds(@Param("sprintId") long sprintId,
+                                                        @Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * this method calculates the totals of a sprint in one query, without loading any associations or items, only
+     * the tasks/bugs count
+     *
+     * @param sprintId: the sprint that the user requested the totals of
+     * @param done:     the 'done' task board status, the tasks/bugs with this status count towards the velocity
+     * @param task:     the repository id of the task type
+     * @param bug:      the repository id of the bug type
+     * @return : returns the totals of the sprint
+     */
+    @Query("SELECT new gr.university.thesis.entity.SprintSummary(COALESCE(SUM(item.effort), 0), " +
+            "COALESCE(SUM(CASE WHEN ish.status=:done THEN item.effort ELSE 0 END), 0), COUNT(item), " +
+            "COALESCE(SUM(CASE WHEN ish.status=:done THEN 1 ELSE 0 END), 0)) " +
+            "FROM ItemSprintHistory ish JOIN ish.item item " +
+            "WHERE ish.sprint.id=:sprintId AND (item.type=:task OR item.type=:bug)")
+    SprintSummary calculateSummary(@Param("sprintId") long sprintId,
+                                   @Param("done") TaskBoardStatus done,
+                                   @Param("task") int task,
+                                   @Param("bug") int bug);
+
+    /**
+     * this method returns the associations between a sprint and a set of items, the items are fetched in the same
+     * query
+     *
+     * @param sprintId: the sprint that the items are associated with
+     * @param itemIds:  the items that the user requested the associations of
+     * @return : returns the associations that exist, with their items
+     */
+    @Query("SELECT ish FROM ItemSprintHistory ish JOIN FETCH ish.item " +
+            "WHERE ish.sprint.id=:sprintId AND ish.item.id IN :itemIds")
+    List<ItemSprintHistory> findAllWithItemsBySprintIdAndItemIds(@Param("sprintId") long sprintId,
+                                                                 @Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * this method associates a set of items with a sprint with one statement, the items that are already associated
+     * with the sprint are skipped
+     *
+     * @param sprintId: the sprint that the items are added to
+     * @param itemIds:  the items that the user requested to add to the sprint
+     * @param status:   the repository id of the task board status of the new associations
+     * @return : returns the number of associations created
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = "INSERT INTO item_sprint_history (sprint_id, item_id, status, version) " +
+            "SELECT :sprintId, item.id, :status, 0 FROM item WHERE item.id IN :itemIds " +
+            "AND NOT EXISTS (SELECT 1 FROM item_sprint_history existing " +
+            "WHERE existing.sprint_id=:sprintId AND existing.item_id=item.id)", nativeQuery = true)
+    int insertAssociations(@Param("sprintId") long sprintId,
+                           @Param("itemIds") Collection<Long> itemIds,
+                           @Param("status") int status);
+
+    /**
+     * this method copies the unfinished associations of a sprint that ended into the next sprint with one statement,
+     * the tasks/bugs that were not left 'done' keep the status they had on the task board, epics/stories without
+     * children are copied as well, so that they do not get lost
+     *
+     * @param oldSprintId: the sprint that ended
+     * @param newSprintId: the sprint that the unfinished items are transferred to
+     * @param done:        the repository id of the 'done' task board status
+     * @param finished:    the repository id of the finished item status
+     * @param task:        the repository id of the task type
+     * @param bug:         the repository id of the bug type
+     * @return : returns the number of associations created
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = "INSERT INTO item_sprint_history (sprint_id, item_id, status, version) " +
+            "SELECT :newSprintId, ish.item_id, ish.status, 0 FROM item_sprint_history ish " +
+            "JOIN item ON item.id=ish.item_id WHERE ish.sprint_id=:oldSprintId AND " +
+            "((item.type IN (:task, :bug) AND ish.status<>:done AND item.status<>:finished) OR " +
+            "(item.type NOT IN (:task, :bug) AND NOT EXISTS (SELECT 1 FROM item_closure child " +
+            "WHERE child.ancestor_id=item.id AND child.depth>0)))", nativeQuery = true)
+    int copyUnfinishedAssociations(@Param("oldSprintId") long oldSprintId,
+                                   @Param("newSprintId") long newSprintId,
+                                   @Param("done") int done,
+                                   @Param("finished") byte finished,
+                                   @Param("task") int task,
+                                   @Param("bug") int bug);
+
+    /**
+     * this method associates all the ancestors (parents, parents of parents etc.) of the items of a sprint with the
+     * sprint as well, with one statement, the ancestors that are already associated with the sprint are skipped
+     *
+     * @param sprintId: the sprint that the ancestors are added to
+     * @param status:   the repository id of the task board status of the new associations
+     * @return : returns the number of associations created
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = "INSERT INTO item_sprint_history (sprint_id, item_id, status, version) " +
+            "SELECT DISTINCT :sprintId, closure.ancestor_id, :status, 0 FROM item_sprint_history ish " +
+            "JOIN item_closure closure ON closure.descendant_id=ish.item_id AND closure.depth>0 " +
+            "WHERE ish.sprint_id=:sprintId AND NOT EXISTS (SELECT 1 FROM item_sprint_history existing " +
+            "WHERE existing.sprint_id=:sprintId AND existing.item_id=closure.ancestor_id)", nativeQuery = true)
+    int insertAssociationsOfAncestors(@Param("sprintId") long sprintId, @Param("status") int status);
+
+    /**
+     * this method returns the associations of a sprint that do not have a certain status
+     *
+     * @param sprintId: the sprint that the associations belong to
+     * @param status:   the status that the associations should not have (for example 'none')
+     * @return : returns the associations found
+     */
+    @Query("SELECT ish FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId AND ish.status<>:status")
+    List<ItemSprintHistory> findAllBySprintIdAndStatusNot(@Param("sprintId") long sprintId,
+                                                          @Param("status") TaskBoardStatus status);
+
+    /**
+     * this method returns the status of every association that does not have a certain status, together with when it
+     * was last moved (or when its sprint started), in one query and without loading the associations or the sprints
+     *
+     * @param status: the status that the associations should not have (for example 'none')
+     * @return : returns the status of every such association
+     */
+    @Query("SELECT new gr.university.thesis.dto.AssociationStatus(association.sprintItemId.sprintId, " +
+            "association.sprintItemId.itemId, association.status, " +
+            "COALESCE(association.last_moved, sprint.start_date)) " +
+            "FROM ItemSprintHistory association JOIN association.sprint sprint WHERE association.status<>:status")
+    List<AssociationStatus> findAssociationStatusesByStatusNot(@Param("status") TaskBoardStatus status);
+
+    /**
+     * this method deletes the associations between a sprint and a set of items with one statement
+     *
+     * @param sprintId: the sprint that the items are associated with
+     * @param itemIds:  the items that the user requested to remove from the sprint
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM ItemSprintHistory ish WHERE ish.sprint.id=:sprintId AND ish.item.id IN :itemIds")
+    void deleteAllBySprintIdAndItemIds(@Param("sprintId") long sprintId,
+                                       @Param("itemIds") Collection<Long> itemIds);
 
+    /**
+     * this method streams all the associations between the sprints and the items of a project, the rows are read
+     * from the database one at a time, so the stream must be closed and consumed inside a transaction
+     *
+     * @param projectId: the id of the project that the sprints belong to
+     * @return : returns a stream with the export records of all the associations of the project
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE,
+            value = ItemRepository.STREAMING_FETCH_SIZE))
+    @Query("SELECT new gr.university.thesis.dto.ItemSprintHistoryExportRecord(sprint.id, sprint.goal, " +
+            "association.sprintItemId.itemId, association.status, association.last_moved) " +
+            "FROM ItemSprintHistory association JOIN association.sprint sprint " +
+            "WHERE sprint.project.id=:projectId ORDER BY sprint.id, association.sprintItemId.itemId")
+    Stream<ItemSprintHistoryExportRecord> streamExportRecordsByProjectId(@Param("projectId") long projectId);
 
+    /**
+     * this method returns when each item of a sprint with a certain task board status (usually 'done') was last
+     * moved, together with its effort, without loading the associations or the items
+     *
+     * @param sprintId:  the sprint that the items belong to
+     * @param status:    the task board status of the associations
+     * @param itemType1: type of the item1, for example task
+     * @param itemType2: type of the item2, for example bug
+     * @return : returns the time and effort of every such item
+     */
+    @Query("SELECT new gr.university.thesis.dto.BurnedEffort(association.last_moved, item.effort) " +
+            "FROM ItemSprintHistory association JOIN association.item item " +
+            "WHERE association.sprintItemId.sprintId=:sprintId AND association.status=:status " +
+            "AND (item.type=:itemType1 OR item.type=:itemType2)")
+    List<BurnedEffort> findBurnedEfforts(@Param("sprintId") long sprintId,
+                                         @Param("status") TaskBoardStatus status,
+                                         @Param("itemType1") int itemType1,
+                                         @Param("itemType2") int itemType2);
+
+    /**
+     * this method finds the items (of two types, for example tasks and bugs) with a certain status in a sprint,
+     * together with the day that they were last moved, the day is calculated by the database in the time zone
+     * requested and the items are returned ordered by day, so they only need to be split where the day changes
+     * if the time zones of the database have not been loaded (CONVERT_TZ returns null), the time that was stored is
+     * used as it is, uses the index on (sprint_id, status, last_moved)
+     *
+     * @param sprintId:    the sprint that the items belong to
+     * @param status:      the task board status of the associations, for example 'done'
+     * @param itemType1:   type of the item1, for example task
+     * @param itemType2:   type of the item2, for example bug
+     * @param storedZone:  the time zone that the times were stored in, the time zone of the application
+     * @param displayZone: the time zone of the days, for example 'Europe/Athens'
+     * @return : returns the id, title and effort of every such item and the day that it was last moved
+     */
+    @Query(value = "SELECT DATE(COALESCE(CONVERT_TZ(ish.last_moved, :storedZone, :displayZone), ish.last_moved)) " +
+            "AS day, item.id AS id, item.title AS title, item.effort AS effort " +
+            "FROM item_sprint_history ish JOIN item ON item.id = ish.item_id " +
+            "WHERE ish.sprint_id = :sprintId AND ish.status = :status " +
+            "AND (item.type = :itemType1 OR item.type = :itemType2) " +
+            "ORDER BY day, ish.last_moved, item.id", nativeQuery = true)
+    List<TaskDoneOnDay> findTasksDoneOnDay(@Param("sprintId") long sprintId,
+                                           @Param("status") int status,
+                                           @Param("itemType1") int itemType1,
+                                           @Param("itemType2") int itemType2,
+                                           @Param("storedZone") String storedZone,
+                                           @Param("displayZone") String displayZone);
+}
@@ -0,0 +1,54 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.entity.Lease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository that manages the leases of the background work, the time of the database is used in every statement,
+ * so the clocks of the nodes do not need to agree
+ */
+public interface LeaseRepository extends JpaRepository<Lease, String> {
+
+    /**
+     * this method creates a lease that is free, if it does not exist yet
+     *
+     * @param name: the name of the work that the lease is held for
+     * @return : returns 1 if the lease was created, 0 if it already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO lease (name, owner, locked_until) VALUES (:name, NULL, '1970-01-01 00:00:00')",
+            nativeQuery = true)
+    int createLeaseIfMissing(@Param("name") String name);
+
+    /**
+     * this method takes a lease, only if it is free or already held by the same node, with one statement
+     *
+     * @param name:    the name of the work that the lease is held for
+     * @param owner:   the node that wants to hold the lease
+     * @param seconds: for how long the lease is held
+     * @return : returns 1 if the lease was taken, 0 if another node holds it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE lease SET owner=:owner, locked_until=TIMESTAMPADD(SECOND, :seconds, NOW(3)) " +
+            "WHERE name=:name AND (locked_until<NOW(3) OR owner=:owner)", nativeQuery = true)
+    int acquireLease(@Param("name") String name, @Param("owner") String owner, @Param("seconds") long seconds);
+
+    /**
+     * this method frees a lease, only if it is held by the same node
+     *
+     * @param name:  the name of the work that the lease is held for
+     * @param owner: the node that holds the lease
+     * @return : returns 1 if the lease was freed, 0 if the node did not hold it (for example because it expired)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE lease SET locked_until='1970-01-01 00:00:00' WHERE name=:name AND owner=:owner",
+            nativeQuery = true)
+    int releaseLease(@Param("name") String name, @Param("owner") String owner);
+}
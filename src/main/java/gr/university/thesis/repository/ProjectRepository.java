@@ -1,14 +1,50 @@
 package gr.university.thesis.repository;
 
+import gr.university.thesis.dto.ProjectStatisticsSummary;
 import gr.university.thesis.entity.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository that manages everything that has to do with the projects of the system
  */
 public interface ProjectRepository extends JpaRepository<Project, Long> {
+
+    /**
+     * the effort of an epic/story is the effort of its children (tasks/bugs etc.), and if one of its children is a
+     * story, then the effort of the children of that story, so instead of walking the hierarchy of each project, every
+     * item is checked against its parent and its grandparent to see if its effort counts towards the project:
+     * 1) stray items that are not epics/stories
+     * 2) children (that are not stories) of epics or stray stories
+     * 3) children of stories that belong to epics or stray stories
+     */
+    String EFFORT_COUNTS_TOWARDS_PROJECT = "((item.parent IS NULL AND item.type<>:epic AND item.type<>:story) " +
+            "OR (item.type<>:story AND (parent.type=:epic OR (parent.type=:story AND parent.parent IS NULL))) " +
+            "OR (parent.type=:story AND (grandparent.type=:epic " +
+            "OR (grandparent.type=:story AND grandparent.parent IS NULL))))";
+
+    /**
+     * the select clause of the statistics summary, check the ProjectStatisticsSummary class for more info
+     */
+    String STATISTICS_SUMMARY_QUERY = "SELECT new gr.university.thesis.dto.ProjectStatisticsSummary(" +
+            "project.id, project.team_velocity, " +
+            "SUM(CASE WHEN " + EFFORT_COUNTS_TOWARDS_PROJECT + " THEN item.effort ELSE 0 END), " +
+            "SUM(CASE WHEN item.status<>:finishedItem AND " + EFFORT_COUNTS_TOWARDS_PROJECT +
+            " THEN item.effort ELSE 0 END), " +
+            "SUM(CASE WHEN item.type=:epic OR (item.type=:story AND item.parent IS NULL) " +
+            "THEN item.estimatedEffort ELSE 0 END), " +
+            "(SELECT COUNT(sprint) FROM Sprint sprint WHERE sprint.project=project AND sprint.status=:finishedSprint " +
+            "AND EXISTS (SELECT history FROM ItemSprintHistory history WHERE history.sprint=sprint " +
+            "AND (history.item.type=:task OR history.item.type=:bug)))) " +
+            "FROM Project project " +
+            "LEFT JOIN project.items item " +
+            "LEFT JOIN item.parent parent " +
+            "LEFT JOIN parent.parent grandparent ";
+
     /**
      * returns the first project that it finds with a certain id
      *
@@ -24,4 +60,46 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
      * @return : returns an optional that may contain the requested project
      */
     Optional<Project> findFirstByTitle(String title);
+
+    /**
+     * this method calculates the statistics (efforts, executed sprints) of every project in one query, without
+     * loading any items or sprints
+     *
+     * @param epic:           the repository id of the epic type
+     * @param story:          the repository id of the story type
+     * @param task:           the repository id of the task type
+     * @param bug:            the repository id of the bug type
+     * @param finishedItem:   the repository id of the finished item status
+     * @param finishedSprint: the repository id of the finished sprint status
+     * @return : returns a list that contains the statistics of every project
+     */
+    @Query(STATISTICS_SUMMARY_QUERY + "GROUP BY project.id, project.team_velocity")
+    List<ProjectStatisticsSummary> findAllStatisticsSummaries(@Param("epic") int epic,
+                                                              @Param("story") int story,
+                                                              @Param("task") int task,
+                                                              @Param("bug") int bug,
+                                                              @Param("finishedItem") byte finishedItem,
+                                                              @Param("finishedSprint") byte finishedSprint);
+
+    /**
+     * this method calculates the statistics (efforts, executed sprints) of a certain project in one query, without
+     * loading any items or sprints
+     *
+     * @param projectId:      the project that the user requested the statistics of
+     * @param epic:           the repository id of the epic type
+     * @param story:          the repository id of the story type
+     * @param task:           the repository id of the task type
+     * @param bug:            the repository id of the bug type
+     * @param finishedItem:   the repository id of the finished item status
+     * @param finishedSprint: the repository id of the finished sprint status
+     * @return : returns an optional that may contain the statistics of the project
+     */
+    @Query(STATISTICS_SUMMARY_QUERY + "WHERE project.id=:projectId GROUP BY project.id, project.team_velocity")
+    Optional<ProjectStatisticsSummary> findStatisticsSummaryByProjectId(@Param("projectId") long projectId,
+                                                                        @Param("epic") int epic,
+                                                                        @Param("story") int story,
+                                                                        @Param("task") int task,
+                                                                        @Param("bug") int bug,
+                                                                        @Param("finishedItem") byte finishedItem,
+                                                                        @Param("finishedSprint") byte finishedSprint);
 }
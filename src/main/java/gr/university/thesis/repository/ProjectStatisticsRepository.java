@@ -0,0 +1,10 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.entity.ProjectStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository that manages everything that has to do with the statistics (rollup) of each project
+ */
+public interface ProjectStatisticsRepository extends JpaRepository<ProjectStatistics, Long> {
+}
@@ -0,0 +1,63 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.entity.SprintBurn;
+import gr.university.thesis.entity.SprintBurnId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository that manages everything that has to do with the effort burned during each day of the sprints
+ */
+public interface SprintBurnRepository extends JpaRepository<SprintBurn, SprintBurnId> {
+
+    /**
+     * @param sprintId: the sprint that the user requested the burns of
+     * @return : returns the burns of the sprint, ordered by day
+     */
+    @Query("SELECT burn FROM SprintBurn burn WHERE burn.sprintBurnId.sprintId=:sprintId " +
+            "ORDER BY burn.sprintBurnId.dayIndex")
+    List<SprintBurn> findBySprintId(@Param("sprintId") long sprintId);
+
+    /**
+     * this method adds (or subtracts, if negative) effort to the burn of a day of a sprint, the row of the day is
+     * created if it does not exist
+     *
+     * @param sprintId: the sprint that the effort was burned in
+     * @param dayIndex: the day of the sprint, 0 is the day the sprint started
+     * @param effort:   the effort that will be added to the day
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO sprint_burn (sprint_id, day_index, burned_effort) " +
+            "VALUES (:sprintId, :dayIndex, :effort) " +
+            "ON DUPLICATE KEY UPDATE burned_effort=burned_effort + :effort", nativeQuery = true)
+    void addBurnedEffort(@Param("sprintId") long sprintId,
+                         @Param("dayIndex") int dayIndex,
+                         @Param("effort") int effort);
+
+    /**
+     * this method removes all the burns of a sprint, used right before the burns are rebuilt
+     *
+     * @param sprintId: the sprint that the user requested to remove the burns of
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM SprintBurn burn WHERE burn.sprintBurnId.sprintId=:sprintId")
+    void deleteBySprintId(@Param("sprintId") long sprintId);
+
+    /**
+     * this method removes all the burns of the sprints of a project, used right before the project is deleted
+     *
+     * @param projectId: the project that is going to be deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SprintBurn burn WHERE burn.sprintBurnId.sprintId IN " +
+            "(SELECT sprint.id FROM Sprint sprint WHERE sprint.project.id=:projectId)")
+    void deleteBurnsOfProject(@Param("projectId") long projectId);
+}
@@ -0,0 +1,33 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.entity.SprintHistorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+/**
+ * Repository that manages the stored histories of the finished sprints
+ */
+public interface SprintHistorySnapshotRepository extends JpaRepository<SprintHistorySnapshot, Long> {
+
+    /**
+     * this method stores the history of a sprint, if it is not stored already, the insert is sent right away (unlike
+     * save, which would only send it when the transaction commits), so two users that store the history of the same
+     * sprint at the same time do not fail
+     *
+     * @param sprintId: the sprint that the history belongs to
+     * @param document: the history of the sprint in JSON
+     * @param frozenAt: when the history was stored
+     * @return : returns 1 if the history was stored, 0 if it was already stored
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO sprint_history (sprint_id, document, frozen_at) " +
+            "VALUES (:sprintId, :document, :frozenAt)", nativeQuery = true)
+    int insertIfMissing(@Param("sprintId") long sprintId, @Param("document") String document,
+                        @Param("frozenAt") Date frozenAt);
+}
@@ -1,11 +1,15 @@
 package gr.university.thesis.repository;
 
+import gr.university.thesis.dto.SprintReference;
 import gr.university.thesis.entity.Project;
 import gr.university.thesis.entity.Sprint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,4 +49,92 @@ public interface SprintRepository extends JpaRepository<Sprint, Long> {
     @Query("SELECT sprint FROM Sprint sprint WHERE sprint.project.id=:projectId AND sprint.id=:sprintId")
     Optional<Sprint> findDistinctSprintByProjectId(@Param("projectId") long projectId, @Param("sprintId") long sprintId);
 
-}
\ No newline at end of file
+    /**
+     * @param projectId: the id of the project that the sprints belong to
+     * @return : returns when the first sprint of the project started, null if no sprint has started yet
+     */
+    @Query("SELECT MIN(sprint.start_date) FROM Sprint sprint WHERE sprint.project.id=:projectId")
+    Date findFirstStartDateByProjectId(@Param("projectId") long projectId);
+
+    /**
+     * this method starts a sprint only if it is still ready, with one statement, so that when two requests try to
+     * start the same sprint at the same time only one of them succeeds, the persistence context is cleared after, so
+     * that no loaded sprint keeps its old status (its version is increased as well)
+     *
+     * @param sprintId:  the sprint that the user wants to start
+     * @param active:    the repository id of the active status
+     * @param ready:     the repository id of the ready status
+     * @param startDate: when the sprint started
+     * @param endDate:   when the sprint is planned to finish
+     * @param goal:      the goal of the sprint
+     * @param duration:  the duration of the sprint in weeks
+     * @return : returns 1 if the sprint was started, 0 if it was not ready
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Sprint sprint SET sprint.status=:active, sprint.start_date=:startDate, sprint.end_date=:endDate, " +
+            "sprint.goal=:goal, sprint.duration=:duration, sprint.version=sprint.version+1 " +
+            "WHERE sprint.id=:sprintId AND sprint.status=:ready")
+    int startSprintIfReady(@Param("sprintId") long sprintId,
+                           @Param("active") byte active,
+                           @Param("ready") byte ready,
+                           @Param("startDate") Date startDate,
+                           @Param("endDate") Date endDate,
+                           @Param("goal") String goal,
+                           @Param("duration") long duration);
+
+    /**
+     * this method finishes a sprint only if it is still active, with one statement, so that when two requests try to
+     * finish the same sprint at the same time only one of them succeeds, the persistence context is cleared after, so
+     * that no loaded sprint keeps its old status (its version is increased as well)
+     *
+     * @param sprintId: the sprint that the user wants to finish
+     * @param finished: the repository id of the finished status
+     * @param active:   the repository id of the active status
+     * @param endDate:  when the sprint finished
+     * @return : returns 1 if the sprint was finished, 0 if it was not active
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Sprint sprint SET sprint.status=:finished, sprint.end_date=:endDate, " +
+            "sprint.version=sprint.version+1 WHERE sprint.id=:sprintId AND sprint.status=:active")
+    int finishSprintIfActive(@Param("sprintId") long sprintId,
+                             @Param("finished") byte finished,
+                             @Param("active") byte active,
+                             @Param("endDate") Date endDate);
+
+    /**
+     * this method returns the sprints with a certain status that ended before a date, mainly used to find the active
+     * sprints that have expired, the index on the status and end date of the sprints is used
+     *
+     * @param status: the status of the sprints, read 'status' attribute in Sprint class for more info
+     * @param date:   the sprints that ended before (or at) this date are returned
+     * @return : returns the ids of the sprints found and of their projects, the sprints that ended first come first
+     */
+    @Query("SELECT new gr.university.thesis.dto.SprintReference(sprint.id, sprint.project.id) FROM Sprint sprint " +
+            "WHERE sprint.status=:status AND sprint.end_date<=:date ORDER BY sprint.end_date")
+    List<SprintReference> findReferencesByStatusAndEndDateBefore(@Param("status") byte status,
+                                                                 @Param("date") Date date);
+
+    /**
+     * this method stores the totals of a sprint, only if they have not been stored before, so that they never change
+     * once the sprint has finished
+     *
+     * @param sprintId:    the sprint that the totals belong to
+     * @param totalEffort: the effort of all the tasks/bugs of the sprint
+     * @param velocity:    the effort of the tasks/bugs that were done
+     * @param taskCount:   the number of tasks/bugs of the sprint
+     * @param doneCount:   the number of tasks/bugs that were done
+     * @return : returns 1 if the totals were stored, 0 if the sprint already had them
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Sprint sprint SET sprint.summary.totalEffort=:totalEffort, sprint.summary.velocity=:velocity, " +
+            "sprint.summary.taskCount=:taskCount, sprint.summary.doneCount=:doneCount " +
+            "WHERE sprint.id=:sprintId AND sprint.summary.taskCount IS NULL")
+    int storeSummaryIfMissing(@Param("sprintId") long sprintId,
+                              @Param("totalEffort") Long totalEffort,
+                              @Param("velocity") Long velocity,
+                              @Param("taskCount") Long taskCount,
+                              @Param("doneCount") Long doneCount);
+}
@@ -0,0 +1,72 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.dto.TransitionRecord;
+import gr.university.thesis.entity.TaskBoardTransition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+/**
+ * Repository that manages everything that has to do with the moves of the items on the task boards of the sprints
+ */
+public interface TaskBoardTransitionRepository extends JpaRepository<TaskBoardTransition, Long> {
+
+    /**
+     * this method removes all the moves of the sprints of a project, used right before the project is deleted
+     *
+     * @param projectId: the project that is going to be deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TaskBoardTransition transition WHERE transition.sprintId IN " +
+            "(SELECT sprint.id FROM Sprint sprint WHERE sprint.project.id=:projectId)")
+    void deleteTransitionsOfProject(@Param("projectId") long projectId);
+
+    /**
+     * this method streams the moves of the tasks/bugs on the task board of a sprint in order of time, by reading the
+     * (sprint_id, moved_at) index, the stream must be closed and consumed inside a transaction
+     *
+     * @param sprintId:  the sprint that the user requested the moves of
+     * @param itemType1: type of the item1, for example task
+     * @param itemType2: type of the item2, for example bug
+     * @return : returns a stream with the moves and the effort of the moved items
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE,
+            value = ItemRepository.STREAMING_FETCH_SIZE))
+    @Query("SELECT new gr.university.thesis.dto.TransitionRecord(transition.itemId, transition.toStatus, " +
+            "transition.movedAt, item.effort) " +
+            "FROM TaskBoardTransition transition, Item item " +
+            "WHERE item.id=transition.itemId AND transition.sprintId=:sprintId " +
+            "AND (item.type=:itemType1 OR item.type=:itemType2) " +
+            "ORDER BY transition.movedAt, transition.id")
+    Stream<TransitionRecord> streamTransitionsOfSprint(@Param("sprintId") long sprintId,
+                                                       @Param("itemType1") int itemType1,
+                                                       @Param("itemType2") int itemType2);
+
+    /**
+     * this method streams the moves of the tasks/bugs on the task boards of all the sprints of a project in order of
+     * time, the stream must be closed and consumed inside a transaction
+     *
+     * @param projectId: the project that the user requested the moves of
+     * @param itemType1: type of the item1, for example task
+     * @param itemType2: type of the item2, for example bug
+     * @return : returns a stream with the moves and the effort of the moved items
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE,
+            value = ItemRepository.STREAMING_FETCH_SIZE))
+    @Query("SELECT new gr.university.thesis.dto.TransitionRecord(transition.itemId, transition.toStatus, " +
+            "transition.movedAt, item.effort) " +
+            "FROM TaskBoardTransition transition, Item item " +
+            "WHERE item.id=transition.itemId AND item.project.id=:projectId " +
+            "AND (item.type=:itemType1 OR item.type=:itemType2) " +
+            "ORDER BY transition.movedAt, transition.id")
+    Stream<TransitionRecord> streamTransitionsOfProject(@Param("projectId") long projectId,
+                                                        @Param("itemType1") int itemType1,
+                                                        @Param("itemType2") int itemType2);
+}
@@ -1,11 +1,19 @@
 package gr.university.thesis.repository;
 
+import gr.university.thesis.dto.ProjectMember;
+import gr.university.thesis.dto.UserRoleName;
+import gr.university.thesis.dto.UserRow;
 import gr.university.thesis.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -29,4 +37,194 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT user FROM User user JOIN user.roles role WHERE role.role=:roleName")
     Set<User> findByUserRole(@Param("roleName") String roleName);
+
+    /**
+     * the select clause of the rows of the user panel, check the UserRow class for more info
+     */
+    String USER_ROW_QUERY = "SELECT new gr.university.thesis.dto.UserRow(user.id, user.email, user.firstName, " +
+            "user.lastName) FROM User user ";
+
+    /**
+     * the users with a certain role, the role is joined the same way as in findByUserRole
+     */
+    String USER_ROW_WITH_ROLE_QUERY = USER_ROW_QUERY + "JOIN user.roles role WHERE role.role=:roleName AND ";
+
+    /**
+     * this method finds one page of users for the user panel, the users are ordered by id and the page starts after
+     * the last user of the previous page, so the primary key is read from that point on, however deep the page is
+     * (keyset pagination)
+     *
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_QUERY + "WHERE user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * this method finds one page of the users whose email starts with what the admin typed, the users are found
+     * through the index of the email and then ordered by id, so only the users that match are read. The users whose
+     * first or last name match are found by the next two methods, and the pages are merged by id
+     *
+     * @param prefix:   what the admin typed, followed by '%'
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_QUERY + "WHERE user.email LIKE :prefix AND user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByEmailAfter(@Param("prefix") String prefix,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    /**
+     * same as findUserRowsByEmailAfter, for the first name of the users
+     *
+     * @param prefix:   what the admin typed, followed by '%'
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_QUERY + "WHERE user.firstName LIKE :prefix AND user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByFirstNameAfter(@Param("prefix") String prefix,
+                                               @Param("afterId") long afterId,
+                                               Pageable pageable);
+
+    /**
+     * same as findUserRowsByEmailAfter, for the last name of the users
+     *
+     * @param prefix:   what the admin typed, followed by '%'
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_QUERY + "WHERE user.lastName LIKE :prefix AND user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByLastNameAfter(@Param("prefix") String prefix,
+                                              @Param("afterId") long afterId,
+                                              Pageable pageable);
+
+    /**
+     * same as findUserRowsAfter, but only for the users with a certain role
+     *
+     * @param roleName: role of the required users, for example DEVELOPER
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_WITH_ROLE_QUERY + "user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByRoleAfter(@Param("roleName") String roleName,
+                                          @Param("afterId") long afterId,
+                                          Pageable pageable);
+
+    /**
+     * same as findUserRowsByEmailAfter, but only for the users with a certain role
+     *
+     * @param roleName: role of the required users, for example DEVELOPER
+     * @param prefix:   what the admin typed, followed by '%'
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_WITH_ROLE_QUERY + "user.email LIKE :prefix AND user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByRoleAndEmailAfter(@Param("roleName") String roleName,
+                                                  @Param("prefix") String prefix,
+                                                  @Param("afterId") long afterId,
+                                                  Pageable pageable);
+
+    /**
+     * same as findUserRowsByFirstNameAfter, but only for the users with a certain role
+     *
+     * @param roleName: role of the required users, for example DEVELOPER
+     * @param prefix:   what the admin typed, followed by '%'
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_WITH_ROLE_QUERY + "user.firstName LIKE :prefix AND user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByRoleAndFirstNameAfter(@Param("roleName") String roleName,
+                                                      @Param("prefix") String prefix,
+                                                      @Param("afterId") long afterId,
+                                                      Pageable pageable);
+
+    /**
+     * same as findUserRowsByLastNameAfter, but only for the users with a certain role
+     *
+     * @param roleName: role of the required users, for example DEVELOPER
+     * @param prefix:   what the admin typed, followed by '%'
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageable: how many users are returned at most
+     * @return : returns the users of the page
+     */
+    @Query(USER_ROW_WITH_ROLE_QUERY + "user.lastName LIKE :prefix AND user.id>:afterId ORDER BY user.id")
+    List<UserRow> findUserRowsByRoleAndLastNameAfter(@Param("roleName") String roleName,
+                                                     @Param("prefix") String prefix,
+                                                     @Param("afterId") long afterId,
+                                                     Pageable pageable);
+
+    /**
+     * this method finds the names of the roles of a group of users, used to add the roles to a page of the user panel
+     * with one query
+     *
+     * @param userIds: the users whose roles are requested
+     * @return : returns a pair of user id and role name for every role of every user
+     */
+    @Query("SELECT new gr.university.thesis.dto.UserRoleName(user.id, role.role) " +
+            "FROM User user JOIN user.roles role WHERE user.id IN :userIds")
+    List<UserRoleName> findRoleNamesOfUsers(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * this method finds the members of a project (user_project), only the attributes shown in the directory of the
+     * project are selected
+     *
+     * @param projectId: the project that the user requested the members of
+     * @return : returns the members of the project, ordered by name
+     */
+    @Query("SELECT new gr.university.thesis.dto.ProjectMember(user.id, user.firstName, user.lastName, user.email) " +
+            "FROM User user JOIN user.belongingProjects project WHERE project.id=:projectId " +
+            "ORDER BY user.firstName, user.lastName")
+    List<ProjectMember> findMembersOfProject(@Param("projectId") long projectId);
+
+    /**
+     * this method searches all the users whose first name, last name or email starts with what the user typed
+     *
+     * @param prefix:   what the user typed, followed by '%' (any '%' or '_' that the user typed must be escaped)
+     * @param pageable: how many users are returned at most
+     * @return : returns the users found, ordered by name
+     */
+    @Query("SELECT new gr.university.thesis.dto.ProjectMember(user.id, user.firstName, user.lastName, user.email) " +
+            "FROM User user WHERE user.firstName LIKE :prefix OR user.lastName LIKE :prefix " +
+            "OR user.email LIKE :prefix ORDER BY user.firstName, user.lastName")
+    List<ProjectMember> searchByPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * this method makes a user a member of a project, if they are not already
+     *
+     * @param projectId: the project that the user becomes a member of
+     * @param userId:    the user that becomes a member
+     * @return : returns 1 if the user became a member, 0 if they already were
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO user_project (user_id, project_id) VALUES (:userId, :projectId)",
+            nativeQuery = true)
+    int addProjectMember(@Param("projectId") long projectId, @Param("userId") long userId);
+
+    /**
+     * this method removes all the members of a project, used right before the project is deleted
+     *
+     * @param projectId: the project that is going to be deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_project WHERE project_id=:projectId", nativeQuery = true)
+    void deleteMembersOfProject(@Param("projectId") long projectId);
+
+    /**
+     * this method removes a user from all the projects they are a member of, used right before the user is deleted
+     *
+     * @param userId: the user that is going to be deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_project WHERE user_id=:userId", nativeQuery = true)
+    void deleteMembershipsOfUser(@Param("userId") long userId);
 }
@@ -24,6 +24,7 @@ public class InitiationService {
     static final String ADMIN_PASSWORD = "321";
     static final String ADMIN_FIRST_NAME = "Ioannis";
     static final String ADMIN_SECOND_NAME = "McDaniels";
+    static final String TEST_PROJECT_TITLE = "Test Project";
     UserRepository userRepository;
     RoleRepository roleRepository;
     ProjectService projectService;
@@ -64,18 +65,26 @@ public class InitiationService {
         if (phase == 1) {
             boolean initiate = createRolesAndUsers();
             if (initiate) {
-                createProject();
-                createProjectBacklogItems();
-                createSprintBacklogItems();
+                //the ids are generated in blocks, so the data created is looked up instead of assuming its ids
+                User owner = userRepository.findFirstByEmail(ADMIN_EMAIL).get();
+                Project project = createProject(owner);
+                createProjectBacklogItems(project, owner);
+                createSprintBacklogItems(project, owner, sprintService.findActiveSprintInProject(project).get());
                 return true;
             }
             return false;
         } else if (phase == 2) {
-            sprintService.startSprint(8, "Make the Customer happy");
-            moveItemsRandomlyOnActiveTaskboard();
-            moveActiveSprint7DaysBack();
-            setRandomDatesForTheItemsInTheActiveSprint();
-            createPreviousSprints(5);
+            Optional<Project> projectOptional = projectService.findProjectByTitle(TEST_PROJECT_TITLE);
+            if (!projectOptional.isPresent()) {
+                return false;
+            }
+            Project project = projectOptional.get();
+            Sprint sprint = sprintService.findActiveSprintInProject(project).get();
+            sprintService.startSprint(sprint.getId(), "Make the Customer happy");
+            moveItemsRandomlyOnActiveTaskboard(sprint);
+            moveActiveSprint7DaysBack(project);
+            setRandomDatesForTheItemsInTheActiveSprint(sprint);
+            createPreviousSprints(5, project);
             return false;
         }
         return false;
@@ -83,9 +92,11 @@ public class InitiationService {
 
     /**
      * this method moves the active sprint's start date 7 days back
+     *
+     * @param project: the test project
      */
-    private void moveActiveSprint7DaysBack() {
-        Optional<Sprint> sprintOptional = sprintService.findActiveSprintInProject(new Project(7));
+    private void moveActiveSprint7DaysBack(Project project) {
+        Optional<Sprint> sprintOptional = sprintService.findActiveSprintInProject(project);
         Sprint sprint = sprintOptional.get();
         sprint.setStart_date(Time.addOrSubtractDaysFromDate(sprint.getStart_date(), -7));
         sprint.setEnd_date(Time.addOrSubtractDaysFromDate(new Date(), 7));
@@ -94,9 +105,12 @@ public class InitiationService {
 
     /**
      * this method creates a test project in the application for the user to see and interact with
+     *
+     * @param owner: the owner of the test project
+     * @return : returns the test project that was created
      */
-    private void createProject() throws ProjectHasEmptyTitleException, ProjectAlreadyExistsException {
-        String title = "Test Project";
+    private Project createProject(User owner) throws ProjectHasEmptyTitleException, ProjectAlreadyExistsException {
+        String title = TEST_PROJECT_TITLE;
         String description = "This is just a test project. With this, " +
                 "the user can get accustomed to the application and learn how a Scrum Project " +
                 "would look like during its development." +
@@ -104,16 +118,19 @@ public class InitiationService {
         String developersWorkingStr = "7";
         String teamVelocityStr = "30";
         String sprintDurationStr = "2";
-        User owner = new User(6);
         projectService.createProject(title, description, developersWorkingStr, teamVelocityStr, sprintDurationStr, owner);
+        return projectService.findProjectByTitle(title).get();
     }
 
     /**
      * this method creates random epics that contain random stories and places them in the project backlog
+     *
+     * @param project: the test project
+     * @param owner:   the owner of the items
+     * @return : returns the epics that were created
      */
-    private void createProjectBacklogItems() throws ItemAlreadyExistsException, ItemHasEmptyTitleException {
-        Project project = new Project(7);
-        User owner = new User(6);
+    private List<Item> createProjectBacklogItems(Project project, User owner) throws ItemAlreadyExistsException, ItemHasEmptyTitleException {
+        List<Item> epics = new ArrayList<>();
         User assignee = new User(0);
         Random random = new Random();
         Item emptyParent = new Item(0);
@@ -124,30 +141,34 @@ public class InitiationService {
             String title = "Epic " + i;
             int estimatedEffort = random.nextInt(10 + 1);
             int priority = random.nextInt((4 - 1) + 1) + 1;
-            itemService.createItem(title, epicDescription, epicAcceptanceCriteria, ItemType.EPIC,
+            epics.add(itemService.createItem(title, epicDescription, epicAcceptanceCriteria, ItemType.EPIC,
                     ItemPriority.findItemPriorityByRepositoryId(priority), "0",
-                    String.valueOf(estimatedEffort), project, assignee, owner, emptyParent);
+                    String.valueOf(estimatedEffort), project, assignee, owner, emptyParent));
         }
         String storyDescription = "This Story is about...";
         String storyAcceptanceCriteria = "This Story is considered done when...";
         for (int i = 6; i <= 18; i++) {
             String title = "Story " + i;
-            int randomParentId = random.nextInt((13 - 9) + 1) + 9;
+            Item randomParent = epics.get(random.nextInt(epics.size()));
             int estimatedEffort = random.nextInt(10 + 1);
             int priority = random.nextInt((4 - 1) + 1) + 1;
             itemService.createItem(title, storyDescription, storyAcceptanceCriteria, ItemType.STORY,
                     ItemPriority.findItemPriorityByRepositoryId(priority), "0",
-                    String.valueOf(estimatedEffort), project, assignee, owner, new Item(randomParentId));
+                    String.valueOf(estimatedEffort), project, assignee, owner, randomParent);
         }
+        return epics;
     }
 
     /**
      * this method creates a set of stories that contains a random number of tasks/bugs and places them in the
      * sprint backlog
+     *
+     * @param project: the test project
+     * @param owner:   the owner of the items
+     * @param sprint:  the ready sprint of the test project
      */
-    private void createSprintBacklogItems() throws ItemAlreadyExistsException, ItemHasEmptyTitleException {
-        Project project = new Project(7);
-        User owner = new User(6);
+    private void createSprintBacklogItems(Project project, User owner, Sprint sprint) throws ItemAlreadyExistsException, ItemHasEmptyTitleException {
+        List<Item> stories = new ArrayList<>();
         User assignee = new User(0);
         Random random = new Random();
         Item emptyParent = new Item(0);
@@ -159,7 +180,8 @@ public class InitiationService {
             Item story = itemService.createItem(title, storyDescription, storyAcceptanceCriteria, ItemType.STORY,
                     ItemPriority.HIGH, "0",
                     String.valueOf(estimatedEffort), project, assignee, owner, emptyParent);
-            itemSprintHistoryService.moveItemToSprint(story, new Sprint(8), null);
+            itemSprintHistoryService.moveItemToSprint(story, sprint, null);
+            stories.add(story);
         }
         for (int j = 23; j <= 32; j++) {
             int randomType = random.nextInt((4 - 3) + 1) + 3;
@@ -169,7 +191,7 @@ public class InitiationService {
             //we don't want tasks/bugs with 'won't have' priority
             int priority = random.nextInt((4 - 2) + 1) + 2;
             int effort = random.nextInt((10 - 1) + 1) + 1;
-            int randomParentId = random.nextInt((30 - 27) + 1) + 27;
+            Item randomParent = stories.get(random.nextInt(stories.size()));
             if (randomType == ItemType.TASK.getRepositoryId()) {
                 childTitle = "Task " + j;
                 childDescription = "This Task is about...";
@@ -183,22 +205,24 @@ public class InitiationService {
                 childAcceptanceCriteria = "This Bug is considered done when...";
             }
             //not sure why use the 'onTheGo' method but it works
-            Item child = itemService.createItemOnTheGo(new Sprint(8), childTitle,
+            Item child = itemService.createItemOnTheGo(sprint, childTitle,
                     childDescription, childAcceptanceCriteria,
                     ItemType.findItemTypeByRepositoryId(randomType),
                     ItemPriority.findItemPriorityByRepositoryId(priority), String.valueOf(effort), project,
-                    assignee, owner, new Item(randomParentId));
-            itemSprintHistoryService.createAssociationAndSaveToRepository(child, new Sprint(8));
+                    assignee, owner, randomParent);
+            itemSprintHistoryService.createAssociationAndSaveToRepository(child, sprint);
         }
     }
 
     /**
      * this method takes all the tasks and bugs of the active sprint, and sets a random date from today to 7 days back
      * to each one of them and saves them in the repository
+     *
+     * @param sprint: the active sprint of the test project
      */
-    private void setRandomDatesForTheItemsInTheActiveSprint() {
+    private void setRandomDatesForTheItemsInTheActiveSprint(Sprint sprint) {
         Random random = new Random();
-        Optional<List<ItemSprintHistory>> allAssociationsBySprintAndTypesOptional = itemSprintHistoryService.findAllAssociationsBySprintAndTypes(new Sprint(8), ItemType.TASK, ItemType.BUG);
+        Optional<List<ItemSprintHistory>> allAssociationsBySprintAndTypesOptional = itemSprintHistoryService.findAllAssociationsBySprintAndTypes(sprint, ItemType.TASK, ItemType.BUG);
         List<ItemSprintHistory> allAssociationsBySprintAndTypes = allAssociationsBySprintAndTypesOptional.get();
         for (ItemSprintHistory ish : allAssociationsBySprintAndTypes) {
             //max is 0 days from today, min is 7 days earlier than today
@@ -211,14 +235,19 @@ public class InitiationService {
     /**
      * this method changes the status of the sprint from ready to active and randomly moves the tasks/bugs in the
      * taskboard
+     *
+     * @param sprint: the active sprint of the test project
      */
-    private void moveItemsRandomlyOnActiveTaskboard() throws SprintHasZeroEffortException {
+    private void moveItemsRandomlyOnActiveTaskboard(Sprint sprint) {
         Random random = new Random();
-        for (int j = 31; j <= 40; j++) {
-            Item item = new Item(j);
+        Optional<List<ItemSprintHistory>> associationsOptional =
+                itemSprintHistoryService.findAllAssociationsBySprintAndTypes(sprint, ItemType.TASK, ItemType.BUG);
+        List<Item> items = new ArrayList<>();
+        associationsOptional.ifPresent(associations -> associations.forEach(ish -> items.add(ish.getItem())));
+        for (Item item : items) {
             int numberOfTimesToMove = random.nextInt(3 + 1);
             for (int repeat = 0; repeat <= numberOfTimesToMove; repeat++) {
-                itemSprintHistoryService.changeStatusOfAssociationByOne(new Sprint(8), item, 1);
+                itemSprintHistoryService.changeStatusOfAssociationByOne(sprint, item, 1, null);
             }
         }
     }
@@ -228,26 +257,29 @@ public class InitiationService {
      * the number of sprints generated, is determined by the user
      *
      * @param amountOfSprints: the number of previous sprints the user requested to have
+     * @param project:         the test project
      */
-    private void createPreviousSprints(int amountOfSprints) {
+    private void createPreviousSprints(int amountOfSprints, Project project) {
         //begins from -7 (instead of 0) because active sprint is already active for 1 week
         int startDate = amountOfSprints * (-14);
         startDate -= 7;
         int endDate = startDate + 14;
         Random random = new Random();
+        //so that titles do not collide with any existing item titles (the sprint backlog ends at 32)
+        int titleNumber = 33;
         for (int i = 1; i <= amountOfSprints; i++) {
             Sprint sprint = new Sprint();
             sprint.setStart_date(Time.addOrSubtractDaysFromDate(new Date(), startDate));
             sprint.setEnd_date(Time.addOrSubtractDaysFromDate(new Date(), endDate));
             sprint.setStatus((byte) SprintStatus.FINISHED.getRepositoryId());
-            sprint.setProject(new Project(7));
+            sprint.setProject(project);
             sprint.setDuration(2);
             sprint = sprintService.save(sprint);
             //range: 5-15 tasks
             int numberOfTasks = random.nextInt((15 - 5) + 1) + 5;
-            //so that title does not collide with any existing item titles
-            int min = (int) (sprint.getId() * 2);
+            int min = titleNumber;
             int max = min + numberOfTasks;
+            titleNumber = max + 1;
             int teamVelocity = 0;
             for (int j = min; j <= max; j++) {
                 int randomType = random.nextInt((4 - 3) + 1) + 3;
@@ -272,7 +304,7 @@ public class InitiationService {
                 }
                 Item sprintItem = new Item(childTitle, childDescription,
                         childAcceptanceCriteria, randomType, priority, effort,
-                        0, new Project(7), null, new User(6),
+                        0, project, null, project.getOwner(),
                         null, (byte) ItemStatus.FINISHED.getRepositoryId());
                 sprintItem = itemService.saveToRepository(sprintItem);
                 ItemSprintHistory itemSprintHistory = new ItemSprintHistory();
@@ -290,10 +322,10 @@ public class InitiationService {
             }
             //if it's the final sprint, then set the team velocity of the project to that
             if (i == amountOfSprints) {
-                Optional<Project> projectOptional = projectService.findProjectById(7);
-                Project project = projectOptional.get();
-                project.setTeam_velocity(teamVelocity);
-                projectService.save(project);
+                Optional<Project> projectOptional = projectService.findProjectById(project.getId());
+                Project projectToUpdate = projectOptional.get();
+                projectToUpdate.setTeam_velocity(teamVelocity);
+                projectService.save(projectToUpdate);
             }
             startDate = endDate;
             endDate += 14;
@@ -0,0 +1,423 @@
+package gr.university.thesis.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.university.thesis.dto.ImportReport;
+import gr.university.thesis.dto.ItemImportRow;
+import gr.university.thesis.dto.ItemReference;
+import gr.university.thesis.entity.Item;
+import gr.university.thesis.entity.Project;
+import gr.university.thesis.entity.User;
+import gr.university.thesis.entity.enumeration.ItemPriority;
+import gr.university.thesis.entity.enumeration.ItemStatus;
+import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.event.ProjectModifiedEvent;
+import gr.university.thesis.repository.ItemClosureRepository;
+import gr.university.thesis.repository.ItemRepository;
+import gr.university.thesis.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * service that imports whole backlogs (epics, stories, tasks and bugs) into a project from CSV or JSON files, the
+ * file is read one row at a time and the items are stored in batches, each batch in its own transaction, so that
+ * neither the file nor the created items are ever kept in memory all together
+ */
+@Service
+public class ItemImportService {
+
+    /**
+     * the number of rows stored in each transaction
+     */
+    public static final int BATCH_SIZE = 500;
+
+    ItemRepository itemRepository;
+    ItemClosureRepository itemClosureRepository;
+    ProjectMemberService projectMemberService;
+    ApplicationEventPublisher applicationEventPublisher;
+    ObjectMapper objectMapper;
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param itemRepository:            repository that has access to all the items
+     * @param itemClosureRepository:     repository that has access to the hierarchy (ancestors/descendants) of the items
+     * @param projectMemberService:      service that manages the members of the projects, the user that imports
+     *                                   the items becomes a member
+     * @param applicationEventPublisher: publisher used to notify the rest of the system that a project was modified
+     * @param objectMapper:              the JSON mapper of the application, used to read JSON files
+     * @param transactionManager:        the transaction manager, used to store each batch in its own transaction
+     */
+    @Autowired
+    public ItemImportService(ItemRepository itemRepository, ItemClosureRepository itemClosureRepository,
+                             ProjectMemberService projectMemberService,
+                             ApplicationEventPublisher applicationEventPublisher, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.itemClosureRepository = itemClosureRepository;
+        this.projectMemberService = projectMemberService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * this method imports the items of a file into a project, invalid rows (empty or duplicate titles, unknown
+     * parents etc.) are skipped and reported, without stopping the rest of the import
+     *
+     * @param project:     the project that the items will be added to
+     * @param owner:       the user that imports the items, will be the owner of all of them
+     * @param inputStream: the contents of the file
+     * @param json:        true if the file is a JSON array of items, false if it is a CSV file with a header row
+     * @return : returns the report of the import, how many items were created and which rows failed
+     * @throws IOException : if the file could not be read
+     */
+    public ImportReport importItems(Project project, User owner, InputStream inputStream, boolean json)
+            throws IOException {
+        ImportJob importJob = new ImportJob(project.getId(), owner.getId());
+        if (json) {
+            readJson(inputStream, importJob);
+        } else {
+            readCsv(inputStream, importJob);
+        }
+        importJob.finish();
+        if (importJob.report.getItemsImported() > 0) {
+            projectMemberService.addMember(project.getId(), owner);
+            applicationEventPublisher.publishEvent(new ProjectModifiedEvent(this, project.getId()));
+        }
+        return importJob.report;
+    }
+
+    /**
+     * this method reads a CSV file, the first row must contain the names of the columns (title, description,
+     * acceptanceCriteria, type, priority, effort, estimatedEffort, parent) in any order, only the title column is
+     * required
+     *
+     * @param inputStream: the contents of the file
+     * @param importJob:   the import that the rows are passed to
+     * @throws IOException : if the file could not be read
+     */
+    private void readCsv(InputStream inputStream, ImportJob importJob) throws IOException {
+        try (CsvReader csvReader = new CsvReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            List<String> header = csvReader.readRecord();
+            Map<String, Integer> columns = new HashMap<>();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            if (!columns.containsKey("title")) {
+                importJob.report.rowFailed(0, "The first row of the file must contain the column names, " +
+                        "including 'title'.");
+                return;
+            }
+            List<String> record;
+            int rowNumber = 0;
+            while ((record = csvReader.readRecord()) != null) {
+                rowNumber++;
+                //empty lines, usually at the end of the file
+                if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                    continue;
+                }
+                ItemImportRow row = new ItemImportRow();
+                row.setRowNumber(rowNumber);
+                row.setTitle(value(record, columns, "title"));
+                row.setDescription(value(record, columns, "description"));
+                row.setAcceptanceCriteria(value(record, columns, "acceptancecriteria"));
+                row.setType(value(record, columns, "type"));
+                row.setPriority(value(record, columns, "priority"));
+                row.setEffort(value(record, columns, "effort"));
+                row.setEstimatedEffort(value(record, columns, "estimatedeffort"));
+                row.setParent(value(record, columns, "parent"));
+                importJob.add(row);
+            }
+        }
+    }
+
+    /**
+     * this method returns the value of a column of a CSV record
+     *
+     * @param record:  the values of the record
+     * @param columns: the position of each column, by its name in lower case
+     * @param column:  the name of the column in lower case
+     * @return : returns the value, or null if the file does not have that column or the record is too short
+     */
+    private String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    /**
+     * this method reads a JSON file, which must be an array of objects with the same fields as the columns of the
+     * CSV file, the objects are read one at a time by using the streaming parser of Jackson
+     *
+     * @param inputStream: the contents of the file
+     * @param importJob:   the import that the rows are passed to
+     * @throws IOException : if the file could not be read
+     */
+    private void readJson(InputStream inputStream, ImportJob importJob) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                importJob.report.rowFailed(0, "The file must contain an array of items.");
+                return;
+            }
+            int rowNumber = 0;
+            try {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    rowNumber++;
+                    ItemImportRow row = objectMapper.readValue(parser, ItemImportRow.class);
+                    row.setRowNumber(rowNumber);
+                    importJob.add(row);
+                }
+            } catch (JsonProcessingException e) {
+                //the parser cannot continue after malformed JSON, the rows read so far are still imported
+                importJob.report.rowFailed(0, "The file could not be read after item " + (rowNumber - 1) +
+                        ": " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * the state of one import: the titles of the project (so that uniqueness and parents are checked in memory,
+     * without a query per row), the rows waiting to be stored and the report
+     */
+    private class ImportJob {
+
+        private final long projectId;
+        private final long ownerId;
+        private final ImportReport report = new ImportReport();
+        //items of the project by their title in lower case, since titles are compared case insensitively by the database
+        private final Map<String, ItemReference> itemsByTitle = new HashMap<>();
+        private final List<ItemImportRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        /**
+         * @param projectId: the project that the items will be added to
+         * @param ownerId:   the user that imports the items
+         */
+        ImportJob(long projectId, long ownerId) {
+            this.projectId = projectId;
+            this.ownerId = ownerId;
+            for (ItemReference itemReference : itemRepository.findReferencesByProjectId(projectId)) {
+                itemsByTitle.put(key(itemReference.getTitle()), itemReference);
+            }
+        }
+
+        /**
+         * this method adds a row to the current batch, and stores the batch if it is full
+         *
+         * @param row: the row that was read from the file
+         */
+        void add(ItemImportRow row) {
+            report.rowRead();
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                storeBatch();
+            }
+        }
+
+        /**
+         * this method stores the rows that are left after the whole file was read
+         */
+        void finish() {
+            if (!batch.isEmpty()) {
+                storeBatch();
+            }
+        }
+
+        /**
+         * this method validates and stores the rows of the current batch in one transaction, in case the transaction
+         * fails, all the rows of the batch are reported as failed and their titles are forgotten, so that later rows
+         * cannot use them as parents
+         */
+        private void storeBatch() {
+            List<String> addedTitles = new ArrayList<>();
+            List<String> rowErrors = new ArrayList<>();
+            List<Integer> rowErrorNumbers = new ArrayList<>();
+            try {
+                Integer imported = transactionTemplate.execute(status -> {
+                    Project project = entityManager.getReference(Project.class, projectId);
+                    User owner = entityManager.getReference(User.class, ownerId);
+                    List<Long> itemIds = new ArrayList<>();
+                    for (ItemImportRow row : batch) {
+                        try {
+                            Item item = createItem(row, project, owner);
+                            entityManager.persist(item);
+                            itemIds.add(item.getId());
+                            String title = key(item.getTitle());
+                            itemsByTitle.put(title, new ItemReference(item.getId(), item.getTitle(), item.getType()));
+                            addedTitles.add(title);
+                        } catch (IllegalArgumentException e) {
+                            rowErrorNumbers.add(row.getRowNumber());
+                            rowErrors.add(e.getMessage());
+                        }
+                    }
+                    if (!itemIds.isEmpty()) {
+                        entityManager.flush();
+                        itemClosureRepository.insertSelfLinksOfNewItems(itemIds);
+                        //one level of the hierarchy inside the batch is linked in each call
+                        int linksCreated = itemClosureRepository.insertLinksOfNewItemsToAncestors(itemIds);
+                        while (linksCreated > 0) {
+                            linksCreated = itemClosureRepository.insertLinksOfNewItemsToAncestors(itemIds);
+                        }
+                    }
+                    //the stored items are no longer needed, this keeps the memory used by the import bounded
+                    entityManager.clear();
+                    return itemIds.size();
+                });
+                report.itemsImported(imported == null ? 0 : imported);
+                for (int i = 0; i < rowErrors.size(); i++) {
+                    report.rowFailed(rowErrorNumbers.get(i), rowErrors.get(i));
+                }
+            } catch (RuntimeException e) {
+                for (String title : addedTitles) {
+                    itemsByTitle.remove(title);
+                }
+                entityManager.clear();
+                for (ItemImportRow row : batch) {
+                    report.rowFailed(row.getRowNumber(), "Could not be stored: " + e.getMessage());
+                }
+            }
+            batch.clear();
+        }
+
+        /**
+         * this method validates a row and creates its item, the same rules as the ones of the item form apply
+         *
+         * @param row:     the row that was read from the file
+         * @param project: the project that the item will be added to
+         * @param owner:   the user that imports the items
+         * @return : returns the new item, not stored yet
+         * @throws IllegalArgumentException : if the row is not valid, the message describes why
+         */
+        private Item createItem(ItemImportRow row, Project project, User owner) {
+            String title = trim(row.getTitle());
+            if (title.isEmpty()) {
+                throw new IllegalArgumentException("Item cannot be created without a title.");
+            }
+            if (itemsByTitle.containsKey(key(title))) {
+                throw new IllegalArgumentException("Item with title '" + title + "' already exists.");
+            }
+            ItemType type = parseType(trim(row.getType()));
+            ItemPriority priority = parsePriority(trim(row.getPriority()));
+            Item parent = null;
+            String parentTitle = trim(row.getParent());
+            if (!parentTitle.isEmpty()) {
+                ItemReference parentReference = itemsByTitle.get(key(parentTitle));
+                if (parentReference == null) {
+                    throw new IllegalArgumentException("Parent '" + parentTitle + "' does not exist, parents must " +
+                            "be in the project or earlier in the file.");
+                }
+                if (parentReference.getType() != ItemType.EPIC.getRepositoryId() &&
+                        parentReference.getType() != ItemType.STORY.getRepositoryId()) {
+                    throw new IllegalArgumentException("Parent '" + parentTitle + "' is not an epic or a story.");
+                }
+                parent = entityManager.getReference(Item.class, parentReference.getId());
+            }
+            int effort = Math.min(Math.max(parseNumber(trim(row.getEffort()), "effort"), 0), 10);
+            int estimatedEffort = Math.max(parseNumber(trim(row.getEstimatedEffort()), "estimated effort"), 0);
+            //if its an epic or a story, its effort is calculated from its children
+            if (type == ItemType.EPIC || type == ItemType.STORY) {
+                effort = 0;
+            }
+            String description = trim(row.getDescription());
+            if (description.isEmpty()) {
+                description = "No description";
+            }
+            String acceptanceCriteria = trim(row.getAcceptanceCriteria());
+            if (acceptanceCriteria.isEmpty()) {
+                acceptanceCriteria = "No Acceptance Criteria";
+            }
+            return new Item(title, description, acceptanceCriteria, type.getRepositoryId(),
+                    priority.getRepositoryId(), effort, estimatedEffort, project, null, owner, parent,
+                    (byte) ItemStatus.BACKLOG.getRepositoryId());
+        }
+    }
+
+    /**
+     * this method finds the type of an item by its name, for example 'EPIC' or 'Epic'
+     *
+     * @param value: the type as written in the file
+     * @return : returns the type
+     * @throws IllegalArgumentException : if there is no such type
+     */
+    private ItemType parseType(String value) {
+        for (ItemType itemType : ItemType.values()) {
+            if (itemType != ItemType.NONE &&
+                    (itemType.name().equalsIgnoreCase(value) || itemType.getName().equalsIgnoreCase(value))) {
+                return itemType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown type '" + value + "'.");
+    }
+
+    /**
+     * this method finds the priority of an item by its name, for example 'HIGH', 'High' or 'Must Have'
+     *
+     * @param value: the priority as written in the file
+     * @return : returns the priority
+     * @throws IllegalArgumentException : if there is no such priority
+     */
+    private ItemPriority parsePriority(String value) {
+        for (ItemPriority itemPriority : ItemPriority.values()) {
+            if (itemPriority != ItemPriority.NONE &&
+                    (itemPriority.name().equalsIgnoreCase(value) || itemPriority.getName().equalsIgnoreCase(value)
+                            || itemPriority.getImportance().equalsIgnoreCase(value))) {
+                return itemPriority;
+            }
+        }
+        throw new IllegalArgumentException("Unknown priority '" + value + "'.");
+    }
+
+    /**
+     * @param value: a number as written in the file, empty means 0
+     * @param name:  the name of the value, used in the error message
+     * @return : returns the number
+     * @throws IllegalArgumentException : if the value is not a number
+     */
+    private int parseNumber(String value, String name) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The " + name + " '" + value + "' is not a number.");
+        }
+    }
+
+    /**
+     * @param value: a value as written in the file, possibly missing
+     * @return : returns the value without surrounding spaces, empty if it was missing
+     */
+    private String trim(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    /**
+     * @param title: the title of an item
+     * @return : returns the key of the title in the title map of an import
+     */
+    private String key(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,6 @@
 package gr.university.thesis.service;
 
+import gr.university.thesis.dto.ItemEffort;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.Project;
 import gr.university.thesis.entity.Sprint;
@@ -8,13 +9,26 @@ import gr.university.thesis.entity.enumeration.ItemPriority;
 import gr.university.thesis.entity.enumeration.ItemStatus;
 import gr.university.thesis.entity.enumeration.ItemType;
 import gr.university.thesis.entity.enumeration.SprintStatus;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import gr.university.thesis.event.ProjectModifiedEvent;
 import gr.university.thesis.exceptions.ItemAlreadyExistsException;
+import gr.university.thesis.exceptions.ItemHasBeenModifiedException;
 import gr.university.thesis.exceptions.ItemHasEmptyTitleException;
+import gr.university.thesis.repository.ItemClosureRepository;
 import gr.university.thesis.repository.ItemRepository;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * service that handles everything relating to the items stored in the repository
@@ -23,16 +37,80 @@ import java.util.Optional;
 public class ItemService {
 
     ItemRepository itemRepository;
+    ItemClosureRepository itemClosureRepository;
+    TaskBoardService taskBoardService;
+    ProjectMemberService projectMemberService;
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @PersistenceContext
+    EntityManager entityManager;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param itemRepository: repository that has access to all the items
+     * @param itemRepository:            repository that has access to all the items
+     * @param itemClosureRepository:     repository that has access to the hierarchy (ancestors/descendants) of the items
+     * @param taskBoardService:          service that loads and caches the task boards of the sprints
+     * @param projectMemberService:      service that manages the members of the projects, the owners and assignees
+     *                                   of the items become members
+     * @param applicationEventPublisher: publisher used to notify the rest of the system that a project was modified
      */
     @Autowired
-    public ItemService(ItemRepository itemRepository) {
+    public ItemService(ItemRepository itemRepository, ItemClosureRepository itemClosureRepository,
+                       TaskBoardService taskBoardService, ProjectMemberService projectMemberService,
+                       ApplicationEventPublisher applicationEventPublisher) {
         this.itemRepository = itemRepository;
+        this.itemClosureRepository = itemClosureRepository;
+        this.taskBoardService = taskBoardService;
+        this.projectMemberService = projectMemberService;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * this method notifies the rest of the system that the items of a project have been modified, for example so that
+     * the statistics of the project are updated
+     *
+     * @param project: the project that the modified items belong to
+     */
+    private void publishProjectModified(Project project) {
+        if (project != null && project.getId() != null) {
+            applicationEventPublisher.publishEvent(new ProjectModifiedEvent(this, project.getId()));
+        }
+    }
+
+    /**
+     * this method reloads the loaded items that a statement might have updated, so that they have their new status
+     * and version, the rest of the persistence context (sprints, projects, users and any other item) stays as it is.
+     * The pending changes have been flushed before the statement, so nothing is lost, and the session is used
+     * directly, because a refresh through the shared entity manager needs a transaction, which the callers (with the
+     * session that stays open in the view) do not always have
+     *
+     * @param updated: returns true for the loaded items that the statement might have updated
+     */
+    private void refreshLoadedItems(Predicate<Item> updated) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Item && entry.getValue().getStatus() == Status.MANAGED
+                    && updated.test((Item) entry.getKey())) {
+                session.refresh(entry.getKey());
+            }
+        }
+    }
 
+    /**
+     * @param project: the project that a statement updated the items of
+     * @return : returns true for the items of the project
+     */
+    private Predicate<Item> inProject(Project project) {
+        return item -> item.getProject() != null && Objects.equals(item.getProject().getId(), project.getId());
+    }
+
+    /**
+     * @param project: the project that a statement updated the unfinished items of
+     * @return : returns true for the unfinished items of the project
+     */
+    private Predicate<Item> unfinishedInProject(Project project) {
+        return inProject(project).and(item -> item.getStatus() != ItemStatus.FINISHED.getRepositoryId());
     }
 
     /**
@@ -80,56 +158,21 @@ public class ItemService {
      * @param items: the set of items that Java needs to calculate the combined effort of
      */
     public void calculatedCombinedEffort(Iterable<Item> items) {
+        Map<Long, Item> parents = new HashMap<>();
         for (Item item : items) {
             if (item.getType() == ItemType.EPIC.getRepositoryId() || item.getType() == ItemType.STORY.getRepositoryId()) {
-                int calculatedEffort = 0;
-                for (Item child : item.getChildren()) {
-                    //if it's not a story then it means that the item in the iteration is a story and its children
-                    //will be calculated now
-                    if (child.getType() != ItemType.STORY.getRepositoryId()) {
-                        calculatedEffort += child.getEffort();
-                    }
-                    //if its a story, then the item is an epic and its children will be calculated now
-                    else if (child.getType() == ItemType.STORY.getRepositoryId()) {
-                        for (Item childOfStory : child.getChildren()) {
-                            calculatedEffort += childOfStory.getEffort();
-                        }
-                    }
-                }
-                item.setEffort(calculatedEffort);
+                //an epic/story with no children has no effort
+                item.setEffort(0);
+                parents.put(item.getId(), item);
             }
         }
-    }
-
-    /**
-     * this method calculates the combined effort of all the items (tasks/bugs etc.) for each epic/story that are
-     * and only takes into account the effort of all the unfinished children
-     * epics and stories have no effort on their own, and the effort for each one is the sum of all the tasks/bugs etc.
-     * they contain
-     *
-     * @param items: the set of items that Java needs to calculate the unfinished effort of
-     */
-    public void calculateEffortOfUnfinishedItems(Iterable<Item> items) {
-        for (Item item : items) {
-            if (item.getType() == ItemType.EPIC.getRepositoryId() || item.getType() == ItemType.STORY.getRepositoryId()) {
-                int calculatedEffort = 0;
-                for (Item child : item.getChildren()) {
-                    //if it's not a story then it means that the item in the iteration is a story and its children
-                    //will be calculated now
-                    if (child.getType() != ItemType.STORY.getRepositoryId()) {
-                        if (child.getStatus() != ItemStatus.FINISHED.getRepositoryId())
-                            calculatedEffort += child.getEffort();
-                    }
-                    //if its a story, then the item is an epic and its children will be calculated now
-                    else if (child.getType() == ItemType.STORY.getRepositoryId()) {
-                        for (Item childOfStory : child.getChildren()) {
-                            if (childOfStory.getStatus() != ItemStatus.FINISHED.getRepositoryId())
-                                calculatedEffort += childOfStory.getEffort();
-                        }
-                    }
-                }
-                item.setEffort(calculatedEffort);
-            }
+        if (parents.isEmpty()) {
+            return;
+        }
+        //the effort of all the epics/stories is calculated with one query, no matter how many children they have
+        for (ItemEffort itemEffort : itemClosureRepository.findCombinedEfforts(parents.keySet(),
+                ItemType.EPIC.getRepositoryId(), ItemType.STORY.getRepositoryId())) {
+            parents.get(itemEffort.getItemId()).setEffort(itemEffort.getEffort().intValue());
         }
     }
 
@@ -201,7 +244,32 @@ public class ItemService {
             acceptanceCriteria = acceptanceCriteria.trim();
         }
         Item item = new Item(title, description, acceptanceCriteria, type.getRepositoryId(), priority.getRepositoryId(), effort, estimatedEffort, project, assignee, owner, parent, (byte) ItemStatus.BACKLOG.getRepositoryId());
-        return itemRepository.save(item);
+        item = itemRepository.save(item);
+        itemClosureRepository.insertLinksOfNewItem(item.getId(), parent == null ? 0 : parent.getId());
+        projectMemberService.addMember(project.getId(), owner);
+        projectMemberService.addMember(project.getId(), assignee);
+        publishProjectModified(project);
+        return item;
+    }
+
+    /**
+     * this method checks that an item has not been updated since the user opened it, so that the changes of the user
+     * do not silently overwrite the changes of someone else
+     *
+     * @param itemId:          id of the item, needed to find it on the repository
+     * @param expectedVersion: the version of the item when the user opened it, null if it is not known (nothing is
+     *                         checked then)
+     * @throws ItemHasBeenModifiedException : the item has been updated by someone else in the meantime
+     */
+    public void checkItemVersion(long itemId, Integer expectedVersion) throws ItemHasBeenModifiedException {
+        if (expectedVersion == null) {
+            return;
+        }
+        Optional<Item> itemOptional = itemRepository.findById(itemId);
+        if (itemOptional.isPresent() && itemOptional.get().getVersion() != expectedVersion) {
+            throw new ItemHasBeenModifiedException("Item '" + itemOptional.get().getTitle() +
+                    "' has been modified by someone else in the meantime.");
+        }
     }
 
     /**
@@ -219,10 +287,11 @@ public class ItemService {
      * @param parent              :      the parent (epic/story) of this item
      * @throws ItemAlreadyExistsException : user has tried to set the item's title to one that already exists
      * @throws ItemHasEmptyTitleException : user has tried to set the item's title to blank
+     * @throws ItemHasBeenModifiedException : the item was updated by someone else while it was being updated
      */
     public void updateItem(long itemId, String title, String description, String acceptanceCriteria, String type,
                            String priority, String effortStr, String estimatedEffortStr, User assignee, Item parent)
-            throws ItemAlreadyExistsException, ItemHasEmptyTitleException {
+            throws ItemAlreadyExistsException, ItemHasEmptyTitleException, ItemHasBeenModifiedException {
         if (title.isEmpty()) {
             throw new ItemHasEmptyTitleException("Item cannot be created without a title.");
         }
@@ -279,7 +348,7 @@ public class ItemService {
             item.setAssignee(assignee);
             // if item was updated to no parent
             if (parent.getId() == 0) {
-                item.setParent(null);
+                changeParent(item, null);
             }
             //all other cases
             else {
@@ -287,10 +356,17 @@ public class ItemService {
                 //updating status to match that of the parent's
                 if (parentOptional.isPresent()) {
                     setStatusToItemAndChildren(item, ItemStatus.findItemStatusByRepositoryId(parentOptional.get().getStatus()));
-                    item.setParent(parentOptional.get());
+                    changeParent(item, parentOptional.get());
                 }
             }
-            itemRepository.save(item);
+            try {
+                itemRepository.save(item);
+            } catch (OptimisticLockingFailureException e) {
+                throw new ItemHasBeenModifiedException("Item '" + title +
+                        "' has been modified by someone else in the meantime.");
+            }
+            projectMemberService.addMember(item.getProject().getId(), assignee);
+            publishProjectModified(item.getProject());
         }
     }
 
@@ -301,7 +377,14 @@ public class ItemService {
      *                and to be deleted
      */
     public void deleteItem(long itemId) {
-        itemRepository.deleteById(itemId);
+        Optional<Item> itemOptional = itemRepository.findById(itemId);
+        if (itemOptional.isPresent()) {
+            Item item = itemOptional.get();
+            //the children of the item are also deleted (cascade), so the links of the whole subtree are removed
+            itemClosureRepository.deleteLinksOfSubtree(itemId);
+            itemRepository.delete(item);
+            publishProjectModified(item.getProject());
+        }
     }
 
     /**
@@ -332,6 +415,9 @@ public class ItemService {
             }
             item.setAssignee(assignee);
             itemRepository.save(item);
+            projectMemberService.addMember(item.getProject().getId(), assignee);
+            //the assignee does not affect the statistics of the project, only the cards of its task boards
+            taskBoardService.evictTaskBoardsOfProject(item.getProject().getId());
         }
     }
 
@@ -343,7 +429,14 @@ public class ItemService {
      * @return: returns the item with the id that it got from the repository
      */
     public Item saveToRepository(Item item) {
-        return itemRepository.save(item);
+        boolean isNew = item.getId() == null;
+        item = itemRepository.save(item);
+        if (isNew) {
+            itemClosureRepository.insertLinksOfNewItem(item.getId(),
+                    item.getParent() == null ? 0 : item.getParent().getId());
+        }
+        publishProjectModified(item.getProject());
+        return item;
     }
 
     /**
@@ -355,50 +448,191 @@ public class ItemService {
      */
     public Item changeItemStatus(Item item, ItemStatus itemStatus) {
         item.setStatus((byte) itemStatus.getRepositoryId());
-        return itemRepository.save(item);
+        item = itemRepository.save(item);
+        publishProjectModified(item.getProject());
+        return item;
     }
 
     /**
-     * this method updates the status of an item and all its children (but the finished ones) to a new one,
+     * this method updates the status of an item and all its descendants (but the finished ones) to a new one,
      * for status information please check the Item Class
+     * the descendants are updated with one statement no matter how many they are, and the other unfinished items of
+     * the project that are loaded are refreshed afterwards, the item itself needs to be saved (its new status is set
+     * in memory)
      *
      * @param item:   the item (perhaps parent) that the user requested to update the status of
      * @param status: the new status that the user wants this item to have
      */
     public void setStatusToItemAndChildren(Item item, ItemStatus status) {
         if (item.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-            //if it's a story or an epic, then set the same status for the children
+            item.setStatus((byte) status.getRepositoryId());
+            //if it's a story or an epic, then set the same status for all its descendants
             if ((item.getType() == ItemType.EPIC.getRepositoryId() || item.getType() == ItemType.STORY.getRepositoryId())) {
-                item.setStatus((byte) status.getRepositoryId());
-                if (item.getChildren() != null) {
-                    for (Item child : item.getChildren()) {
-                        if (child.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                            child.setStatus((byte) status.getRepositoryId());
-                        }
-                        //if the parent is an epic and the child a story, then set the same status for the children of the story
-                        for (Item childOfChild : child.getChildren()) {
-                            if (childOfChild.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                                childOfChild.setStatus((byte) status.getRepositoryId());
-                            }
-                        }
-                    }
-                }
-            } else {
-                item.setStatus((byte) status.getRepositoryId());
+                itemRepository.updateStatusOfUnfinishedDescendants(item.getId(), (byte) status.getRepositoryId(),
+                        (byte) ItemStatus.FINISHED.getRepositoryId());
+                refreshLoadedItems(unfinishedInProject(item.getProject()).and(loaded -> loaded != item));
+            }
+        }
+    }
+
+    /**
+     * this method updates the status of all the items of a sprint and their descendants (but the finished ones) to a
+     * new one with one statement, the unfinished items of the project that are loaded are refreshed afterwards
+     *
+     * @param sprint: the sprint that the items belong to
+     * @param status: the new status that the user wants the items to have
+     */
+    public void setStatusToItemsInSprint(Sprint sprint, ItemStatus status) {
+        itemRepository.updateStatusOfUnfinishedItemsInSprint(sprint.getId(), (byte) status.getRepositoryId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId());
+        refreshLoadedItems(unfinishedInProject(sprint.getProject()));
+    }
+
+    /**
+     * this method updates the status of a set of items and all their descendants (but the finished ones) to a new one
+     * with one statement, the ones that are loaded are refreshed afterwards
+     *
+     * @param itemIds: the ids of the items, together with the ids of all their unfinished descendants
+     * @param status:  the new status that the user wants the items to have
+     * @param project: the project that the items belong to
+     */
+    public void setStatusToItems(Collection<Long> itemIds, ItemStatus status, Project project) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        itemRepository.updateStatusOfItems(itemIds, (byte) status.getRepositoryId());
+        refreshLoadedItems(item -> itemIds.contains(item.getId()));
+        publishProjectModified(project);
+    }
+
+    /**
+     * this method returns the ids of a set of items and all their unfinished descendants, with one query
+     *
+     * @param itemIds: the items that the user requested the subtrees of
+     * @return : returns the ids of the items and their unfinished descendants, each id once
+     */
+    public List<Long> findUnfinishedSubtreeIds(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return itemClosureRepository.findSubtreeIdsWithoutStatus(itemIds, (byte) ItemStatus.FINISHED.getRepositoryId());
+    }
+
+    /**
+     * this method finds many items of a project at once
+     *
+     * @param itemIds:   the items that the user wants to find
+     * @param projectId: the project that the items belong to
+     * @return : returns the items that were found, by their id, the ids that do not belong to an item of the project
+     * are left out
+     */
+    public Map<Long, Item> findItemsInProject(Collection<Long> itemIds, long projectId) {
+        Map<Long, Item> items = new HashMap<>();
+        if (!itemIds.isEmpty()) {
+            for (Item item : itemRepository.findAllByIdsAndProjectId(itemIds, projectId)) {
+                items.put(item.getId(), item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * this method finishes all the items of a sprint that were left with a certain task board status (for example
+     * 'done') with one statement, the unfinished items of the project that are loaded are refreshed afterwards
+     *
+     * @param sprint:          the sprint that the items belong to
+     * @param taskBoardStatus: the task board status that the items were left with
+     */
+    public void finishItemsInSprint(Sprint sprint, TaskBoardStatus taskBoardStatus) {
+        itemRepository.finishItemsInSprintWithTaskBoardStatus(sprint.getId(), taskBoardStatus,
+                (byte) ItemStatus.FINISHED.getRepositoryId());
+        refreshLoadedItems(unfinishedInProject(sprint.getProject()));
+        publishProjectModified(sprint.getProject());
+    }
+
+    /**
+     * this method finishes all the epics/stories that have no unfinished tasks/bugs left under them, after the items
+     * that were left 'done' in a sprint have been finished, with one statement, the unfinished items of the project
+     * that are loaded are refreshed afterwards
+     *
+     * @param sprint: the sprint that ended
+     */
+    public void finishCompletedAncestorsOfItemsInSprint(Sprint sprint) {
+        itemRepository.finishCompletedAncestorsOfItemsInSprint(sprint.getId(), TaskBoardStatus.DONE.getRepositoryId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId(), ItemType.EPIC.getRepositoryId(),
+                ItemType.STORY.getRepositoryId());
+        refreshLoadedItems(unfinishedInProject(sprint.getProject()));
+    }
+
+    /**
+     * this method updates the status of all the items associated with a sprint (but not their descendants) with one
+     * statement, the items of the project that are loaded are refreshed afterwards
+     *
+     * @param sprint: the sprint that the items are associated with
+     * @param status: the new status that the user wants the items to have
+     */
+    public void setStatusToAssociatedItems(Sprint sprint, ItemStatus status) {
+        itemRepository.updateStatusOfItemsInSprint(sprint.getId(), (byte) status.getRepositoryId());
+        refreshLoadedItems(inProject(sprint.getProject()));
+        publishProjectModified(sprint.getProject());
+    }
+
+    /**
+     * this method returns all the descendants of an item (children, children of children etc.) that have not been
+     * finished, with one query
+     *
+     * @param item: the item (epic/story) that the user requested the descendants of
+     * @return : returns the list of unfinished descendants
+     */
+    public List<Item> findUnfinishedDescendants(Item item) {
+        return itemClosureRepository.findDescendantsWithoutStatus(item.getId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId());
+    }
+
+    /**
+     * this method sets a new parent to an item, and updates the hierarchy of the item and all its descendants
+     * accordingly
+     *
+     * @param item:   the item that the user requested to change the parent of
+     * @param parent: the new parent of the item, null if the item should have no parent
+     */
+    public void changeParent(Item item, Item parent) {
+        Long oldParentId = item.getParent() == null ? null : item.getParent().getId();
+        Long newParentId = parent == null ? null : parent.getId();
+        item.setParent(parent);
+        if (!Objects.equals(oldParentId, newParentId)) {
+            itemClosureRepository.deleteLinksToAncestors(item.getId());
+            if (newParentId != null) {
+                itemClosureRepository.insertLinksToAncestors(item.getId(), newParentId);
             }
         }
     }
 
     /**
-     * this method checks if the parent of an item is finished, this is done by checking all the children of the parent
-     * and if all the children have a status of 'FINISHED', then the parent is also finished
+     * this method builds the hierarchy of all the existing items, in case they were created before the hierarchy
+     * was stored in the repository, it is built one level at a time, so the number of queries depends on the depth of
+     * the hierarchy and not the number of items
+     */
+    @Transactional
+    public void initializeItemClosure() {
+        if (itemClosureRepository.count() != 0 || itemRepository.count() == 0) {
+            return;
+        }
+        itemClosureRepository.insertSelfLinksOfAllItems();
+        int depth = 0;
+        while (itemClosureRepository.insertLinksOfNextLevel(depth) > 0) {
+            depth++;
+        }
+    }
+
+    /**
+     * this method checks if the parent of an item is finished, this is done by checking all the descendants of the
+     * parent and if all the descendants have a status of 'FINISHED', then the parent is also finished
      *
      * @param item: the item we want to check the parent of
      * @return : returns true if parent has all its children finished, false if any of its children is not finished
      */
     public boolean checkIfParentIsComplete(Item item) {
-        boolean finished = false;
-        boolean childHasUnfinishedItems = false;
         Item parent;
         //need to check if the item is an epic, as epics will never have a parent
         if (item.getType() != ItemType.EPIC.getRepositoryId()) {
@@ -406,38 +640,10 @@ public class ItemService {
         } else {
             parent = item;
         }
-        //counter inside the iteration
-        int i = 0;
-        for (Item child : parent.getChildren()) {
-            //if its an epic and it has a story child
-            if (child.getType() == ItemType.STORY.getRepositoryId()) {
-                //if the story has children on its own (that are not finished)
-                for (Item childOfChild : child.getChildren()) {
-                    if (childOfChild.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                        childHasUnfinishedItems = true;
-                        break;
-                    }
-                }
-            } else {
-                //if the child is a task/bug
-                if (child.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                    break;
-                }
-            }
-            //in each iteration, we need to check if any of the children, has a set of children that might be
-            //unfinished, for example if an epic has a story as a child, and the story has its own set of
-            //children, then we need to also check if any of the story children are unfinished
-            if (childHasUnfinishedItems) {
-                break;
-            }
-            i++;
-        }
-        //if the number of the children is the same as the counter, it means that we have checked all the children
-        //of this parent
-        if (parent.getChildren().size() == i) {
-            finished = true;
-        }
-        return finished;
+        //stories have no effort on their own, so only the tasks/bugs etc. under the parent need to be finished
+        return itemClosureRepository.countUnfinishedWorkItems(parent.getId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId(), ItemType.EPIC.getRepositoryId(),
+                ItemType.STORY.getRepositoryId()) == 0;
     }
 
     /**
@@ -447,24 +653,8 @@ public class ItemService {
      * @param item: the item that the user requested to check if it has any finished children
      */
     public boolean checkIfItemContainsFinishedChildren(Item item) {
-        boolean hasFinishedChildren = false;
-        //only an epic or a story can have children
-        if (item.getChildren() != null) {
-            for (Item child : item.getChildren()) {
-                if (child.getStatus() == ItemStatus.FINISHED.getRepositoryId()) {
-                    hasFinishedChildren = true;
-                    break;
-                }
-                if (child.getChildren() != null) {
-                    for (Item childOfChild : child.getChildren())
-                        if (childOfChild.getStatus() == ItemStatus.FINISHED.getRepositoryId()) {
-                            hasFinishedChildren = true;
-                            break;
-                        }
-                }
-            }
-        }
-        return hasFinishedChildren;
+        return itemClosureRepository.countDescendantsWithStatus(item.getId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId()) > 0;
     }
 
     /**
@@ -532,6 +722,11 @@ public class ItemService {
         }
 
         Item item = new Item(title, description, acceptanceCriteria, type.getRepositoryId(), priority.getRepositoryId(), effort, 0, project, assignee, owner, parent, itemStatus);
-        return itemRepository.save(item);
+        item = itemRepository.save(item);
+        itemClosureRepository.insertLinksOfNewItem(item.getId(), parent == null ? 0 : parent.getId());
+        projectMemberService.addMember(project.getId(), owner);
+        projectMemberService.addMember(project.getId(), assignee);
+        publishProjectModified(project);
+        return item;
     }
 }
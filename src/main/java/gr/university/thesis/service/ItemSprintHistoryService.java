@@ -1,23 +1,27 @@
 package gr.university.thesis.service;
 
-import gr.university.thesis.dto.BurnDownChartData;
-import gr.university.thesis.dto.TasksDoneByDate;
+import gr.university.thesis.dto.BatchMoveReport;
+import gr.university.thesis.dto.TaskBoardMove;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.ItemSprintHistory;
 import gr.university.thesis.entity.Sprint;
 import gr.university.thesis.entity.enumeration.ItemStatus;
 import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.entity.enumeration.MoveTarget;
 import gr.university.thesis.entity.enumeration.SprintStatus;
 import gr.university.thesis.entity.enumeration.TaskBoardStatus;
 import gr.university.thesis.repository.ItemSprintHistoryRepository;
-import gr.university.thesis.util.Time;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * service that handles everything relating to the history between the items and the sprints stored in the repository
@@ -25,23 +29,64 @@ import java.util.stream.Collectors;
 @Service
 public class ItemSprintHistoryService {
 
+    /**
+     * how many times a move of a card is attempted, when the card is moved by someone else at the same time
+     */
+    private static final int MAX_MOVE_ATTEMPTS = 3;
+
     ItemService itemService;
     SprintService sprintService;
+    SprintBurnService sprintBurnService;
+    TaskBoardTransitionService taskBoardTransitionService;
+    TaskBoardService taskBoardService;
+    TaskBoardEventService taskBoardEventService;
+    SprintHistoryService sprintHistoryService;
     ItemSprintHistoryRepository itemSprintHistoryRepository;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
+    Timer rolloverTimer;
+    DistributionSummary transferredItemsSummary;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
      * @param itemService:                 service that manages items
      * @param sprintService:               service that manages sprints
+     * @param sprintBurnService:           service that manages the effort burned during each day of the sprints
+     * @param taskBoardTransitionService:  service that keeps the log of the moves on the task boards
+     * @param taskBoardService:            service that loads and caches the task boards of the sprints
+     * @param taskBoardEventService:       service that pushes the moves of the cards to the open task boards
+     * @param sprintHistoryService:        service that stores the histories of the sprints when they finish
      * @param itemSprintHistoryRepository: repository for the history of item/sprint
+     * @param transactionManager:          the transaction manager, each attempt of a move runs in its own transaction
+     * @param meterRegistry:               the registry of the metrics of the application, the rollovers of the
+     *                                     sprints are timed
      */
     @Autowired
     public ItemSprintHistoryService(ItemService itemService, SprintService sprintService,
-                                    ItemSprintHistoryRepository itemSprintHistoryRepository) {
+                                    SprintBurnService sprintBurnService,
+                                    TaskBoardTransitionService taskBoardTransitionService,
+                                    TaskBoardService taskBoardService,
+                                    TaskBoardEventService taskBoardEventService,
+                                    SprintHistoryService sprintHistoryService,
+                                    ItemSprintHistoryRepository itemSprintHistoryRepository,
+                                    PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
         this.itemService = itemService;
         this.sprintService = sprintService;
+        this.sprintBurnService = sprintBurnService;
+        this.taskBoardTransitionService = taskBoardTransitionService;
+        this.taskBoardService = taskBoardService;
+        this.taskBoardEventService = taskBoardEventService;
+        this.sprintHistoryService = sprintHistoryService;
         this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.rolloverTimer = Timer.builder("sprint.rollover")
+                .description("time needed to finish a sprint and transfer its unfinished items to the next one")
+                .register(meterRegistry);
+        this.transferredItemsSummary = DistributionSummary.builder("sprint.rollover.items")
+                .description("number of items transferred to the next sprint when a sprint finishes")
+                .register(meterRegistry);
     }
 
     /**
@@ -51,10 +96,13 @@ public class ItemSprintHistoryService {
      * @param item:   the item that the association is created for
      * @param sprint: the sprint that this association belongs to
      */
+    @Transactional
     public void createAssociationAndSaveToRepository(Item item, Sprint sprint) {
         ItemSprintHistory ItemSprintHistory = new ItemSprintHistory(item, sprint,
                 TaskBoardStatus.TO_DO);
-        itemSprintHistoryRepository.save(ItemSprintHistory);
+        ItemSprintHistory = itemSprintHistoryRepository.save(ItemSprintHistory);
+        taskBoardTransitionService.recordAdditions(Collections.singletonList(ItemSprintHistory));
+        taskBoardService.evictTaskBoard(sprint.getId());
     }
 
     /**
@@ -72,17 +120,20 @@ public class ItemSprintHistoryService {
             item = itemOptional.get();
             sprint = sprintOptional.get();
             itemService.setStatusToItemAndChildren(item, ItemStatus.READY);
-            //whatever the user clicks to move to the sprint, will have no parent
-            if (parent == null) {
-                item.setParent(null);
-            }
-            //if the user changes the parent to a parent that is in the ready sprint, then we need to set it this way:
-            else {
-                item.setParent(parent);
-            }
-            itemService.saveToRepository(item);
+            //whatever the user clicks to move to the sprint, will have no parent, otherwise if the user changes
+            //the parent to a parent that is in the ready sprint, then we need to set it this way
+            itemService.changeParent(item, parent);
+            //the new status and parent of the item are saved, the item that the save returns is used from now on
+            item = itemService.saveToRepository(item);
             List<ItemSprintHistory> assocations = createAssociationForItemAndChildren(item, sprint);
+            //the associations are always new and are inserted in batches, so the ones that already exist (for
+            //example a story that was already in the sprint before its epic) are left out
+            List<Long> alreadyAssociatedItemIds = itemSprintHistoryRepository.findItemIdsAssociatedWithSprint(
+                    sprint.getId(), getItemIds(assocations));
+            assocations.removeIf(association -> alreadyAssociatedItemIds.contains(association.getSprintItemId().getItemId()));
             itemSprintHistoryRepository.saveAll(assocations);
+            taskBoardTransitionService.recordAdditions(assocations);
+            taskBoardService.evictTaskBoard(sprint.getId());
         }
     }
 
@@ -105,17 +156,17 @@ public class ItemSprintHistoryService {
             if (itemSprintHistoryOptional.isPresent()) {
                 itemSprintHistoryRepository.delete(itemSprintHistoryOptional.get());
                 itemService.setStatusToItemAndChildren(item, ItemStatus.BACKLOG);
-                //whatever the user clicks to move to the sprint, will have no parent
-                if (parent == null) {
-                    item.setParent(null);
-                }
-                //if the user changes the parent to a parent that is in the ready sprint, then we need to set it this way:
-                else {
-                    item.setParent(parent);
-                }
-                itemService.saveToRepository(item);
+                //whatever the user clicks to move to the sprint, will have no parent, otherwise if the user changes
+                //the parent to a parent that is in the ready sprint, then we need to set it this way
+                itemService.changeParent(item, parent);
+                //the new status and parent of the item are saved, the item that the save returns is used from now on
+                item = itemService.saveToRepository(item);
                 List<ItemSprintHistory> associations = createAssociationForItemAndChildren(item, sprint);
-                itemSprintHistoryRepository.deleteAll(associations);
+                Set<Long> itemIds = getItemIds(associations);
+                taskBoardTransitionService.recordRemovals(
+                        itemSprintHistoryRepository.findAllBySprintIdAndItemIds(sprint.getId(), itemIds));
+                itemSprintHistoryRepository.deleteAllBySprintIdAndItemIds(sprint.getId(), itemIds);
+                taskBoardService.evictTaskBoard(sprint.getId());
             }
         }
     }
@@ -126,8 +177,21 @@ public class ItemSprintHistoryService {
      *
      * @param itemSprintHistories: the list of associations that the user requested to save
      */
+    @Transactional
     public void saveAllAssociations(List<ItemSprintHistory> itemSprintHistories) {
+        List<ItemSprintHistory> newAssociations = new ArrayList<>();
+        Set<Long> sprintIds = new HashSet<>();
+        for (ItemSprintHistory itemSprintHistory : itemSprintHistories) {
+            if (itemSprintHistory.isNew()) {
+                newAssociations.add(itemSprintHistory);
+            }
+            sprintIds.add(itemSprintHistory.getSprint().getId());
+        }
         itemSprintHistoryRepository.saveAll(itemSprintHistories);
+        taskBoardTransitionService.recordAdditions(newAssociations);
+        for (long sprintId : sprintIds) {
+            taskBoardService.evictTaskBoard(sprintId);
+        }
     }
 
     /**
@@ -137,8 +201,178 @@ public class ItemSprintHistoryService {
      * @param itemSprintHistory: the association the user requested to save
      * @return: returns the association with the addition of the id the repository generated for it
      */
+    @Transactional
     public ItemSprintHistory save(ItemSprintHistory itemSprintHistory) {
-        return itemSprintHistoryRepository.save(itemSprintHistory);
+        boolean newAssociation = itemSprintHistory.isNew();
+        itemSprintHistory = itemSprintHistoryRepository.save(itemSprintHistory);
+        if (newAssociation) {
+            taskBoardTransitionService.recordAdditions(Collections.singletonList(itemSprintHistory));
+        }
+        taskBoardService.evictTaskBoard(itemSprintHistory.getSprint().getId());
+        return itemSprintHistory;
+    }
+
+    /**
+     * this method moves many items at once, in one transaction, either into a ready sprint (with their descendants),
+     * back to the backlog from a ready sprint (with their descendants) or into a column of the task board of an active
+     * sprint, the associations are created and deleted with one statement each, items that cannot be moved are
+     * reported and do not stop the others from being moved
+     *
+     * @param projectId: the project that the items and the sprint belong to
+     * @param itemIds:   the items that the user requested to move
+     * @param target:    where the items are moved to
+     * @param sprintId:  the ready sprint that the items are moved into or out of, or the active sprint whose task board
+     *                   the items are moved on
+     * @param column:    the column of the task board that the items are moved to, only needed for the task board
+     * @return : returns the outcome of every requested item
+     * @throws IllegalArgumentException : if the sprint does not exist in the project, or cannot be used for this move
+     */
+    @Transactional
+    public BatchMoveReport moveItems(long projectId, Collection<Long> itemIds, MoveTarget target, long sprintId,
+                                     TaskBoardStatus column) {
+        Optional<Sprint> sprintOptional = sprintService.findSprintById(new Sprint(sprintId));
+        if (!sprintOptional.isPresent() || sprintOptional.get().getProject().getId() != projectId) {
+            throw new IllegalArgumentException("Sprint with id '" + sprintId + "' does not exist in this project.");
+        }
+        Sprint sprint = sprintOptional.get();
+        SprintStatus requiredSprintStatus = target == MoveTarget.TASK_BOARD ? SprintStatus.ACTIVE : SprintStatus.READY;
+        if (sprint.getStatus() != requiredSprintStatus.getRepositoryId()) {
+            throw new IllegalArgumentException("Items can only be moved to the " + target.getName().toLowerCase() +
+                    " when the sprint is " + requiredSprintStatus.getName().toLowerCase() + ".");
+        }
+        if (target == MoveTarget.TASK_BOARD && (column == null || column == TaskBoardStatus.NONE)) {
+            throw new IllegalArgumentException("The column of the task board is missing.");
+        }
+        //each item is moved once, no matter how many times it was requested
+        Set<Long> requestedItemIds = new LinkedHashSet<>(itemIds);
+        BatchMoveReport report = new BatchMoveReport();
+        if (target == MoveTarget.TASK_BOARD) {
+            moveCards(sprint, requestedItemIds, column, report);
+        } else {
+            moveItemsIntoOrOutOfSprint(sprint, requestedItemIds, target == MoveTarget.SPRINT, report);
+        }
+        taskBoardService.evictTaskBoard(sprintId);
+        return report;
+    }
+
+    /**
+     * this method moves many items (and their descendants) from the backlog into a ready sprint, or the other way
+     * around, check the method above
+     *
+     * @param sprint:     the ready sprint
+     * @param itemIds:    the items that the user requested to move
+     * @param intoSprint: true if the items are moved into the sprint, false if they are moved back to the backlog
+     * @param report:     where the outcome of every item is reported
+     */
+    private void moveItemsIntoOrOutOfSprint(Sprint sprint, Set<Long> itemIds, boolean intoSprint,
+                                            BatchMoveReport report) {
+        ItemStatus requiredStatus = intoSprint ? ItemStatus.BACKLOG : ItemStatus.READY;
+        ItemStatus newStatus = intoSprint ? ItemStatus.READY : ItemStatus.BACKLOG;
+        Map<Long, Item> items = itemService.findItemsInProject(itemIds, sprint.getProject().getId());
+        Set<Long> movedItemIds = new LinkedHashSet<>();
+        for (long itemId : itemIds) {
+            Item item = items.get(itemId);
+            if (item == null) {
+                report.rejected(itemId, "Item does not exist in this project.");
+            } else if (item.getStatus() == newStatus.getRepositoryId()) {
+                report.unchanged(itemId, "Item is already " + newStatus.getName().toLowerCase() + ".");
+            } else if (item.getStatus() != requiredStatus.getRepositoryId()) {
+                report.rejected(itemId, "Item is " +
+                        ItemStatus.findItemStatusByRepositoryId(item.getStatus()).getName().toLowerCase() + ".");
+            } else {
+                movedItemIds.add(itemId);
+                report.moved(itemId);
+            }
+        }
+        if (movedItemIds.isEmpty()) {
+            return;
+        }
+        for (long itemId : movedItemIds) {
+            Item item = items.get(itemId);
+            //the same as moving the items one by one, whatever is moved has no parent afterwards, unless its parent is
+            //moved as well, in which case it is moved together with its parent
+            if (item.getParent() != null && !hasAncestorIn(item, movedItemIds)) {
+                itemService.changeParent(item, null);
+            }
+        }
+        List<Long> subtreeIds = itemService.findUnfinishedSubtreeIds(movedItemIds);
+        if (intoSprint) {
+            Set<Long> newItemIds = new LinkedHashSet<>(subtreeIds);
+            newItemIds.removeAll(itemSprintHistoryRepository.findItemIdsAssociatedWithSprint(sprint.getId(),
+                    subtreeIds));
+            itemService.setStatusToItems(subtreeIds, newStatus, sprint.getProject());
+            if (!newItemIds.isEmpty()) {
+                itemSprintHistoryRepository.insertAssociations(sprint.getId(), newItemIds,
+                        TaskBoardStatus.TO_DO.getRepositoryId());
+                taskBoardTransitionService.recordAdditions(sprint.getId(), newItemIds, TaskBoardStatus.TO_DO);
+            }
+        } else {
+            taskBoardTransitionService.recordRemovals(
+                    itemSprintHistoryRepository.findAllBySprintIdAndItemIds(sprint.getId(), subtreeIds));
+            itemSprintHistoryRepository.deleteAllBySprintIdAndItemIds(sprint.getId(), subtreeIds);
+            itemService.setStatusToItems(subtreeIds, newStatus, sprint.getProject());
+        }
+    }
+
+    /**
+     * @param item:         the item that the user requested to check
+     * @param movedItemIds: the items that are being moved
+     * @return : returns true if one of the ancestors of the item is being moved as well
+     */
+    private boolean hasAncestorIn(Item item, Set<Long> movedItemIds) {
+        for (Item ancestor = item.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (movedItemIds.contains(ancestor.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * this method moves many tasks/bugs to a column of the task board of an active sprint, every move is logged and
+     * pushed to the open task boards the same way as a move of a single card
+     *
+     * @param sprint:  the active sprint
+     * @param itemIds: the items that the user requested to move
+     * @param column:  the column that the items are moved to
+     * @param report:  where the outcome of every item is reported
+     */
+    private void moveCards(Sprint sprint, Set<Long> itemIds, TaskBoardStatus column, BatchMoveReport report) {
+        Map<Long, ItemSprintHistory> associations = new HashMap<>();
+        for (ItemSprintHistory association :
+                itemSprintHistoryRepository.findAllWithItemsBySprintIdAndItemIds(sprint.getId(), itemIds)) {
+            associations.put(association.getItem().getId(), association);
+        }
+        Date now = new Date();
+        List<ItemSprintHistory> movedAssociations = new ArrayList<>();
+        List<TaskBoardMove> moves = new ArrayList<>();
+        for (long itemId : itemIds) {
+            ItemSprintHistory association = associations.get(itemId);
+            if (association == null) {
+                report.rejected(itemId, "Item is not in this sprint.");
+            } else if (association.getItem().getType() != ItemType.TASK.getRepositoryId() &&
+                    association.getItem().getType() != ItemType.BUG.getRepositoryId()) {
+                report.rejected(itemId, "Only tasks and bugs are shown on the task board.");
+            } else if (association.getStatus() == column) {
+                report.unchanged(itemId, "Item is already in '" + column.getName() + "'.");
+            } else {
+                TaskBoardStatus previousStatus = association.getStatus();
+                Date previouslyMoved = association.getLast_moved();
+                association.setStatus(column);
+                association.setLast_moved(now);
+                taskBoardTransitionService.recordMove(association, previousStatus);
+                updateBurn(association, previousStatus, previouslyMoved);
+                movedAssociations.add(association);
+                moves.add(new TaskBoardMove(sprint.getId(), itemId, previousStatus, column, now.getTime()));
+                report.moved(itemId);
+            }
+        }
+        //the updates are sent in batches, a card that was moved by someone else in the meantime fails the whole batch
+        itemSprintHistoryRepository.saveAll(movedAssociations);
+        itemSprintHistoryRepository.flush();
+        for (TaskBoardMove move : moves) {
+            taskBoardEventService.publishMove(move);
+        }
     }
 
     /**
@@ -156,34 +390,33 @@ public class ItemSprintHistoryService {
         parentItemSprintHistory.getSprintItemId().setItemId(item.getId());
         parentItemSprintHistory.getSprintItemId().setSprintId(sprint.getId());
         associations.add(parentItemSprintHistory);
-        //if it's a story or an epic, then create an association for the children
+        //if it's a story or an epic, then create an association for all its unfinished descendants
         if (item.getType() == ItemType.EPIC.getRepositoryId() || item.getType() == ItemType.STORY.getRepositoryId()) {
-            if (item.getChildren() != null) {
-                for (Item child : item.getChildren()) {
-                    if (child.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                        ItemSprintHistory childItemSprintHistory = new ItemSprintHistory(child, sprint,
-                                TaskBoardStatus.TO_DO);
-                        childItemSprintHistory.getSprintItemId().setItemId(child.getId());
-                        childItemSprintHistory.getSprintItemId().setSprintId(sprint.getId());
-                        associations.add(childItemSprintHistory);
-                        //if the parent is an epic and the child a story, then also create an association for the
-                        // children of the story
-                        for (Item childOfChild : child.getChildren()) {
-                            if (childOfChild.getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                                ItemSprintHistory childOfChildItemSprintHistory = new ItemSprintHistory(childOfChild, sprint,
-                                        TaskBoardStatus.TO_DO);
-                                childOfChildItemSprintHistory.getSprintItemId().setSprintId(sprint.getId());
-                                childOfChildItemSprintHistory.getSprintItemId().setItemId(childOfChild.getId());
-                                associations.add(childOfChildItemSprintHistory);
-                            }
-                        }
-                    }
-                }
+            for (Item descendant : itemService.findUnfinishedDescendants(item)) {
+                ItemSprintHistory descendantItemSprintHistory = new ItemSprintHistory(descendant, sprint,
+                        TaskBoardStatus.TO_DO);
+                descendantItemSprintHistory.getSprintItemId().setItemId(descendant.getId());
+                descendantItemSprintHistory.getSprintItemId().setSprintId(sprint.getId());
+                associations.add(descendantItemSprintHistory);
             }
         }
         return associations;
     }
 
+    /**
+     * this method returns the ids of the items that belong to a list of associations
+     *
+     * @param associations: the associations that the user requested the item ids of
+     * @return : returns the set of item ids
+     */
+    private Set<Long> getItemIds(List<ItemSprintHistory> associations) {
+        Set<Long> itemIds = new HashSet<>();
+        for (ItemSprintHistory association : associations) {
+            itemIds.add(association.getSprintItemId().getItemId());
+        }
+        return itemIds;
+    }
+
     /**
      * this method checks if an item needs to have its associations updated when the user requests to
      * assign it to a new parent, for example if the item is in the backlog and needs to be set
@@ -217,23 +450,6 @@ public class ItemSprintHistoryService {
         }
     }
 
-    /**
-     * this method takes as input two types (at max) of item (bug and task for example), and returns all the items
-     * that belongs to a certain sprint and have a certain task board status (for example 'done'), the developer chose
-     * two item types, because at the time of creating this method, they needed a way to fetch both tasks and bugs,
-     * and instead of using 2 queries for it, they used only one
-     *
-     * @param sprint:          the sprint that the requested items belong to
-     * @param taskBoardStatus: the task board status of the requested items (for example 'done')
-     * @param itemType1:       item type 1 (for example bug)
-     * @param itemType2:       item type 2 (for example task)
-     * @return : returns an optional that may contain a list with all the items requested
-     */
-    public Optional<List<ItemSprintHistory>> findAllAssociationsByStatus(Sprint sprint, TaskBoardStatus taskBoardStatus, ItemType itemType1, ItemType itemType2) {
-        return itemSprintHistoryRepository.findAllBySprintAndStatusAndItemTypes(sprint.getId(),
-                taskBoardStatus, itemType1.getRepositoryId(), itemType2.getRepositoryId());
-    }
-
     /**
      * this method takes as input a sprint, and two types and returns all the items that belong to any of the two
      * types inputted and belong to that sprint
@@ -249,323 +465,147 @@ public class ItemSprintHistoryService {
 
     /**
      * this method changes the status of a given association, either to the previous or to the next and the direction
-     * is indicated by the index
+     * is indicated by the index, if the status the user saw is given, then the move only happens if the association
+     * still has that status, which makes the move safe to retry: when someone else updates the association at the
+     * same time, the move is attempted again (a few times at most) in a new transaction
      *
-     * @param sprint: the sprint that belongs to this association
-     * @param item:   the item that belongs to this association
-     * @param index:  the indicator towards which direction the status should go to, if index > 0 then it means that
-     *                the status should be increased by 1, whereas if index < 0 then it means that the status should be
-     *                decreased by one (based on the repository id)
+     * @param sprint:         the sprint that belongs to this association
+     * @param item:           the item that belongs to this association
+     * @param index:          the indicator towards which direction the status should go to, if index > 0 then it means
+     *                        that the status should be increased by 1, whereas if index < 0 then it means that the
+     *                        status should be decreased by one (based on the repository id)
+     * @param expectedStatus: the status that the user saw before moving the association, null to move the association
+     *                        from whatever status it has (such moves are not retried)
+     * @return : returns an optional that may contain the move of the card, empty if the association does not exist,
+     * its status cannot go any further in that direction or it was moved by someone else in the meantime
      */
-    public void changeStatusOfAssociationByOne(Sprint sprint, Item item, int index) {
+    public Optional<TaskBoardMove> changeStatusOfAssociationByOne(Sprint sprint, Item item, int index,
+                                                                  TaskBoardStatus expectedStatus) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(transactionStatus ->
+                        moveAssociationByOne(sprint, item, index, expectedStatus));
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedStatus == null || attempt >= MAX_MOVE_ATTEMPTS) {
+                    return Optional.empty();
+                }
+            }
+        }
+    }
+
+    /**
+     * this method performs one attempt of a move of an association, check the method above
+     *
+     * @param sprint:         the sprint that belongs to this association
+     * @param item:           the item that belongs to this association
+     * @param index:          the direction of the move
+     * @param expectedStatus: the status that the association needs to have for the move to happen, null for any status
+     * @return : returns an optional that may contain the move of the card
+     */
+    private Optional<TaskBoardMove> moveAssociationByOne(Sprint sprint, Item item, int index,
+                                                         TaskBoardStatus expectedStatus) {
         Optional<ItemSprintHistory> itemSprintHistoryOptional = itemSprintHistoryRepository.findFirstByItemAndSprint(item, sprint);
         if (itemSprintHistoryOptional.isPresent()) {
             ItemSprintHistory itemSprintHistory = itemSprintHistoryOptional.get();
+            //the association was already moved by someone else
+            if (expectedStatus != null && itemSprintHistory.getStatus() != expectedStatus) {
+                return Optional.empty();
+            }
             //checking for edge cases
             if ((itemSprintHistory.getStatus().getRepositoryId() != 1 && index < 0) ||
                     (itemSprintHistory.getStatus().getRepositoryId() != 4 && index > 0)) {
                 TaskBoardStatus currentStatus = itemSprintHistory.getStatus();
+                Date previouslyMoved = itemSprintHistory.getLast_moved();
                 itemSprintHistory.setStatus(TaskBoardStatus.findTaskBoardStatusByRepositoryId(currentStatus.getRepositoryId() + index));
                 itemSprintHistory.setLast_moved(new Date());
-                itemSprintHistoryRepository.save(itemSprintHistory);
+                //flushed right away, so that a concurrent move is detected (by the version) before anything else
+                itemSprintHistoryRepository.saveAndFlush(itemSprintHistory);
+                taskBoardTransitionService.recordMove(itemSprintHistory, currentStatus);
+                updateBurn(itemSprintHistory, currentStatus, previouslyMoved);
+                taskBoardService.evictTaskBoard(sprint.getId());
+                TaskBoardMove move = new TaskBoardMove(sprint.getId(), item.getId(), currentStatus,
+                        itemSprintHistory.getStatus(), itemSprintHistory.getLast_moved().getTime());
+                taskBoardEventService.publishMove(move);
+                return Optional.of(move);
             }
         }
+        return Optional.empty();
     }
 
     /**
-     * this method transfers all the unfinished items from the old sprint to the new sprint, this means that all
-     * associations with task board status that 'DONE', will not be transferred whereas all the other associations,
-     * will be transferred with the status that they were left, when the sprint ended
+     * this method keeps the burns of the sprint up to date after an item was moved on the task board, the effort of
+     * a task/bug that was moved into 'done' is burned on the current day, whereas the effort of a task/bug that was
+     * moved out of 'done' is given back to the day it had been moved into 'done'
      *
-     * @param oldSprint: the old sprint that we want to transfer the associations from
+     * @param association:     the association that was moved
+     * @param previousStatus:  the status of the association before the move
+     * @param previouslyMoved: when the association had been moved before this move
      */
-    public void transferUnfinishedItemsFromOldSprint(Sprint oldSprint) {
-        Sprint newSprint = sprintService.createSprint(oldSprint.getProject());
-        Set<ItemSprintHistory> associationsForNextSprint = new HashSet<>();
-        for (ItemSprintHistory association : oldSprint.getAssociatedItems()) {
-            //if the item is a task or a bug and it was not finished in the old sprint, then move it to the new one
-            if ((association.getItem().getType() == ItemType.TASK.getRepositoryId() ||
-                    association.getItem().getType() == ItemType.BUG.getRepositoryId()) &&
-                    association.getStatus() != TaskBoardStatus.DONE &&
-                    association.getItem().getStatus() != ItemStatus.FINISHED.getRepositoryId()) {
-                associationsForNextSprint.addAll(createAssociationForItemAndParents(association.getItem(),
-                        newSprint, association.getStatus()));
-            }
-            //done status can only be tasks/bugs, so no need to check if it's an epic/story etc.
-            else if (association.getStatus() == TaskBoardStatus.DONE) {
-                itemService.changeItemStatus(association.getItem(), ItemStatus.FINISHED);
-                boolean isParentComplete = false;
-                if (association.getItem().getParent() != null) {
-                    isParentComplete = itemService.checkIfParentIsComplete(association.getItem());
-                }
-                //if the parent of the child is complete, then change the parent's state to 'finished' as well
-                if (isParentComplete) {
-                    itemService.changeItemStatus(association.getItem().getParent(), ItemStatus.FINISHED);
-                    if (association.getItem().getParent().getParent() != null) {
-                        boolean isParentOfParentComplete = itemService.checkIfParentIsComplete(association.getItem().getParent().getParent());
-                        //if the parent of the parent is complete, then also change his state to 'finished'
-                        if (isParentOfParentComplete) {
-                            itemService.changeItemStatus(association.getItem().getParent().getParent(), ItemStatus.FINISHED);
-                        }
-                    }
-                }
-            }
-            // in case the item has no children, this case is only added to avoid breaking the system with
-            //stories or epics that are added onto the ready sprint without children
-            //however this edge case is not perfect as an epic/story can still be added
-            //to the ready sprint and have children that have been finished and cannot be seen
-            //by the user, but as of now, entirely solving the edge case is not of primary concern
-            else if ((association.getItem().getType() == ItemType.EPIC.getRepositoryId() ||
-                    association.getItem().getType() == ItemType.STORY.getRepositoryId()) &&
-                    association.getItem().getChildren().isEmpty()) {
-                associationsForNextSprint.addAll(createAssociationForItemAndParents(association.getItem(),
-                        newSprint, association.getStatus()));
-            }
+    private void updateBurn(ItemSprintHistory association, TaskBoardStatus previousStatus, Date previouslyMoved) {
+        Item item = association.getItem();
+        if (item.getType() != ItemType.TASK.getRepositoryId() && item.getType() != ItemType.BUG.getRepositoryId()) {
+            return;
         }
-        itemSprintHistoryRepository.saveAll(associationsForNextSprint);
-    }
-
-    /**
-     * this method creates associations for an item and its parents, for example if a task needs to be transferred
-     * to a new sprint, creating associations for the story that it might belong to, is also needed. What is more, if
-     * the story has its own parent, then an association for that parent (epic) needs to also be created
-     *
-     * @param item:      the item that the user requested to create an association for it and its parents
-     * @param newSprint: the new sprint that these items are going to be associated with
-     * @param oldStatus: the old status, from when the previous sprint ended, for the item to inherit
-     * @return : returns a set with the unique associations that were created
-     */
-    public Set<ItemSprintHistory> createAssociationForItemAndParents(Item item, Sprint newSprint, TaskBoardStatus oldStatus) {
-        //the developer chose Set as their data structure here, because they want to avoid having duplicates
-        //inserted into the repository, two items may have the same parent, and two associations with the same
-        //parent ID and sprint ID will be created, which is unwanted
-        Set<ItemSprintHistory> associations = new HashSet<>();
-        item = itemService.changeItemStatus(item, ItemStatus.READY);
-        ItemSprintHistory newAssociation = new ItemSprintHistory(item, newSprint, oldStatus);
-        associations.add(newAssociation);
-        if (item.getParent() != null) {
-            Item parent = item.getParent();
-            parent = itemService.changeItemStatus(parent, ItemStatus.READY);
-            if (parent.getType() == ItemType.EPIC.getRepositoryId()) {
-                ItemSprintHistory newParentAssociation = new ItemSprintHistory(parent, newSprint, TaskBoardStatus.NONE);
-                associations.add(newParentAssociation);
-            }
-            //different case is needed for stories, as they might have a parent on their own
-            else if (parent.getType() == ItemType.STORY.getRepositoryId()) {
-                ItemSprintHistory newParentAssociation = new ItemSprintHistory(parent, newSprint, TaskBoardStatus.NONE);
-                associations.add(newParentAssociation);
-                //if the story has an epic as its parent
-                if (parent.getParent() != null) {
-                    Item parentOfParent = parent.getParent();
-                    parentOfParent = itemService.changeItemStatus(parentOfParent, ItemStatus.READY);
-                    ItemSprintHistory newParentOfParentAssociation = new ItemSprintHistory(parentOfParent, newSprint, TaskBoardStatus.NONE);
-                    associations.add(newParentOfParentAssociation);
-                }
-            }
+        if (association.getStatus() == TaskBoardStatus.DONE) {
+            sprintBurnService.addBurnedEffort(association.getSprint(), association.getLast_moved(), item.getEffort());
+        } else if (previousStatus == TaskBoardStatus.DONE) {
+            sprintBurnService.addBurnedEffort(association.getSprint(), previouslyMoved, -item.getEffort());
         }
-        return associations;
     }
 
     /**
-     * this method calculates all the necessary data for the burn down chart in the history page of every sprint
-     * it calculates the duration of the sprint in days and puts them in a ordered array named categories
-     * it calculates the ideal burn of effort by dividing the total sprint effort with the number of developers
-     * included in the project, and puts every ideal burn of effort per day in an array
-     * it calculates the actual burn of effort by calculating all the tasks done per day and puts them in an array
+     * this method finishes an active sprint and transfers its unfinished items to a new sprint, all in one
+     * transaction, so that either the whole rollover happens or nothing does, the time it takes is recorded in the
+     * 'sprint.rollover' timer
      *
-     * @param sprint: the sprint that the user requested to calculate the burn down chart data of
-     * @return : returns a DTO that contains all the necessary data that need to be transferred to the user interface\
-     * and concern the burndown chart
+     * @param sprintId: the sprint that the user wants to finish
+     * @return : returns an optional with the finished sprint (with its velocity and total effort), empty if the sprint
+     * is not active (for example because someone else finished it in the meantime)
      */
-    public BurnDownChartData calculateBurnDownChartData(Sprint sprint) {
-        Optional<Sprint> sprintOptional = sprintService.findSprintById(sprint);
+    @Transactional
+    public Optional<Sprint> finishSprintAndTransferUnfinishedItems(long sprintId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<Sprint> sprintOptional = sprintService.finishSprint(sprintId);
         if (sprintOptional.isPresent()) {
-            sprint = sprintOptional.get();
-            sprintService.calculateTotalEffort(sprint);
-            int totalSprintEffort = (int) sprint.getTotal_effort();
-
-            //number of weeks * 7
-            int numberOfDays = (int) sprint.getDuration() * 7;
-            //for readability issues
-            Date startingDate = sprint.getStart_date();
-            Date nextDate = startingDate;
-
-            //+2 because the start and finish are included
-            Date[] dates = new Date[numberOfDays + 2];
-            dates[0] = startingDate;
-            //counting the Start string and the last Day (Wed)
-            String[] categories = new String[numberOfDays + 2];
-            //setting the starting cell manually
-            categories[0] = "Start";
-            for (int i = 1; i < categories.length; i++) {
-                String nextDay = Time.findDay(nextDate);
-                categories[i] = nextDay;
-                nextDate = Time.incrementDateByOne(nextDate);
-                dates[i] = nextDate;
-            }
-            //outside the loop, setting the last cell manually
-            categories[numberOfDays + 1] += "(Finish)";
-
-            int[] actualBurn = new int[numberOfDays + 2];
-            actualBurn[0] = totalSprintEffort;
-            Optional<List<ItemSprintHistory>> associationsOrderedByDateOptional =
-                    findAllAssociationsByStatus(sprint, TaskBoardStatus.DONE, ItemType.TASK, ItemType.BUG);
-            if (associationsOrderedByDateOptional.isPresent()) {
-                List<ItemSprintHistory> associationsOrderedByDate = associationsOrderedByDateOptional.get();
-
-                int currentActualBurn = 0;
-
-                //for readability issues
-                int previousEffort = totalSprintEffort;
-                // so that it is not instantiated every time inside the loop
-                Date today = new Date();
-                for (int i = 0; i < dates.length; i++) {
-                    Date date = dates[i];
-                    //if the date comparing is later than today
-                    if (Time.compare(date, today) > 0) {
-                        //only take the burns of earlier dates and today
-                        actualBurn = Arrays.copyOfRange(actualBurn, 0, i + 1);
-                        break;
-                    } else {
-                        for (ItemSprintHistory association : associationsOrderedByDate) {
-                            int difference = Time.compare(date, association.getLast_moved());
-                            //if the dates are equal
-                            if (difference == 0) {
-                                currentActualBurn += association.getItem().getEffort();
-                            }
-                            //if the association is later, then break as there is no need to check further in the list
-                            //as the associations are ordered by date: if the association date is later, then surely the
-                            //next date is also later and so on
-                            else if (difference < 0) {
-                                break;
-                            }
-                        }
-                    }
-                    //if the current actual burn is not zero, it means that finished associations were found for that day
-                    if (currentActualBurn != 0) {
-                        actualBurn[i + 1] = previousEffort - currentActualBurn;
-                        //if the burn is below 0, then set it to 0, as the graph should never show below 0
-                        // (just making sure)
-                        if (actualBurn[i + 1] <= 0) {
-                            actualBurn[i + 1] = 0;
-                            //actually ending the actual remaining graph to the point it reaches 0
-                            actualBurn = Arrays.copyOfRange(actualBurn, 0, i + 2);
-                            break;
-                        }
-                        //setting the effort, to the current iterated cell
-                        previousEffort = actualBurn[i + 1];
-                        //resetting it for next set of associations
-                        currentActualBurn = 0;
-                    }
-                    //if the date checked had no associations with actual burns for that day, for example Saturday/Sunday
-                    else if (Time.compare(date, today) <= 0) {
-                        //set the effort for that cell, the same as the previous, for example the same as Friday (as no
-                        //tasks were completed during off days)
-                        actualBurn[i + 1] = previousEffort;
-                    }
-                }
-            }
-            //if there are no tasks with status done, just take the first cell, which is the total effort of
-            //the sprint and fill it up to the latest day
-            else {
-                //+1 for the starting cell
-                //+1 for the return of the method which is int and normally should be double
-                //may be slightly inaccurate if compared to the current hour, but the days shown display based on the
-                //starting date of the sprint
-                int daysInBetween = Time.calculateDaysInBetween(sprint.getStart_date(), new Date()) + 1 + 1;
-                //this is the point that the array will be 'cut', based on the current day (now)
-                int arrayLimit = 0;
-                for (int i = 0; i < daysInBetween; i++) {
-                    //in case there is a out of bounds exception
-                    if (i < actualBurn.length) {
-                        actualBurn[i] = totalSprintEffort;
-                        arrayLimit = i + 1;
-                    }
-                    //if let's say 500 days have passed, the iteration should break and not count more than needed
-                    if (i >= actualBurn.length) {
-                        break;
-                    }
-                }
-                actualBurn = Arrays.copyOfRange(actualBurn, 0, arrayLimit);
-            }
-
-            //here, the ideal burn for each sprint is calculated
-            double[] ideal_burn = new double[numberOfDays + 2];
-            ideal_burn[0] = totalSprintEffort;
-            double nextEffort = totalSprintEffort;
-            //double needed because the division might be a decimal, and an accurate representation is required
-            double ideal_effort_burn = (double) totalSprintEffort / (numberOfDays + 1);
-            //limiting decimals to two:
-            DecimalFormat df = new DecimalFormat("#.##");
-            df.setRoundingMode(RoundingMode.HALF_EVEN);
-
-            for (int i = 1; i < ideal_burn.length; i++) {
-                //formatting returns a String, so parsing is needed
-                ideal_burn[i] = Double.parseDouble(df.format(nextEffort - ideal_effort_burn));
-                //here, having a number below 0 is possible, so it should be avoided
-                if (ideal_burn[i] < 0) {
-                    ideal_burn[i] = 0;
-                }
-                //this should also be called previous effort (most likely), setting the effort calculated for the
-                // previous cell, for the next subtraction
-                nextEffort = ideal_burn[i];
-            }
-            boolean possibleDelay = false;
-            boolean earlierFinish = false;
-            //if the sprint is not the current active one, then there is no point in warning the user
-
-            if (sprint.getStatus() == SprintStatus.ACTIVE.getRepositoryId()) {
-                //if the latest actual burn is more than the ideal burn of that day, then there is a problem
-                //and the user needs to be warned
-                if (actualBurn[actualBurn.length - 1] > ideal_burn[actualBurn.length - 1]) {
-                    possibleDelay = true;
-                }
-                //if the actual burn reaches 0 and the length of the actual burn array is shorter than the ideal burn
-                //array (which means the former reaches 0 first), then notify user about early finish
-                if (actualBurn[actualBurn.length - 1] == 0 && actualBurn.length < ideal_burn.length) {
-                    earlierFinish = true;
-                }
-
-            }
-            return new BurnDownChartData(categories, ideal_burn, actualBurn, possibleDelay, earlierFinish);
+            Sprint sprint = sprintOptional.get();
+            //the velocity and total effort of the sprint were set when it finished, from its stored totals
+            sprint.getProject().setTeam_velocity(sprint.getVelocity());
+            transferUnfinishedItemsFromOldSprint(sprint);
+            //from now on the history of the sprint does not change, so it is stored once
+            sprintHistoryService.freezeSprintHistory(sprint);
         }
-        return null;
+        sample.stop(rolloverTimer);
+        return sprintOptional;
     }
 
     /**
-     * this method takes as input a sprint, and collects all its item of every association, and groups it by
-     * date using a map, then the map is converted into a DTO containing the list of items grouped by date,
-     * and are then shown in the user interface during the sprint task history template
-     * the map could have been returned but for readability reasons, the author chose to translate it into a DTO
+     * this method transfers all the unfinished items from the old sprint to the new sprint, this means that all
+     * associations with task board status that 'DONE', will not be transferred whereas all the other associations,
+     * will be transferred with the status that they were left, when the sprint ended, together with the epics/stories
+     * they belong to. The number of statements does not depend on the number of items in the sprint
      *
-     * @param sprint: the sprint that the user requested to sort the tasks of and show to the sprint history
-     * @return : returns a list of DTOs, that contain all the items, grouped by date
+     * @param oldSprint: the old sprint that we want to transfer the associations from
      */
-    public List<TasksDoneByDate> sortTasksByDate(Sprint sprint) {
-        Optional<List<ItemSprintHistory>> associationsByStatusOptional = findAllAssociationsByStatus(sprint, TaskBoardStatus.DONE, ItemType.TASK, ItemType.BUG);
-        if (associationsByStatusOptional.isPresent()) {
-            List<ItemSprintHistory> associationsByStatus = associationsByStatusOptional.get();
-            //need to set all clocks to 00:00:00 so that it is easier to group by date
-            for (ItemSprintHistory association : associationsByStatus) {
-                Date newDate = Time.setClockToZero(association.getLast_moved());
-                association.setLast_moved(newDate);
-            }
-            //lambda expression is then used to group items by date, and store them into a map
-            Map<Date, List<ItemSprintHistory>> groupedByDate = associationsByStatus.stream()
-                    .collect(Collectors.groupingBy(ItemSprintHistory::getLast_moved));
-            List<TasksDoneByDate> tasksDoneByDatesList = new ArrayList<>(groupedByDate.size());
-            //converting the map into a DTO, mainly for readability issues during code review
-            for (Map.Entry<Date, List<ItemSprintHistory>> entry : groupedByDate.entrySet()) {
-                TasksDoneByDate tasksDoneByDate = new TasksDoneByDate();
-                tasksDoneByDate.setDate(entry.getKey());
-                List<Item> items = sprintService.getAssociatedItemsList(new HashSet<>(entry.getValue()));
-                tasksDoneByDate.setItems(items);
-                tasksDoneByDatesList.add(tasksDoneByDate);
-            }
-            //sort the dates again because the map entries return a set
-            Collections.sort(tasksDoneByDatesList, Comparator.comparing(TasksDoneByDate::getDate));
-            return tasksDoneByDatesList;
-        }
-        return null;
+    @Transactional
+    public void transferUnfinishedItemsFromOldSprint(Sprint oldSprint) {
+        //all the items that were done in the old sprint are finished with one statement, and then the epics/stories
+        //that have nothing left to do under them
+        itemService.finishItemsInSprint(oldSprint, TaskBoardStatus.DONE);
+        itemService.finishCompletedAncestorsOfItemsInSprint(oldSprint);
+        Sprint newSprint = sprintService.createSprint(oldSprint.getProject());
+        //the tasks/bugs that were not done keep their status on the task board, epics/stories without children are
+        //transferred as well, so that they do not get lost, then all their parents (and parents of parents) follow
+        int transferredItems = itemSprintHistoryRepository.copyUnfinishedAssociations(oldSprint.getId(),
+                newSprint.getId(), TaskBoardStatus.DONE.getRepositoryId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId(), ItemType.TASK.getRepositoryId(),
+                ItemType.BUG.getRepositoryId());
+        transferredItems += itemSprintHistoryRepository.insertAssociationsOfAncestors(newSprint.getId(),
+                TaskBoardStatus.NONE.getRepositoryId());
+        itemService.setStatusToAssociatedItems(newSprint, ItemStatus.READY);
+        taskBoardTransitionService.recordAdditions(
+                itemSprintHistoryRepository.findAllBySprintIdAndStatusNot(newSprint.getId(), TaskBoardStatus.NONE));
+        transferredItemsSummary.record(transferredItems);
+        taskBoardService.evictTaskBoard(oldSprint.getId());
+        taskBoardService.evictTaskBoard(newSprint.getId());
     }
 }
@@ -0,0 +1,65 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.repository.LeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * service that hands out the leases of the background work, so that when the application runs on many nodes, each
+ * piece of work is done by one node at a time
+ */
+@Service
+public class LeaseService {
+
+    LeaseRepository leaseRepository;
+
+    /**
+     * the name of this node, unique even if two nodes run on the same host
+     */
+    private final String owner;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param leaseRepository: repository that has access to the leases
+     */
+    @Autowired
+    public LeaseService(LeaseRepository leaseRepository) {
+        this.leaseRepository = leaseRepository;
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        this.owner = host + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * this method tries to take a lease, each statement runs in its own transaction, so the lease is visible to the
+     * other nodes right away
+     *
+     * @param name:     the name of the work that the lease is held for
+     * @param duration: for how long the lease is held, it should be longer than the work itself, in case this node
+     *                  stops before it releases the lease
+     * @return : returns true if this node now holds the lease, false if another node holds it
+     */
+    public boolean acquire(String name, Duration duration) {
+        leaseRepository.createLeaseIfMissing(name);
+        return leaseRepository.acquireLease(name, owner, duration.getSeconds()) == 1;
+    }
+
+    /**
+     * this method frees a lease that this node holds, so that the work can be picked up again right away
+     *
+     * @param name: the name of the work that the lease is held for
+     */
+    public void release(String name) {
+        leaseRepository.releaseLease(name, owner);
+    }
+}
@@ -0,0 +1,237 @@
+package gr.university.thesis.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.Locale;
+
+/**
+ * service that keeps the failed logins of each email, so that an email that keeps failing to login is locked for a
+ * while, and for longer every time it fails again (progressive lockout). The failures are kept in a table of fixed
+ * size that is split in stripes, each one guarded by its own lock, so the memory used stays the same no matter how
+ * many emails are tried (under a credential stuffing attack the emails that failed least recently are forgotten),
+ * and the failures of an email fade away over time (they are halved every 'half life')
+ */
+@Service
+public class LoginAttemptService {
+
+    //the number of stripes must be a power of 2, the stripe of an email is taken from the top bits of its hash
+    private static final int STRIPES = 64;
+    //how many slots next to the slot of an email are checked before the least recent one is replaced
+    private static final int PROBES = 8;
+
+    private final Stripe[] stripes;
+    private final int slotsPerStripe;
+    private final int freeAttempts;
+    private final long halfLife;
+    private final long lockout;
+    private final long maximumLockout;
+    private final Clock clock;
+
+    /**
+     * the failures of the emails that fall in the same stripe, the slots of an email are found by its hash, a slot
+     * with hash 0 is empty
+     */
+    private static class Stripe {
+        final long[] hashes;
+        final double[] failures;
+        final long[] lastFailures;
+
+        Stripe(int slots) {
+            this.hashes = new long[slots];
+            this.failures = new double[slots];
+            this.lastFailures = new long[slots];
+        }
+    }
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param maximumSize:    how many emails are kept at most, rounded up so that every stripe has the same power of 2
+     *                        number of slots
+     * @param freeAttempts:   how many failures an email can have without being locked
+     * @param halfLife:       after how many seconds the failures of an email are halved
+     * @param lockout:        for how many seconds an email is locked the first time, every failure after that doubles it
+     * @param maximumLockout: for how many seconds an email is locked at most
+     */
+    @Autowired
+    public LoginAttemptService(@Value("${login.attempts.maximum-size:16384}") int maximumSize,
+                               @Value("${login.attempts.free-attempts:5}") int freeAttempts,
+                               @Value("${login.attempts.half-life:900}") long halfLife,
+                               @Value("${login.attempts.lockout:30}") long lockout,
+                               @Value("${login.attempts.maximum-lockout:900}") long maximumLockout) {
+        this(maximumSize, freeAttempts, halfLife, lockout, maximumLockout, Clock.systemUTC());
+    }
+
+    /**
+     * constructor of this class with the clock that the failures are timed with, so that the tests can move the time
+     *
+     * @param maximumSize:    how many emails are kept at most
+     * @param freeAttempts:   how many failures an email can have without being locked
+     * @param halfLife:       after how many seconds the failures of an email are halved
+     * @param lockout:        for how many seconds an email is locked the first time
+     * @param maximumLockout: for how many seconds an email is locked at most
+     * @param clock:          the clock that the failures are timed with
+     */
+    LoginAttemptService(int maximumSize, int freeAttempts, long halfLife, long lockout, long maximumLockout,
+                        Clock clock) {
+        int slotsPerStripe = PROBES;
+        while (slotsPerStripe * STRIPES < maximumSize) {
+            slotsPerStripe <<= 1;
+        }
+        this.slotsPerStripe = slotsPerStripe;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+        this.freeAttempts = freeAttempts;
+        this.halfLife = halfLife * 1000;
+        this.lockout = lockout * 1000;
+        this.maximumLockout = maximumLockout * 1000;
+        this.clock = clock;
+    }
+
+    /**
+     * this method records a failed login of an email, it is called for every login with bad credentials, even for
+     * emails that do not belong to any user
+     *
+     * @param email: the email that the user attempted to login with
+     */
+    public void loginFailed(String email) {
+        if (email == null) {
+            return;
+        }
+        long hash = hash(email);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        long now = clock.millis();
+        synchronized (stripe) {
+            int start = (int) hash & (slotsPerStripe - 1);
+            int slot = -1;
+            int leastRecentSlot = start;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int candidate = (start + probe) & (slotsPerStripe - 1);
+                if (stripe.hashes[candidate] == hash) {
+                    slot = candidate;
+                    break;
+                }
+                if (stripe.hashes[candidate] == 0) {
+                    if (slot == -1) {
+                        slot = candidate;
+                    }
+                } else if (stripe.lastFailures[candidate] < stripe.lastFailures[leastRecentSlot]) {
+                    leastRecentSlot = candidate;
+                }
+            }
+            if (slot == -1) {
+                //the table is full around this email, so the email that failed least recently is forgotten
+                slot = leastRecentSlot;
+            }
+            if (stripe.hashes[slot] == hash) {
+                stripe.failures[slot] = decay(stripe.failures[slot], stripe.lastFailures[slot], now) + 1;
+            } else {
+                stripe.hashes[slot] = hash;
+                stripe.failures[slot] = 1;
+            }
+            stripe.lastFailures[slot] = now;
+        }
+    }
+
+    /**
+     * this method forgets the failed logins of an email, it is called when the user logs in successfully
+     *
+     * @param email: the email that the user logged in with
+     */
+    public void loginSucceeded(String email) {
+        if (email == null) {
+            return;
+        }
+        long hash = hash(email);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        synchronized (stripe) {
+            int slot = findSlot(stripe, hash);
+            if (slot != -1) {
+                stripe.hashes[slot] = 0;
+                stripe.failures[slot] = 0;
+                stripe.lastFailures[slot] = 0;
+            }
+        }
+    }
+
+    /**
+     * this method checks whether an email is locked, an email is locked after it has failed more than the free
+     * attempts, for a lockout that doubles with every failure after that, starting from its last failure
+     *
+     * @param email: the email that the user attempts to login with
+     * @return : returns true if the email is locked, false otherwise
+     */
+    public boolean isLocked(String email) {
+        if (email == null) {
+            return false;
+        }
+        long hash = hash(email);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        long failures;
+        long lastFailure;
+        synchronized (stripe) {
+            int slot = findSlot(stripe, hash);
+            if (slot == -1) {
+                return false;
+            }
+            //the failures have faded a little between failures that came right after each other, so they are rounded
+            failures = Math.round(stripe.failures[slot]);
+            lastFailure = stripe.lastFailures[slot];
+        }
+        if (failures <= freeAttempts) {
+            return false;
+        }
+        //the lockout is doubled for every failure after the free attempts, the shift is capped so it does not overflow
+        long shift = Math.min(failures - freeAttempts - 1, 30);
+        long currentLockout = Math.min(lockout << shift, maximumLockout);
+        return clock.millis() < lastFailure + currentLockout;
+    }
+
+    /**
+     * @param stripe: the stripe of the email, its lock must be held
+     * @param hash:   the hash of the email
+     * @return : returns the slot of the email in the stripe, -1 if the email has no failures kept
+     */
+    private int findSlot(Stripe stripe, long hash) {
+        int start = (int) hash & (slotsPerStripe - 1);
+        for (int probe = 0; probe < PROBES; probe++) {
+            int candidate = (start + probe) & (slotsPerStripe - 1);
+            if (stripe.hashes[candidate] == hash) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param failures:    the failures of an email at its last failure
+     * @param lastFailure: when the email last failed to login (in ms)
+     * @param now:         the current time (in ms)
+     * @return : returns the failures of the email now, they are halved for every half life that passed
+     */
+    private double decay(double failures, long lastFailure, long now) {
+        return failures * Math.pow(0.5, (double) (now - lastFailure) / halfLife);
+    }
+
+    /**
+     * the emails are compared without case by the repository, so they are hashed the same way (64 bit FNV-1a, so
+     * that two emails practically never share a slot)
+     *
+     * @param email: the email that the user attempted to login with
+     * @return : returns the hash of the email, never 0 as 0 marks an empty slot
+     */
+    static long hash(String email) {
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
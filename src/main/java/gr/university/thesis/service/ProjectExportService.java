@@ -0,0 +1,146 @@
+package gr.university.thesis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.university.thesis.dto.CommentExportRecord;
+import gr.university.thesis.dto.ItemExportRecord;
+import gr.university.thesis.dto.ItemSprintHistoryExportRecord;
+import gr.university.thesis.repository.CommentRepository;
+import gr.university.thesis.repository.ItemRepository;
+import gr.university.thesis.repository.ItemSprintHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * service that exports the whole backlog and sprint history of a project (items, associations between items and
+ * sprints, comments) in CSV or JSON Lines, the rows are streamed from the database straight to the output, so the
+ * memory used does not depend on the size of the project
+ */
+@Service
+public class ProjectExportService {
+
+    ItemRepository itemRepository;
+    ItemSprintHistoryRepository itemSprintHistoryRepository;
+    CommentRepository commentRepository;
+    ObjectMapper objectMapper;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param itemRepository:              repository that has access to all the items
+     * @param itemSprintHistoryRepository: repository that has access to all the associations between items and sprints
+     * @param commentRepository:           repository that has access to all the comments
+     * @param objectMapper:                the JSON mapper of the application, used to write JSON Lines
+     */
+    @Autowired
+    public ProjectExportService(ItemRepository itemRepository,
+                                ItemSprintHistoryRepository itemSprintHistoryRepository,
+                                CommentRepository commentRepository, ObjectMapper objectMapper) {
+        this.itemRepository = itemRepository;
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+        this.commentRepository = commentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * this method writes the items, then the associations and then the comments of a project, in CSV each kind of
+     * record starts with its own header row, in JSON Lines each line is an object, in both formats the first value of
+     * every record ('record') tells what kind of record it is
+     *
+     * @param projectId: the project that the user requested to export
+     * @param jsonLines: true for JSON Lines, false for CSV
+     * @param writer:    where the records are written to, usually the output stream of the response
+     * @throws IOException : if the records could not be written
+     */
+    @Transactional(readOnly = true)
+    public void exportProject(long projectId, boolean jsonLines, Writer writer) throws IOException {
+        try (Stream<ItemExportRecord> items = itemRepository.streamExportRecordsByProjectId(projectId)) {
+            if (!jsonLines) {
+                writeCsvRow(ItemExportRecord.CSV_HEADER, writer);
+            }
+            Iterator<ItemExportRecord> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                ItemExportRecord item = iterator.next();
+                writeRecord(item, item.csvValues(), jsonLines, writer);
+            }
+        }
+        try (Stream<ItemSprintHistoryExportRecord> associations =
+                     itemSprintHistoryRepository.streamExportRecordsByProjectId(projectId)) {
+            if (!jsonLines) {
+                writeCsvRow(ItemSprintHistoryExportRecord.CSV_HEADER, writer);
+            }
+            Iterator<ItemSprintHistoryExportRecord> iterator = associations.iterator();
+            while (iterator.hasNext()) {
+                ItemSprintHistoryExportRecord association = iterator.next();
+                writeRecord(association, association.csvValues(), jsonLines, writer);
+            }
+        }
+        try (Stream<CommentExportRecord> comments = commentRepository.streamExportRecordsByProjectId(projectId)) {
+            if (!jsonLines) {
+                writeCsvRow(CommentExportRecord.CSV_HEADER, writer);
+            }
+            Iterator<CommentExportRecord> iterator = comments.iterator();
+            while (iterator.hasNext()) {
+                CommentExportRecord comment = iterator.next();
+                writeRecord(comment, comment.csvValues(), jsonLines, writer);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * this method writes one record, either as a JSON object in its own line or as a CSV row
+     *
+     * @param record:    the record that will be written
+     * @param csvValues: the values of the record in the order of its CSV header
+     * @param jsonLines: true for JSON Lines, false for CSV
+     * @param writer:    where the record is written to
+     * @throws IOException : if the record could not be written
+     */
+    private void writeRecord(Object record, List<Object> csvValues, boolean jsonLines, Writer writer)
+            throws IOException {
+        if (jsonLines) {
+            writer.write(objectMapper.writeValueAsString(record));
+            writer.write('\n');
+        } else {
+            writeCsvRow(csvValues, writer);
+        }
+    }
+
+    /**
+     * this method writes one CSV row, values that contain commas, quotes or new lines are quoted, dates are written
+     * in ISO-8601 (UTC) and missing values are left empty
+     *
+     * @param values: the values of the row
+     * @param writer: where the row is written to
+     * @throws IOException : if the row could not be written
+     */
+    private void writeCsvRow(List<?> values, Writer writer) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof Date ? ((Date) value).toInstant().toString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 ||
+                    text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,154 @@
+package gr.university.thesis.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import gr.university.thesis.dto.ProjectMember;
+import gr.university.thesis.entity.User;
+import gr.university.thesis.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * service that manages the member directory of the projects (user_project), the users that own the project or own/are
+ * assigned items in it, the members of each project are kept in a bounded cache, which is invalidated whenever the
+ * members change, its hits, misses and evictions are available in the 'cache.*' metrics (cache=projectMembers)
+ */
+@Service
+public class ProjectMemberService {
+
+    UserRepository userRepository;
+    LoadingCache<Long, List<ProjectMember>> projectMembers;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param userRepository: repository that has access to all the users of the system and their projects
+     * @param meterRegistry:  the registry of the metrics of the application, the cache of the members is monitored
+     * @param maximumSize:    of how many projects the members are kept in the cache at most
+     * @param timeToLive:     for how many seconds the members of a project are kept in the cache
+     */
+    @Autowired
+    public ProjectMemberService(UserRepository userRepository, MeterRegistry meterRegistry,
+                                @Value("${project.members.cache.maximum-size:1000}") long maximumSize,
+                                @Value("${project.members.cache.time-to-live:600}") long timeToLive) {
+        this.userRepository = userRepository;
+        this.projectMembers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(timeToLive))
+                .recordStats()
+                .build(projectId -> Collections.unmodifiableList(userRepository.findMembersOfProject(projectId)));
+        CaffeineCacheMetrics.monitor(meterRegistry, projectMembers, "projectMembers");
+    }
+
+    /**
+     * this method returns the members of a project, mainly used to fill the assignee dropdowns
+     *
+     * @param projectId: the project that the user requested the members of
+     * @return : returns the members of the project, ordered by name
+     */
+    public List<ProjectMember> findMembers(long projectId) {
+        return projectMembers.get(projectId);
+    }
+
+    /**
+     * this method searches for the users whose first name, last name or email starts with what the user typed, the
+     * members of the project are returned first and then (if there is room) the rest of the users, so that someone
+     * who has not worked on the project yet can also be found and assigned
+     *
+     * @param projectId: the project that the user is searching the members of
+     * @param query:     what the user typed
+     * @param limit:     how many users are returned at most
+     * @return : returns the users found
+     */
+    public List<ProjectMember> searchMembers(long projectId, String query, int limit) {
+        String prefix = query.trim().toLowerCase(Locale.ROOT);
+        List<ProjectMember> found = new ArrayList<>(limit);
+        if (prefix.isEmpty() || limit <= 0) {
+            return found;
+        }
+        Set<Long> foundIds = new HashSet<>();
+        for (ProjectMember member : findMembers(projectId)) {
+            if (found.size() == limit) {
+                return found;
+            }
+            if (startsWith(member.getFirstName(), prefix) || startsWith(member.getLastName(), prefix) ||
+                    startsWith(member.getEmail(), prefix)) {
+                found.add(member);
+                foundIds.add(member.getId());
+            }
+        }
+        //'%' and '_' have a special meaning in LIKE, so the ones the user typed are escaped
+        String likePrefix = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        for (ProjectMember user : userRepository.searchByPrefix(likePrefix, PageRequest.of(0, limit))) {
+            if (found.size() == limit) {
+                break;
+            }
+            if (foundIds.add(user.getId())) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param value:  the value of an attribute of a member, might be null
+     * @param prefix: what the user typed, in lower case
+     * @return : returns true if the value starts with what the user typed, ignoring case
+     */
+    private boolean startsWith(String value, String prefix) {
+        return value != null && value.toLowerCase(Locale.ROOT).startsWith(prefix);
+    }
+
+    /**
+     * this method makes a user a member of a project, it is called when the user creates the project, or owns or is
+     * assigned an item in it, the members of the project are removed from the cache only if the user was not already
+     * a member
+     *
+     * @param projectId: the project that the user becomes a member of
+     * @param user:      the user that becomes a member, nothing happens if it is null (for example no assignee)
+     */
+    public void addMember(long projectId, User user) {
+        if (user == null || user.getId() == null || user.getId() == 0) {
+            return;
+        }
+        if (userRepository.addProjectMember(projectId, user.getId()) > 0) {
+            projectMembers.invalidate(projectId);
+        }
+    }
+
+    /**
+     * this method removes all the members of a project, it is called right before the project is deleted
+     *
+     * @param projectId: the project that is going to be deleted
+     */
+    public void removeMembersOfProject(long projectId) {
+        userRepository.deleteMembersOfProject(projectId);
+        projectMembers.invalidate(projectId);
+    }
+
+    /**
+     * this method removes a user from all the projects they are a member of, it is called right before the user is
+     * deleted
+     *
+     * @param userId: the user that is going to be deleted
+     */
+    public void removeMemberships(long userId) {
+        userRepository.deleteMembershipsOfUser(userId);
+        evictAllMembers();
+    }
+
+    /**
+     * this method removes the members of all the projects from the cache, for example when the name or email of a
+     * user changes, as they might be a member of any project
+     */
+    public void evictAllMembers() {
+        projectMembers.invalidateAll();
+    }
+}
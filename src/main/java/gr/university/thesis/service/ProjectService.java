@@ -1,8 +1,9 @@
 package gr.university.thesis.service;
 
 import gr.university.thesis.dto.BurnDownChartData;
-import gr.university.thesis.entity.Item;
+import gr.university.thesis.dto.ProjectStatisticsSummary;
 import gr.university.thesis.entity.Project;
+import gr.university.thesis.entity.ProjectStatistics;
 import gr.university.thesis.entity.Sprint;
 import gr.university.thesis.entity.User;
 import gr.university.thesis.entity.enumeration.ItemStatus;
@@ -10,9 +11,14 @@ import gr.university.thesis.entity.enumeration.ItemType;
 import gr.university.thesis.entity.enumeration.SprintStatus;
 import gr.university.thesis.exceptions.ProjectAlreadyExistsException;
 import gr.university.thesis.exceptions.ProjectHasEmptyTitleException;
+import gr.university.thesis.repository.ItemClosureRepository;
 import gr.university.thesis.repository.ProjectRepository;
+import gr.university.thesis.repository.ProjectStatisticsRepository;
+import gr.university.thesis.repository.SprintBurnRepository;
+import gr.university.thesis.repository.TaskBoardTransitionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.math.RoundingMode;
@@ -26,140 +32,166 @@ import java.util.*;
 public class ProjectService {
 
     ProjectRepository projectRepository;
-    ItemService itemService;
+    ProjectStatisticsRepository projectStatisticsRepository;
+    ItemClosureRepository itemClosureRepository;
+    SprintBurnRepository sprintBurnRepository;
+    TaskBoardTransitionRepository taskBoardTransitionRepository;
     SprintService sprintService;
+    ProjectMemberService projectMemberService;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param projectRepository: repository that has access to all the projects
-     * @param itemService:       service that manages items
-     * @param sprintService:     services that manages sprints
+     * @param projectRepository:             repository that has access to all the projects
+     * @param projectStatisticsRepository:   repository that has access to the statistics of all the projects
+     * @param itemClosureRepository:         repository that has access to the hierarchy of all the items
+     * @param sprintBurnRepository:          repository that has access to the burns of all the sprints
+     * @param taskBoardTransitionRepository: repository that has access to the moves of all the task boards
+     * @param sprintService:                 services that manages sprints
+     * @param projectMemberService:          service that manages the members of the projects
      */
     @Autowired
-    public ProjectService(ProjectRepository projectRepository, ItemService itemService, SprintService sprintService) {
-        this.itemService = itemService;
+    public ProjectService(ProjectRepository projectRepository, ProjectStatisticsRepository projectStatisticsRepository,
+                          ItemClosureRepository itemClosureRepository, SprintBurnRepository sprintBurnRepository,
+                          TaskBoardTransitionRepository taskBoardTransitionRepository,
+                          SprintService sprintService, ProjectMemberService projectMemberService) {
         this.projectRepository = projectRepository;
+        this.projectStatisticsRepository = projectStatisticsRepository;
+        this.itemClosureRepository = itemClosureRepository;
+        this.sprintBurnRepository = sprintBurnRepository;
+        this.taskBoardTransitionRepository = taskBoardTransitionRepository;
         this.sprintService = sprintService;
+        this.projectMemberService = projectMemberService;
     }
 
     /**
-     * this method allows an user to fetch all projects from the repository
+     * this method allows an user to fetch all projects from the repository, the statistics of each project are not
+     * calculated here but read from their rollup, which is kept up to date every time a project is modified
      *
      * @return : returns the list of all the projects
      */
     public List<Project> findAllProjects() {
         List<Project> allProjects = projectRepository.findAll();
+        Map<Long, ProjectStatistics> statisticsByProject = new HashMap<>();
+        for (ProjectStatistics projectStatistics : projectStatisticsRepository.findAll()) {
+            statisticsByProject.put(projectStatistics.getProjectId(), projectStatistics);
+        }
+        //projects created before the rollup existed, need to have it calculated once
+        if (statisticsByProject.size() < allProjects.size()) {
+            for (ProjectStatisticsSummary summary : findAllStatisticsSummaries()) {
+                if (!statisticsByProject.containsKey(summary.getProjectId())) {
+                    statisticsByProject.put(summary.getProjectId(), saveStatistics(summary));
+                }
+            }
+        }
         for (Project project : allProjects) {
-            calculateTotalEffort(project);
-            calculateRemainingEffort(project);
-            calculateEstimatedTotalEffort(project);
-            calculateSprintsNeeded(project);
-            calculateNumberOfExecutedSprints(project);
+            applyStatistics(project, statisticsByProject.get(project.getId()));
         }
         return allProjects;
     }
 
     /**
-     * this method takes a project and calculates the total effort from all its children items within, it doesn't
-     * take into account the stories/epics but rather, the children items of those parents (tasks/bugs etc.)
-     * this method uses the item service to calculate the effort of each parent, before it sets the total effort
-     * of the project
+     * this method calculates the statistics of every project in one query, without loading any items or sprints
      *
-     * @param project: the project that the total effort needs to be calculated
+     * @return : returns a list that contains the statistics of every project
      */
-    public void calculateTotalEffort(Project project) {
-        itemService.calculatedCombinedEffort(project.getItems());
-        int totalEffort = 0;
-        for (Item item : project.getItems()) {
-            if (item.getType() == ItemType.EPIC.getRepositoryId()
-                    || (item.getType() == ItemType.STORY.getRepositoryId()
-                    && item.getParent() == null)
-                    || (item.getParent() == null)) {
-                totalEffort += item.getEffort();
-            }
-        }
-        project.setTotal_effort(totalEffort);
+    public List<ProjectStatisticsSummary> findAllStatisticsSummaries() {
+        return projectRepository.findAllStatisticsSummaries(ItemType.EPIC.getRepositoryId(),
+                ItemType.STORY.getRepositoryId(), ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId(),
+                (byte) SprintStatus.FINISHED.getRepositoryId());
     }
 
     /**
-     * this method takes a project and calculates the remaining effort of all its children items within, it does not
-     * take into account any items that have been finished, it only adds the items that are either in the backlog, or
-     * in the sprint and are stray, for example a story without a parent or a task without a parent will also be
-     * added into the calculations, unlike the calculateTotalEffort method,
+     * this method calculates the statistics of a certain project in one query, without loading any items or sprints
      *
-     * @param project: the project that the remaining effort needs to be calculated
+     * @param projectId: the project that the user requested the statistics of
+     * @return : returns an optional that may contain the statistics of the project
      */
-    public void calculateRemainingEffort(Project project) {
-        itemService.calculateEffortOfUnfinishedItems(project.getItems());
-        int remainingEffort = 0;
-        for (Item item : project.getItems()) {
-            if (item.getType() == ItemType.EPIC.getRepositoryId()
-                    || (item.getType() == ItemType.STORY.getRepositoryId()
-                    && item.getParent() == null)
-                    || (item.getParent() == null && item.getStatus() != ItemStatus.FINISHED.getRepositoryId())) {
-                remainingEffort += item.getEffort();
-            }
-        }
-        project.setRemaining_effort(remainingEffort);
+    public Optional<ProjectStatisticsSummary> findStatisticsSummary(long projectId) {
+        return projectRepository.findStatisticsSummaryByProjectId(projectId, ItemType.EPIC.getRepositoryId(),
+                ItemType.STORY.getRepositoryId(), ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId(),
+                (byte) ItemStatus.FINISHED.getRepositoryId(),
+                (byte) SprintStatus.FINISHED.getRepositoryId());
     }
 
     /**
-     * this method takes a project and calculates the estimated effort of all its chilrden within, the items that are
-     * taken under consideration include the epics and stories(that are stray), and the estimated effort of those
-     * is summed to form the total estimated effort needed to finish the project
+     * this method calculates the statistics of a project and stores them in the repository, it is called every time
+     * the items or the sprints of the project are modified, so that the project panel does not need to calculate them
      *
-     * @param project: the project that the estimated total effort needs to be calculated
+     * @param projectId: the project that the user requested to refresh the statistics of
+     * @return : returns the refreshed statistics, or null if the project does not exist
      */
-    public void calculateEstimatedTotalEffort(Project project) {
-        int estimatedTotalEffort = 0;
-        for (Item item : project.getItems()) {
-            if (item.getType() == ItemType.EPIC.getRepositoryId()
-                    || (item.getType() == ItemType.STORY.getRepositoryId()
-                    && item.getParent() == null)) {
-                estimatedTotalEffort += item.getEstimatedEffort();
-            }
+    @Transactional
+    public ProjectStatistics refreshStatistics(long projectId) {
+        Optional<ProjectStatisticsSummary> summaryOptional = findStatisticsSummary(projectId);
+        return summaryOptional.map(this::saveStatistics).orElse(null);
+    }
+
+    /**
+     * this method stores the statistics calculated by the repository, the estimated sprints needed are calculated
+     * here as they depend on the team velocity
+     *
+     * @param summary: the statistics calculated by the repository
+     * @return : returns the stored statistics
+     */
+    private ProjectStatistics saveStatistics(ProjectStatisticsSummary summary) {
+        ProjectStatistics projectStatistics = projectStatisticsRepository.findById(summary.getProjectId())
+                .orElse(new ProjectStatistics(summary.getProjectId()));
+        projectStatistics.setTotal_effort(summary.getTotalEffort());
+        projectStatistics.setRemaining_effort(summary.getRemainingEffort());
+        projectStatistics.setEstimated_total_effort(summary.getEstimatedTotalEffort());
+        projectStatistics.setEstimated_sprints_needed(calculateSprintsNeeded(summary.getTotalEffort(),
+                summary.getEstimatedTotalEffort(), summary.getTeamVelocity()));
+        projectStatistics.setExecuted_sprints(summary.getExecutedSprints());
+        return projectStatisticsRepository.save(projectStatistics);
+    }
+
+    /**
+     * this method copies the stored statistics of a project to the (transient) attributes of the project, so that
+     * they can be shown to the user
+     *
+     * @param project:           the project that the statistics belong to
+     * @param projectStatistics: the statistics that were stored for this project
+     */
+    private void applyStatistics(Project project, ProjectStatistics projectStatistics) {
+        if (projectStatistics != null) {
+            project.setTotal_effort(projectStatistics.getTotal_effort());
+            project.setRemaining_effort(projectStatistics.getRemaining_effort());
+            project.setEstimated_total_effort(projectStatistics.getEstimated_total_effort());
+            project.setEstimated_sprints_needed(projectStatistics.getEstimated_sprints_needed());
+            project.setExecuted_sprints(projectStatistics.getExecuted_sprints());
         }
-        project.setEstimated_total_effort(estimatedTotalEffort);
     }
 
     /**
-     * this method takes a project and calculates the estimated sprints needed for that project to finish,
+     * this method calculates the estimated sprints needed for a project to finish,
      * the formula used is this: total effort / team velocity
      * if the total effort is 0, then the estimated total effort from all the epics and stories is used instead
      * if both are 0, then the estimation also returns 0
      *
-     * @param project: the project that the estimated total effort needs to be calculated
+     * @param totalEffort:          the total effort of the project
+     * @param estimatedTotalEffort: the estimated total effort of the project
+     * @param teamVelocity:         the velocity of the team working on the project
+     * @return : returns the estimated sprints needed
      */
-    public void calculateSprintsNeeded(Project project) {
+    public long calculateSprintsNeeded(long totalEffort, long estimatedTotalEffort, int teamVelocity) {
         double sprintsNeeded = 0.0;
         //can't divide by 0
-        if (project.getTeam_velocity() != 0) {
+        if (teamVelocity != 0) {
             ///if the project has no tasks in it, then calculate it based on the estimated effort of each epic/story
-            if (project.getTotal_effort() == 0) {
-                sprintsNeeded = project.getEstimated_total_effort() / (double) project.getTeam_velocity();
+            if (totalEffort == 0) {
+                sprintsNeeded = estimatedTotalEffort / (double) teamVelocity;
             }
             //if it has tasks, then calculate the sprints needed based on the effort of the tasks
             else {
-                sprintsNeeded = project.getTotal_effort() / (double) project.getTeam_velocity();
+                sprintsNeeded = totalEffort / (double) teamVelocity;
             }
         }
         //always round the double up, if the total effort is 25 and the velocity 20, then 2 sprints will be needed
         //and not 1
         sprintsNeeded = Math.ceil(sprintsNeeded);
-        project.setEstimated_sprints_needed((long) sprintsNeeded);
-    }
-
-    /**
-     * @param project: the project that the number of already executed sprints needs to be calculated
-     */
-    public void calculateNumberOfExecutedSprints(Project project) {
-        Optional<List<Sprint>> finishedSprintsOptional =
-                sprintService.findSprintsByProjectAndStatus(project, SprintStatus.FINISHED);
-        if (finishedSprintsOptional.isPresent()) {
-            List<Sprint> sprints = finishedSprintsOptional.get();
-            project.setExecuted_sprints(sprints.size());
-        }
+        return (long) sprintsNeeded;
     }
 
     /**
@@ -172,6 +204,16 @@ public class ProjectService {
         return projectRepository.findFirstById(projectId);
     }
 
+    /**
+     * this method allows an user to fetch a certain project from the repository by using the project title
+     *
+     * @param title : the title of the project that the user requested to fetch
+     * @return : returns an optional that may contain the project with that title
+     */
+    public Optional<Project> findProjectByTitle(String title) {
+        return projectRepository.findFirstByTitle(title);
+    }
+
     /**
      * this method allows the creation of a project, and is stored in the repository
      *
@@ -231,7 +273,9 @@ public class ProjectService {
         Project project = new Project(title, description, developersWorking, teamVelocity, sprint_duration, owner);
         //saving it to get the id from the DB
         project = projectRepository.save(project);
+        projectMemberService.addMember(project.getId(), owner);
         sprintService.createSprint(project);
+        refreshStatistics(project.getId());
     }
 
     /**
@@ -300,7 +344,16 @@ public class ProjectService {
      *                   and to be deleted
      */
     public void deleteProject(long projectId) {
+        //the items of the project are also deleted (cascade), so their hierarchy needs to be removed first
+        itemClosureRepository.deleteLinksOfProject(projectId);
+        //same for the burns and the task board moves of the sprints of the project
+        sprintBurnRepository.deleteBurnsOfProject(projectId);
+        taskBoardTransitionRepository.deleteTransitionsOfProject(projectId);
+        projectMemberService.removeMembersOfProject(projectId);
         projectRepository.deleteById(projectId);
+        if (projectStatisticsRepository.existsById(projectId)) {
+            projectStatisticsRepository.deleteById(projectId);
+        }
     }
 
     /**
@@ -367,9 +420,14 @@ public class ProjectService {
         if (projectOptional.isPresent()) {
             project = projectOptional.get();
         }
-        calculateTotalEffort(project);
-        calculateEstimatedTotalEffort(project);
-        calculateSprintsNeeded(project);
+        Optional<ProjectStatisticsSummary> summaryOptional = findStatisticsSummary(projectId);
+        if (summaryOptional.isPresent()) {
+            ProjectStatisticsSummary summary = summaryOptional.get();
+            project.setTotal_effort(summary.getTotalEffort());
+            project.setEstimated_total_effort(summary.getEstimatedTotalEffort());
+            project.setEstimated_sprints_needed(calculateSprintsNeeded(summary.getTotalEffort(),
+                    summary.getEstimatedTotalEffort(), summary.getTeamVelocity()));
+        }
 
         //here, the sprint names (in order) are written in an array called categories
         //counting the Start cell and the current Sprint
@@ -452,6 +510,9 @@ public class ProjectService {
      * @return: returns the project with the id generated by the repository
      */
     public Project save(Project project) {
-        return projectRepository.save(project);
+        project = projectRepository.save(project);
+        //the team velocity might have changed, which changes the estimated sprints needed
+        refreshStatistics(project.getId());
+        return project;
     }
 }
@@ -0,0 +1,206 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.entity.SessionUser;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * service that turns the attributes of the sessions into bytes and back, for the sessions that are kept in the
+ * database. The attributes that the system keeps in the session (userId, userEmail, role) are written as a type byte
+ * followed by their value, the security context only as the email of the user (the user is loaded again through the
+ * cache of the users when the session is read) and the csrf token only as its values, instead of the java
+ * serialization of their classes, which is many times larger. Any other attribute falls back to java serialization
+ */
+@Service
+public class SessionAttributeSerializer implements BeanClassLoaderAware {
+
+    private static final byte SERIALIZED = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte SECURITY_CONTEXT = 5;
+    private static final byte CSRF_TOKEN = 6;
+
+    UserDetailsServiceImpl userDetailsServiceImpl;
+    SerializingConverter serializingConverter = new SerializingConverter();
+    DeserializingConverter deserializingConverter = new DeserializingConverter();
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param userDetailsServiceImpl: service that loads the users, used to restore the security context of a session
+     */
+    @Autowired
+    public SessionAttributeSerializer(UserDetailsServiceImpl userDetailsServiceImpl) {
+        this.userDetailsServiceImpl = userDetailsServiceImpl;
+    }
+
+    /**
+     * the attributes that fall back to java serialization are read with the class loader of the application (which
+     * is not the same as the class loader of spring session when devtools restarts the application)
+     *
+     * @param classLoader: the class loader of the application
+     */
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.deserializingConverter = new DeserializingConverter(classLoader);
+    }
+
+    /**
+     * @param attribute: the value of an attribute of a session, never null (null attributes are removed)
+     * @return : returns the bytes that the attribute is stored as
+     */
+    public byte[] serialize(Object attribute) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            if (attribute instanceof String) {
+                output.writeByte(STRING);
+                writeString((String) attribute, output);
+            } else if (attribute instanceof Long) {
+                output.writeByte(LONG);
+                output.writeLong((Long) attribute);
+            } else if (attribute instanceof Integer) {
+                output.writeByte(INTEGER);
+                output.writeInt((Integer) attribute);
+            } else if (attribute instanceof Boolean) {
+                output.writeByte(BOOLEAN);
+                output.writeBoolean((Boolean) attribute);
+            } else if (isOfSessionUser(attribute)) {
+                output.writeByte(SECURITY_CONTEXT);
+                writeString(((SecurityContext) attribute).getAuthentication().getName(), output);
+            } else if (attribute instanceof CsrfToken) {
+                CsrfToken csrfToken = (CsrfToken) attribute;
+                output.writeByte(CSRF_TOKEN);
+                writeString(csrfToken.getHeaderName(), output);
+                writeString(csrfToken.getParameterName(), output);
+                writeString(csrfToken.getToken(), output);
+            } else {
+                output.writeByte(SERIALIZED);
+                output.write(serializingConverter.convert(attribute));
+            }
+        } catch (IOException e) {
+            //the bytes are written in memory, so this never happens
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes: the bytes that an attribute of a session was stored as
+     * @return : returns the value of the attribute, null if it is the security context of a user that does not exist
+     * anymore (so the user has to login again)
+     */
+    public Object deserialize(byte[] bytes) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte type = input.readByte();
+            switch (type) {
+                case STRING:
+                    return readString(input);
+                case LONG:
+                    return input.readLong();
+                case INTEGER:
+                    return input.readInt();
+                case BOOLEAN:
+                    return input.readBoolean();
+                case SECURITY_CONTEXT:
+                    return restoreSecurityContext(readString(input));
+                case CSRF_TOKEN:
+                    return new DefaultCsrfToken(readString(input), readString(input), readString(input));
+                case SERIALIZED:
+                    return deserializingConverter.convert(Arrays.copyOfRange(bytes, 1, bytes.length));
+                default:
+                    throw new IllegalArgumentException("Unknown type of session attribute: " + type);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param attribute: the value of an attribute of a session
+     * @return : returns true if the attribute is the security context of a user that logged in with the login form
+     */
+    private boolean isOfSessionUser(Object attribute) {
+        if (!(attribute instanceof SecurityContext)) {
+            return false;
+        }
+        Authentication authentication = ((SecurityContext) attribute).getAuthentication();
+        return authentication instanceof UsernamePasswordAuthenticationToken &&
+                authentication.getPrincipal() instanceof SessionUser;
+    }
+
+    /**
+     * this method builds the security context of a session again, with the user as they are now (their roles
+     * included), the password of the user is erased, as spring does after a login
+     *
+     * @param email: the email of the user of the session
+     * @return : returns the security context of the session, null if the user does not exist anymore
+     */
+    private SecurityContext restoreSecurityContext(String email) {
+        SessionUser user;
+        try {
+            user = userDetailsServiceImpl.loadSessionUser(email);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        user.eraseCredentials();
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    /**
+     * this method writes a string as its length (variable length, 1 byte for up to 127 bytes) and its UTF-8 bytes
+     *
+     * @param value:  the string that will be written
+     * @param output: where the string is written to
+     * @throws IOException : if the string could not be written
+     */
+    private void writeString(String value, DataOutputStream output) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int length = utf8.length;
+        while ((length & ~0x7F) != 0) {
+            output.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        output.writeByte(length);
+        output.write(utf8);
+    }
+
+    /**
+     * @param input: where the string is read from
+     * @return : returns a string that was written by writeString
+     * @throws IOException : if the string could not be read
+     */
+    private String readString(DataInputStream input) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int next;
+        do {
+            next = input.readUnsignedByte();
+            length |= (next & 0x7F) << shift;
+            shift += 7;
+        } while ((next & 0x80) != 0);
+        byte[] utf8 = new byte[length];
+        input.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
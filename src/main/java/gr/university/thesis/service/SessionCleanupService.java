@@ -0,0 +1,76 @@
+package gr.university.thesis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * service that deletes the expired sessions from the database in the background, in batches (each one in its own
+ * short transaction) instead of the single statement of spring session, which locks every expired session at once,
+ * the attributes of the sessions are deleted along with them (on delete cascade), the sessions are only deleted by
+ * the node that holds the lease of the cleanup
+ */
+@Service
+@ConditionalOnProperty(name = "spring.session.store-type", havingValue = "jdbc")
+public class SessionCleanupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionCleanupService.class);
+
+    /**
+     * for how long a node keeps the lease of the cleanup, longer than a cleanup should ever take
+     */
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(5);
+    private static final String LEASE_NAME = "session-cleanup";
+
+    JdbcTemplate jdbcTemplate;
+    LeaseService leaseService;
+    int batchSize;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param jdbcTemplate: the jdbc template of the application, the sessions are not entities
+     * @param leaseService: service that makes sure only one node deletes the expired sessions
+     * @param batchSize:    how many sessions are deleted by each statement at most
+     */
+    @Autowired
+    public SessionCleanupService(JdbcTemplate jdbcTemplate, LeaseService leaseService,
+                                 @Value("${session.cleanup.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseService = leaseService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * this method deletes the sessions that have expired, a batch at a time, until a batch is not full
+     *
+     * @return : returns the number of the sessions that were deleted, 0 if another node is deleting them
+     */
+    @Scheduled(initialDelayString = "${session.cleanup.interval:60000}", fixedDelayString = "${session.cleanup.interval:60000}")
+    public int deleteExpiredSessions() {
+        if (!leaseService.acquire(LEASE_NAME, LEASE_DURATION)) {
+            return 0;
+        }
+        int deletedSessions = 0;
+        try {
+            long now = System.currentTimeMillis();
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update("DELETE FROM SPRING_SESSION WHERE EXPIRY_TIME < ? LIMIT ?",
+                        now, batchSize);
+                deletedSessions += deleted;
+            } while (deleted == batchSize);
+        } finally {
+            leaseService.release(LEASE_NAME);
+        }
+        logger.debug("Deleted " + deletedSessions + " expired sessions");
+        return deletedSessions;
+    }
+}
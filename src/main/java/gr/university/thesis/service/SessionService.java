@@ -11,7 +11,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * service that is associated with the management of the session
+ * service that is associated with the management of the session, the sessions are kept in the database (check
+ * SessionConfig), so the attributes set here are written in the compact format of SessionAttributeSerializer
  */
 @Service
 public class SessionService {
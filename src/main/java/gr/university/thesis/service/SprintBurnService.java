@@ -0,0 +1,122 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.dto.BurnedEffort;
+import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.SprintBurn;
+import gr.university.thesis.entity.SprintBurnId;
+import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import gr.university.thesis.repository.ItemSprintHistoryRepository;
+import gr.university.thesis.repository.SprintBurnRepository;
+import gr.university.thesis.util.Time;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * service that keeps the effort burned during each day of a sprint, which is what the burn down chart of the sprint
+ * is drawn from
+ */
+@Service
+public class SprintBurnService {
+
+    SprintBurnRepository sprintBurnRepository;
+    ItemSprintHistoryRepository itemSprintHistoryRepository;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param sprintBurnRepository:        repository that has access to the burns of all the sprints
+     * @param itemSprintHistoryRepository: repository for the history of item/sprint
+     */
+    @Autowired
+    public SprintBurnService(SprintBurnRepository sprintBurnRepository,
+                             ItemSprintHistoryRepository itemSprintHistoryRepository) {
+        this.sprintBurnRepository = sprintBurnRepository;
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+    }
+
+    /**
+     * @param sprint: a sprint that has started
+     * @return : returns the number of days shown in the burn down chart of the sprint, the days of the sprint
+     * (number of weeks * 7) + 2 because the start and finish are included
+     */
+    private int numberOfChartDays(Sprint sprint) {
+        return (int) sprint.getDuration() * 7 + 2;
+    }
+
+    /**
+     * this method recalculates the burns of a sprint from the items that are currently done in it, it is called when
+     * the sprint starts or finishes, and when the burns of a sprint that started before they existed are requested
+     *
+     * @param sprint: the sprint that the user requested to rebuild the burns of, must have started
+     * @return : returns the effort burned during each day of the sprint
+     */
+    @Transactional
+    public int[] rebuildBurns(Sprint sprint) {
+        int[] burnedEffortPerDay = new int[numberOfChartDays(sprint)];
+        List<BurnedEffort> burnedEfforts = itemSprintHistoryRepository.findBurnedEfforts(sprint.getId(),
+                TaskBoardStatus.DONE, ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId());
+        for (BurnedEffort burnedEffort : burnedEfforts) {
+            int dayIndex = Time.calculateDayIndex(sprint.getStart_date(), burnedEffort.getLastMoved());
+            //items done before the start or after the planned end of the sprint are not shown in the chart
+            if (dayIndex >= 0 && dayIndex < burnedEffortPerDay.length) {
+                burnedEffortPerDay[dayIndex] += burnedEffort.getEffort();
+            }
+        }
+        sprintBurnRepository.deleteBySprintId(sprint.getId());
+        List<SprintBurn> sprintBurns = new ArrayList<>(burnedEffortPerDay.length);
+        for (int dayIndex = 0; dayIndex < burnedEffortPerDay.length; dayIndex++) {
+            sprintBurns.add(new SprintBurn(new SprintBurnId(sprint.getId(), dayIndex), burnedEffortPerDay[dayIndex]));
+        }
+        sprintBurnRepository.saveAll(sprintBurns);
+        return burnedEffortPerDay;
+    }
+
+    /**
+     * this method adds the effort of an item that was moved into 'done' to the day it was moved, or subtracts it from
+     * the day it had been moved to 'done', if the item was moved out of 'done'
+     *
+     * @param sprint:  the sprint that the item belongs to
+     * @param movedAt: when the item was moved into 'done' (or when it had been moved into 'done')
+     * @param effort:  the effort of the item, negative if the item was moved out of 'done'
+     */
+    public void addBurnedEffort(Sprint sprint, Date movedAt, int effort) {
+        //the burns only exist for sprints that have started
+        if (sprint.getStart_date() == null || movedAt == null || effort == 0) {
+            return;
+        }
+        int dayIndex = Time.calculateDayIndex(sprint.getStart_date(), movedAt);
+        if (dayIndex >= 0) {
+            sprintBurnRepository.addBurnedEffort(sprint.getId(), dayIndex, effort);
+        }
+    }
+
+    /**
+     * this method returns the effort burned during each day of a sprint, the burns are rebuilt if the sprint has none
+     * (for example sprints that started before the burns existed), the rebuild is called from within this class, so
+     * it runs in the transaction of this method (the transaction of rebuildBurns only applies through the proxy)
+     *
+     * @param sprint: the sprint that the user requested the burns of, must have started
+     * @return : returns the effort burned during each day of the sprint, starting from the day the sprint started
+     */
+    @Transactional
+    public int[] findBurnedEffortPerDay(Sprint sprint) {
+        List<SprintBurn> sprintBurns = sprintBurnRepository.findBySprintId(sprint.getId());
+        if (sprintBurns.isEmpty()) {
+            return rebuildBurns(sprint);
+        }
+        int[] burnedEffortPerDay = new int[numberOfChartDays(sprint)];
+        for (SprintBurn sprintBurn : sprintBurns) {
+            int dayIndex = sprintBurn.getSprintBurnId().getDayIndex();
+            if (dayIndex < burnedEffortPerDay.length) {
+                burnedEffortPerDay[dayIndex] = sprintBurn.getBurnedEffort();
+            }
+        }
+        return burnedEffortPerDay;
+    }
+}
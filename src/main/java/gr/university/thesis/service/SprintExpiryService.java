@@ -0,0 +1,68 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.dto.SprintReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * service that finishes the active sprints whose duration has expired in the background, instead of during the
+ * request of the first user that opens the project, the sprints of a project are only finished by the node that holds
+ * the lease of the project
+ */
+@Service
+public class SprintExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SprintExpiryService.class);
+
+    /**
+     * for how long a node keeps the lease of a project, longer than the rollover of a sprint should ever take
+     */
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(5);
+
+    SprintService sprintService;
+    ItemSprintHistoryService itemSprintHistoryService;
+    LeaseService leaseService;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param sprintService:            service that manages sprints
+     * @param itemSprintHistoryService: service that finishes the sprints and transfers their unfinished items
+     * @param leaseService:             service that makes sure only one node finishes the sprints of a project
+     */
+    @Autowired
+    public SprintExpiryService(SprintService sprintService, ItemSprintHistoryService itemSprintHistoryService,
+                               LeaseService leaseService) {
+        this.sprintService = sprintService;
+        this.itemSprintHistoryService = itemSprintHistoryService;
+        this.leaseService = leaseService;
+    }
+
+    /**
+     * this method finishes all the active sprints that have expired, and transfers their unfinished items to new
+     * sprints, each sprint in its own transaction, so that a sprint that fails does not keep the others from finishing
+     */
+    @Scheduled(initialDelayString = "${sprint.expiry.interval:60000}", fixedDelayString = "${sprint.expiry.interval:60000}")
+    public void finishExpiredSprints() {
+        for (SprintReference sprint : sprintService.findExpiredSprints()) {
+            String leaseName = "sprint-expiry:project:" + sprint.getProjectId();
+            if (!leaseService.acquire(leaseName, LEASE_DURATION)) {
+                //another node is finishing the sprints of this project
+                continue;
+            }
+            try {
+                itemSprintHistoryService.finishSprintAndTransferUnfinishedItems(sprint.getSprintId());
+            } catch (RuntimeException e) {
+                //the sprint is picked up again in the next run
+                logger.error("Could not finish expired sprint " + sprint.getSprintId(), e);
+            } finally {
+                leaseService.release(leaseName);
+            }
+        }
+    }
+}
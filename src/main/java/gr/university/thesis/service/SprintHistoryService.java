@@ -0,0 +1,266 @@
+package gr.university.thesis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.university.thesis.dto.BurnDownChartData;
+import gr.university.thesis.dto.ItemSummary;
+import gr.university.thesis.dto.SprintHistory;
+import gr.university.thesis.dto.TaskDoneOnDay;
+import gr.university.thesis.dto.TasksDoneByDate;
+import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.SprintHistorySnapshot;
+import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.entity.enumeration.SprintStatus;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import gr.university.thesis.repository.ItemSprintHistoryRepository;
+import gr.university.thesis.repository.SprintHistorySnapshotRepository;
+import gr.university.thesis.util.Time;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * service that calculates the history page of the sprints (burn down chart, cumulative flow diagram and the tasks/bugs
+ * done per day), the history of a finished sprint never changes, so it is stored once when the sprint finishes and
+ * read from then on, only the history of a sprint that has not finished is calculated every time it is viewed
+ */
+@Service
+public class SprintHistoryService {
+
+    SprintService sprintService;
+    SprintBurnService sprintBurnService;
+    TaskBoardTransitionService taskBoardTransitionService;
+    ItemSprintHistoryRepository itemSprintHistoryRepository;
+    SprintHistorySnapshotRepository sprintHistorySnapshotRepository;
+    ObjectMapper objectMapper;
+    ZoneId timeZone;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param sprintService:                   service that manages sprints
+     * @param sprintBurnService:               service that manages the effort burned during each day of the sprints
+     * @param taskBoardTransitionService:      service that keeps the log of the moves on the task boards
+     * @param itemSprintHistoryRepository:     repository for the history of item/sprint
+     * @param sprintHistorySnapshotRepository: repository that has access to the stored histories of the sprints
+     * @param objectMapper:                    the JSON mapper of the application, the histories are stored in JSON
+     * @param timeZone:                        the time zone that the tasks done are grouped by day in, the time zone
+     *                                         of the application if it is not set
+     */
+    @Autowired
+    public SprintHistoryService(SprintService sprintService, SprintBurnService sprintBurnService,
+                                TaskBoardTransitionService taskBoardTransitionService,
+                                ItemSprintHistoryRepository itemSprintHistoryRepository,
+                                SprintHistorySnapshotRepository sprintHistorySnapshotRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${sprint.history.time-zone:}") String timeZone) {
+        this.sprintService = sprintService;
+        this.sprintBurnService = sprintBurnService;
+        this.taskBoardTransitionService = taskBoardTransitionService;
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+        this.sprintHistorySnapshotRepository = sprintHistorySnapshotRepository;
+        this.objectMapper = objectMapper;
+        this.timeZone = timeZone.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(timeZone);
+    }
+
+    /**
+     * this method returns the history of a sprint, if the sprint has finished, its stored history is read (and if it
+     * has none, for example sprints that finished before the histories were stored, it is stored now), otherwise the
+     * history is calculated
+     *
+     * @param sprint: the sprint that the user requested the history of
+     * @return : returns the history of the sprint
+     */
+    @Transactional
+    public SprintHistory findSprintHistory(Sprint sprint) {
+        if (sprint.getStatus() != SprintStatus.FINISHED.getRepositoryId()) {
+            return calculateSprintHistory(sprint);
+        }
+        Optional<SprintHistorySnapshot> snapshotOptional = sprintHistorySnapshotRepository.findById(sprint.getId());
+        if (snapshotOptional.isPresent()) {
+            try {
+                return objectMapper.readValue(snapshotOptional.get().getDocument(), SprintHistory.class);
+            } catch (IOException e) {
+                //a history that can not be read (for example stored by an older version) is calculated again
+                return calculateSprintHistory(sprint);
+            }
+        }
+        //if someone else stores the history at the same time, it is the same history, so theirs is kept
+        return freezeSprintHistory(sprint);
+    }
+
+    /**
+     * this method calculates the history of a sprint and stores it (if it is not stored already), it is called when
+     * the sprint finishes, as from then on its history does not change
+     *
+     * @param sprint: the sprint that finished
+     * @return : returns the history that was stored
+     */
+    @Transactional
+    public SprintHistory freezeSprintHistory(Sprint sprint) {
+        SprintHistory sprintHistory = calculateSprintHistory(sprint);
+        String document;
+        try {
+            document = objectMapper.writeValueAsString(sprintHistory);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sprint history could not be written to JSON.", e);
+        }
+        sprintHistorySnapshotRepository.insertIfMissing(sprint.getId(), document, new Date());
+        return sprintHistory;
+    }
+
+    /**
+     * this method calculates the history of a sprint from its items, burns and the moves on its task board
+     *
+     * @param sprint: the sprint that the user requested the history of
+     * @return : returns the history of the sprint
+     */
+    public SprintHistory calculateSprintHistory(Sprint sprint) {
+        return new SprintHistory(calculateBurnDownChartData(sprint),
+                taskBoardTransitionService.calculateCumulativeFlowForSprint(sprint), sortTasksByDate(sprint));
+    }
+
+    /**
+     * this method calculates all the necessary data for the burn down chart in the history page of every sprint
+     * it calculates the duration of the sprint in days and puts them in a ordered array named categories
+     * it calculates the ideal burn of effort by dividing the total sprint effort with the number of developers
+     * included in the project, and puts every ideal burn of effort per day in an array
+     * it calculates the actual burn of effort from the effort burned during each day (kept by the sprint burn service)
+     * and puts them in an array
+     *
+     * @param sprint: the sprint that the user requested to calculate the burn down chart data of
+     * @return : returns a DTO that contains all the necessary data that need to be transferred to the user interface\
+     * and concern the burndown chart
+     */
+    public BurnDownChartData calculateBurnDownChartData(Sprint sprint) {
+        Optional<Sprint> sprintOptional = sprintService.findSprintById(sprint);
+        if (sprintOptional.isPresent()) {
+            sprint = sprintOptional.get();
+            //the totals are calculated with one query (and stored once the sprint has finished)
+            int totalSprintEffort = sprintService.findSummary(sprint).getTotalEffort().intValue();
+
+            //number of weeks * 7
+            int numberOfDays = (int) sprint.getDuration() * 7;
+            //for readability issues
+            Date startingDate = sprint.getStart_date();
+            Date nextDate = startingDate;
+
+            //+2 because the start and finish are included, counting the Start string and the last Day (Wed)
+            String[] categories = new String[numberOfDays + 2];
+            //setting the starting cell manually
+            categories[0] = "Start";
+            for (int i = 1; i < categories.length; i++) {
+                String nextDay = Time.findDay(nextDate);
+                categories[i] = nextDay;
+                nextDate = Time.incrementDateByOne(nextDate);
+            }
+            //outside the loop, setting the last cell manually
+            categories[numberOfDays + 1] += "(Finish)";
+
+            int[] actualBurn = new int[numberOfDays + 2];
+            actualBurn[0] = totalSprintEffort;
+            //the effort burned during each day is kept up to date while items are moved, so only one row per day is read
+            int[] burnedEffortPerDay = sprintBurnService.findBurnedEffortPerDay(sprint);
+            int todayIndex = Time.calculateDayIndex(startingDate, new Date());
+            //for readability issues
+            int previousEffort = totalSprintEffort;
+            //cell i + 1 of the actual burn is the remaining effort at the end of day i of the sprint
+            for (int i = 0; i < actualBurn.length - 1; i++) {
+                //if the day is later than today, only take the burns of earlier days and today
+                if (i > todayIndex) {
+                    actualBurn = Arrays.copyOfRange(actualBurn, 0, i + 1);
+                    break;
+                }
+                //if the day had no actual burns, for example Saturday/Sunday, the effort stays the same as the previous
+                //day, for example the same as Friday (as no tasks were completed during off days)
+                actualBurn[i + 1] = previousEffort - burnedEffortPerDay[i];
+                //if the burn is below 0, then set it to 0, as the graph should never show below 0 (just making sure)
+                if (actualBurn[i + 1] <= 0) {
+                    actualBurn[i + 1] = 0;
+                    //actually ending the actual remaining graph to the point it reaches 0
+                    actualBurn = Arrays.copyOfRange(actualBurn, 0, i + 2);
+                    break;
+                }
+                //setting the effort, to the current iterated cell
+                previousEffort = actualBurn[i + 1];
+            }
+
+            //here, the ideal burn for each sprint is calculated
+            double[] ideal_burn = new double[numberOfDays + 2];
+            ideal_burn[0] = totalSprintEffort;
+            double nextEffort = totalSprintEffort;
+            //double needed because the division might be a decimal, and an accurate representation is required
+            double ideal_effort_burn = (double) totalSprintEffort / (numberOfDays + 1);
+            //limiting decimals to two:
+            DecimalFormat df = new DecimalFormat("#.##");
+            df.setRoundingMode(RoundingMode.HALF_EVEN);
+
+            for (int i = 1; i < ideal_burn.length; i++) {
+                //formatting returns a String, so parsing is needed
+                ideal_burn[i] = Double.parseDouble(df.format(nextEffort - ideal_effort_burn));
+                //here, having a number below 0 is possible, so it should be avoided
+                if (ideal_burn[i] < 0) {
+                    ideal_burn[i] = 0;
+                }
+                //this should also be called previous effort (most likely), setting the effort calculated for the
+                // previous cell, for the next subtraction
+                nextEffort = ideal_burn[i];
+            }
+            boolean possibleDelay = false;
+            boolean earlierFinish = false;
+            //if the sprint is not the current active one, then there is no point in warning the user
+
+            if (sprint.getStatus() == SprintStatus.ACTIVE.getRepositoryId()) {
+                //if the latest actual burn is more than the ideal burn of that day, then there is a problem
+                //and the user needs to be warned
+                if (actualBurn[actualBurn.length - 1] > ideal_burn[actualBurn.length - 1]) {
+                    possibleDelay = true;
+                }
+                //if the actual burn reaches 0 and the length of the actual burn array is shorter than the ideal burn
+                //array (which means the former reaches 0 first), then notify user about early finish
+                if (actualBurn[actualBurn.length - 1] == 0 && actualBurn.length < ideal_burn.length) {
+                    earlierFinish = true;
+                }
+
+            }
+            return new BurnDownChartData(categories, ideal_burn, actualBurn, possibleDelay, earlierFinish);
+        }
+        return null;
+    }
+
+    /**
+     * this method takes as input a sprint, and collects all the tasks/bugs that are done in it, the database
+     * calculates the day each one was done and returns them ordered by day, so a new DTO (containing the list of items
+     * of that day) is started whenever the day changes, the DTOs are then shown in the user interface during the
+     * sprint task history template
+     *
+     * @param sprint: the sprint that the user requested to sort the tasks of and show to the sprint history
+     * @return : returns a list of DTOs, that contain all the items, grouped by date
+     */
+    public List<TasksDoneByDate> sortTasksByDate(Sprint sprint) {
+        List<TaskDoneOnDay> tasksDoneOnDay = itemSprintHistoryRepository.findTasksDoneOnDay(sprint.getId(),
+                TaskBoardStatus.DONE.getRepositoryId(), ItemType.TASK.getRepositoryId(),
+                ItemType.BUG.getRepositoryId(), ZoneId.systemDefault().getId(), timeZone.getId());
+        List<TasksDoneByDate> tasksDoneByDatesList = new ArrayList<>();
+        TasksDoneByDate tasksDoneByDate = null;
+        for (TaskDoneOnDay taskDoneOnDay : tasksDoneOnDay) {
+            //the day is copied into a plain date, so that it is written to JSON like every other date
+            Date day = new Date(taskDoneOnDay.getDay().getTime());
+            if (tasksDoneByDate == null || !tasksDoneByDate.getDate().equals(day)) {
+                tasksDoneByDate = new TasksDoneByDate();
+                tasksDoneByDate.setDate(day);
+                tasksDoneByDatesList.add(tasksDoneByDate);
+            }
+            tasksDoneByDate.getItems().add(new ItemSummary(taskDoneOnDay.getId(), taskDoneOnDay.getTitle(),
+                    taskDoneOnDay.getEffort()));
+        }
+        return tasksDoneByDatesList;
+    }
+}
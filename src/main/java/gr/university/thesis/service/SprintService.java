@@ -1,15 +1,21 @@
 package gr.university.thesis.service;
 
+import gr.university.thesis.dto.SprintReference;
 import gr.university.thesis.entity.Item;
 import gr.university.thesis.entity.ItemSprintHistory;
 import gr.university.thesis.entity.Project;
 import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.SprintSummary;
 import gr.university.thesis.entity.enumeration.*;
+import gr.university.thesis.event.ProjectModifiedEvent;
 import gr.university.thesis.exceptions.SprintHasZeroEffortException;
+import gr.university.thesis.repository.ItemSprintHistoryRepository;
 import gr.university.thesis.repository.SprintRepository;
 import gr.university.thesis.util.Time;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,18 +27,30 @@ import java.util.stream.Collectors;
 public class SprintService {
 
     ItemService itemService;
+    SprintBurnService sprintBurnService;
     SprintRepository sprintRepository;
+    ItemSprintHistoryRepository itemSprintHistoryRepository;
+    ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param itemService:      service that manages items
-     * @param sprintRepository: repository that has access to all sprints
+     * @param itemService:                 service that manages items
+     * @param sprintBurnService:           service that manages the effort burned during each day of the sprints
+     * @param sprintRepository:            repository that has access to all sprints
+     * @param itemSprintHistoryRepository: repository for the history of item/sprint, used for the totals of the
+     *                                     sprints
+     * @param applicationEventPublisher:   publisher used to notify the rest of the system that a project was modified
      */
     @Autowired
-    public SprintService(ItemService itemService, SprintRepository sprintRepository) {
+    public SprintService(ItemService itemService, SprintBurnService sprintBurnService,
+                         SprintRepository sprintRepository, ItemSprintHistoryRepository itemSprintHistoryRepository,
+                         ApplicationEventPublisher applicationEventPublisher) {
         this.itemService = itemService;
+        this.sprintBurnService = sprintBurnService;
         this.sprintRepository = sprintRepository;
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     /**
@@ -89,7 +107,7 @@ public class SprintService {
     }
 
     /**
-     * this methods starts a sprint and moves it to an active state
+     * this methods starts a sprint and moves it to an active state, together with its items, all in one transaction
      *
      * @param sprintId    : the sprint that the user wants to start
      * @param sprintGoal: the goal of the sprint, what do the users want to achieve by the time this sprint has
@@ -97,48 +115,76 @@ public class SprintService {
      * @throws SprintHasZeroEffortException : this exception is thrown when there are no tasks/bugs in the sprint, and the user
      *                                      * is trying to start it
      */
+    @Transactional
     public void startSprint(long sprintId, String sprintGoal) throws SprintHasZeroEffortException {
         Optional<Sprint> sprintOptional = findSprintById(new Sprint(sprintId));
-        if (sprintOptional.isPresent()) {
+        //a sprint that was already started (for example by someone else in the meantime) is left as it is
+        if (sprintOptional.isPresent() && sprintOptional.get().getStatus() == SprintStatus.READY.getRepositoryId()) {
             Sprint sprint = sprintOptional.get();
             calculateTotalEffort(sprint);
             if (sprint.getTotal_effort() == 0) {
                 throw new SprintHasZeroEffortException("The sprint cannot have 0 total effort.");
             }
-            sprint.setStatus((byte) SprintStatus.ACTIVE.getRepositoryId());
             Date now = new Date();
-            sprint.setStart_date(now);
             int sprintDuration = sprint.getProject().getSprint_duration();
             Date endDate = Time.calculateEndDate(now, sprintDuration);
-            sprint.setEnd_date(endDate);
             //example of input handling, not in the scope of this project
             if (sprintGoal.isEmpty()) {
                 sprintGoal = "Goal not specified";
             } else {
                 sprintGoal = sprintGoal.trim();
             }
-            sprint.setGoal(sprintGoal);
-            sprint.setDuration(sprintDuration);
-            for (Item item : getAssociatedItemsList(sprint.getAssociatedItems())) {
-                itemService.setStatusToItemAndChildren(item, ItemStatus.ACTIVE);
+            //only one of the requests that try to start the sprint at the same time actually starts it, the others
+            //leave it as it is
+            if (sprintRepository.startSprintIfReady(sprintId, (byte) SprintStatus.ACTIVE.getRepositoryId(),
+                    (byte) SprintStatus.READY.getRepositoryId(), now, endDate, sprintGoal, sprintDuration) == 0) {
+                return;
+            }
+            sprintOptional = findSprintById(new Sprint(sprintId));
+            if (sprintOptional.isPresent()) {
+                sprint = sprintOptional.get();
+                //all the items of the sprint (and their descendants) become active with one statement
+                itemService.setStatusToItemsInSprint(sprint, ItemStatus.ACTIVE);
+                //the burn down chart of the sprint starts from here
+                sprintBurnService.rebuildBurns(sprint);
             }
-            sprintRepository.save(sprint);
         }
     }
 
+    /**
+     * this method finds the active sprints whose duration has expired, which need to be finished
+     *
+     * @return : returns the ids of the expired sprints and of their projects
+     */
+    public List<SprintReference> findExpiredSprints() {
+        return sprintRepository.findReferencesByStatusAndEndDateBefore((byte) SprintStatus.ACTIVE.getRepositoryId(),
+                new Date());
+    }
+
     /**
      * this methods finishes a sprint and moves it to a finish state
      *
      * @param sprintId: the sprint that the user wants to finish
-     * @return : returns an optional with the new sprint (if everything went successfully)
+     * @return : returns an optional with the new sprint (if everything went successfully), empty if the sprint is not
+     * active (for example because someone else finished it in the meantime)
      */
     public Optional<Sprint> finishSprint(long sprintId) {
+        //only one of the requests that try to finish the sprint at the same time actually finishes it, this is also
+        //safe inside a larger transaction, where a failed optimistic lock would mark the whole transaction for rollback
+        if (sprintRepository.finishSprintIfActive(sprintId, (byte) SprintStatus.FINISHED.getRepositoryId(),
+                (byte) SprintStatus.ACTIVE.getRepositoryId(), new Date()) == 0) {
+            return Optional.empty();
+        }
         Optional<Sprint> sprintOptional = findSprintById(new Sprint(sprintId));
         if (sprintOptional.isPresent()) {
             Sprint sprint = sprintOptional.get();
-            sprint.setStatus((byte) SprintStatus.FINISHED.getRepositoryId());
-            sprint.setEnd_date(new Date());
-            sprintOptional = Optional.of(sprintRepository.save(sprint));
+            //the totals of the sprint are stored once and for all
+            applySummary(sprint, findSummary(sprint));
+            //the burns are recalculated one last time, so that the history of the sprint is exact
+            sprintBurnService.rebuildBurns(sprint);
+            sprintOptional = Optional.of(sprint);
+            //the number of executed sprints of the project has changed
+            applicationEventPublisher.publishEvent(new ProjectModifiedEvent(this, sprint.getProject().getId()));
             return sprintOptional;
         }
         return sprintOptional;
@@ -204,34 +250,58 @@ public class SprintService {
         Optional<List<Sprint>> finishedSprintsOptionals =
                 sprintRepository.findSprintsByProjectAndStatusOrderByIdDesc(project, (byte) sprintStatus.getRepositoryId());
         if (finishedSprintsOptionals.isPresent()) {
-            List<Sprint> finishedSprints = finishedSprintsOptionals.get();
-            List<Sprint> sprintsWithoutTasks = new ArrayList<>();
-            //getting the sprint ready before showing it
-            for (Sprint sprint : finishedSprints) {
-                boolean containsTasks = false;
+            Iterator<Sprint> iterator = finishedSprintsOptionals.get().iterator();
+            while (iterator.hasNext()) {
+                Sprint sprint = iterator.next();
+                //the stored totals are used, so the associations and the items of the sprints are not loaded
+                SprintSummary summary = findSummary(sprint);
                 //if the sprint does not contain any tasks, then the sprint should be removed from this list, as it
                 //will show an empty sprint in the sprint history page
-                //this should be replaced with a more efficient algorithm, one for example which directly takes tasks/bugs
-                //from the database, if the optional receiving is null, then skip etc.
-                for (ItemSprintHistory ish : sprint.getAssociatedItems()) {
-                    if (ish.getItem().getType() == ItemType.TASK.getRepositoryId()
-                            || ish.getItem().getType() == ItemType.BUG.getRepositoryId()) {
-                        containsTasks = true;
-                        break;
-                    }
-                }
-                if (!containsTasks) {
-                    sprintsWithoutTasks.add(sprint);
+                if (summary.getTaskCount() == 0) {
+                    iterator.remove();
                     continue;
                 }
-                calculateTotalEffort(sprint);
-                calculateVelocity(sprint);
+                applySummary(sprint, summary);
             }
-            finishedSprints.removeAll(sprintsWithoutTasks);
         }
         return finishedSprintsOptionals;
     }
 
+    /**
+     * this method returns the totals of a sprint (total effort, velocity, number of tasks/bugs and how many of them
+     * were done), the totals of a finished sprint are stored the first time they are calculated (when the sprint
+     * finishes, or the first time they are requested, for sprints that finished before the totals were stored) and
+     * are never calculated again
+     *
+     * @param sprint: the sprint that the user requested the totals of
+     * @return : returns the totals of the sprint
+     */
+    public SprintSummary findSummary(Sprint sprint) {
+        if (sprint.getSummary() != null) {
+            return sprint.getSummary();
+        }
+        SprintSummary summary = itemSprintHistoryRepository.calculateSummary(sprint.getId(), TaskBoardStatus.DONE,
+                ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId());
+        if (sprint.getStatus() == SprintStatus.FINISHED.getRepositoryId()) {
+            sprintRepository.storeSummaryIfMissing(sprint.getId(), summary.getTotalEffort(), summary.getVelocity(),
+                    summary.getTaskCount(), summary.getDoneCount());
+            sprint.setSummary(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * this method copies the totals of a sprint to its (transient) total effort and velocity, so that they can be
+     * shown to the user
+     *
+     * @param sprint:  the sprint that the totals belong to
+     * @param summary: the totals of the sprint
+     */
+    private void applySummary(Sprint sprint, SprintSummary summary) {
+        sprint.setTotal_effort(summary.getTotalEffort());
+        sprint.setVelocity(summary.getVelocity().intValue());
+    }
+
     /**
      * this method takes as input a sprint, and by adding all the effort from the items with type task or bug and
      * task board status of 'Done', it calculates the velocity of the sprint
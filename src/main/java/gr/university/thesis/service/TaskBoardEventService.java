@@ -0,0 +1,202 @@
+package gr.university.thesis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.university.thesis.dto.TaskBoardMove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * service that pushes the moves of the cards of the task boards to the browsers that show them (Server-Sent Events),
+ * the connections are kept open asynchronously, so no request thread is held per subscriber, and the moves are sent
+ * by a small pool of threads of this service
+ */
+@Service
+public class TaskBoardEventService {
+
+    /**
+     * how long a subscription stays open, after that the browser reconnects on its own
+     */
+    private static final long SUBSCRIPTION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * how often an empty comment is sent to every subscriber, so that closed connections are found and removed
+     */
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    ObjectMapper objectMapper;
+
+    /**
+     * the open subscriptions, by the id of the sprint whose task board they show
+     */
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * the threads that send the events, a slow subscriber only delays the events of its own task board
+     */
+    private final ExecutorService senders = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), daemonThreads("task-board-events"));
+
+    /**
+     * the thread that sends the heartbeats
+     */
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            daemonThreads("task-board-heartbeats"));
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param objectMapper: the JSON mapper of the application, each move is written to JSON once for all subscribers
+     */
+    @Autowired
+    public TaskBoardEventService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param name: the prefix of the names of the threads
+     * @return : returns a factory of daemon threads, so that the threads never keep the application from stopping
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setName(name + "-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * this method opens a subscription to the moves of the task board of a sprint
+     *
+     * @param sprintId: the sprint whose task board the user is looking at
+     * @return : returns the emitter that the moves will be sent through, it is returned by the controller so that the
+     * response stays open
+     */
+    public SseEmitter subscribe(long sprintId) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MILLIS);
+        Set<SseEmitter> sprintSubscribers = subscribers.computeIfAbsent(sprintId,
+                id -> ConcurrentHashMap.newKeySet());
+        sprintSubscribers.add(emitter);
+        Runnable unsubscribe = () -> unsubscribe(sprintId, emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    /**
+     * this method removes a subscription, the set of the sprint is removed as well when it becomes empty
+     *
+     * @param sprintId: the sprint of the subscription
+     * @param emitter:  the emitter of the subscription
+     */
+    private void unsubscribe(long sprintId, SseEmitter emitter) {
+        subscribers.computeIfPresent(sprintId, (id, sprintSubscribers) -> {
+            sprintSubscribers.remove(emitter);
+            return sprintSubscribers.isEmpty() ? null : sprintSubscribers;
+        });
+    }
+
+    /**
+     * this method sends a move to everyone looking at the task board of the sprint, if there is a transaction the move
+     * is only sent after it commits, so that a move that was rolled back is never shown
+     *
+     * @param move: the move of the card
+     */
+    public void publishMove(TaskBoardMove move) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    broadcastMove(move);
+                }
+            });
+        } else {
+            broadcastMove(move);
+        }
+    }
+
+    /**
+     * this method writes the move to JSON once and hands it to the senders, nothing happens if nobody is looking at
+     * the task board
+     *
+     * @param move: the move of the card
+     */
+    private void broadcastMove(TaskBoardMove move) {
+        Set<SseEmitter> sprintSubscribers = subscribers.get(move.getSprintId());
+        if (sprintSubscribers == null || sprintSubscribers.isEmpty()) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(move);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Task board move could not be written to JSON.", e);
+        }
+        senders.execute(() -> {
+            for (SseEmitter emitter : sprintSubscribers) {
+                send(move.getSprintId(), emitter, SseEmitter.event().name("move").data(data,
+                        MediaType.APPLICATION_JSON));
+            }
+        });
+    }
+
+    /**
+     * this method sends an empty comment to all the subscribers, the subscriptions whose connection was closed fail
+     * and are removed
+     */
+    private void sendHeartbeats() {
+        for (Map.Entry<Long, Set<SseEmitter>> entry : subscribers.entrySet()) {
+            senders.execute(() -> {
+                for (SseEmitter emitter : entry.getValue()) {
+                    send(entry.getKey(), emitter, SseEmitter.event().comment(""));
+                }
+            });
+        }
+    }
+
+    /**
+     * this method sends one event to one subscriber, if the connection is closed the subscription is removed (the
+     * container completes the response on its own)
+     *
+     * @param sprintId: the sprint of the subscription
+     * @param emitter:  the emitter of the subscription
+     * @param event:    the event that will be sent
+     */
+    private void send(long sprintId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(sprintId, emitter);
+        }
+    }
+
+    /**
+     * this method closes all the subscriptions and stops the threads of this service, when the application stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        for (Set<SseEmitter> sprintSubscribers : subscribers.values()) {
+            for (SseEmitter emitter : sprintSubscribers) {
+                emitter.complete();
+            }
+        }
+        subscribers.clear();
+    }
+}
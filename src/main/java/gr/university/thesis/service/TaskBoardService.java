@@ -0,0 +1,124 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.dto.TaskBoard;
+import gr.university.thesis.dto.TaskBoardCard;
+import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import gr.university.thesis.repository.ItemSprintHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * service that loads the task boards of the sprints and keeps them in a cache, so that a task board is only read from
+ * the repository again after something on it has changed
+ */
+@Service
+public class TaskBoardService {
+
+    /**
+     * the maximum number of task boards kept in the cache, when it is reached the cache starts over
+     */
+    private static final int MAX_CACHED_TASK_BOARDS = 500;
+
+    ItemSprintHistoryRepository itemSprintHistoryRepository;
+
+    /**
+     * the cached task boards, by the id of their sprint
+     */
+    private final Map<Long, TaskBoard> taskBoards = new ConcurrentHashMap<>();
+
+    /**
+     * increased on every eviction, so that a task board that was being loaded while it was evicted is not cached
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param itemSprintHistoryRepository: repository for the history of item/sprint
+     */
+    @Autowired
+    public TaskBoardService(ItemSprintHistoryRepository itemSprintHistoryRepository) {
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+    }
+
+    /**
+     * this method returns the task board of a sprint (its tasks and bugs grouped by column), from the cache if it is
+     * there, otherwise it is loaded with one query and grouped in memory
+     *
+     * @param sprint: the sprint that the user requested the task board of, its project must be set
+     * @return : returns the task board of the sprint
+     */
+    public TaskBoard findTaskBoard(Sprint sprint) {
+        TaskBoard taskBoard = taskBoards.get(sprint.getId());
+        if (taskBoard != null) {
+            return taskBoard;
+        }
+        long evictionsBeforeLoading = evictions.get();
+        List<TaskBoardCard> cards = itemSprintHistoryRepository.findTaskBoardCards(sprint.getId(),
+                ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId());
+        Map<TaskBoardStatus, List<TaskBoardCard>> cardsByStatus = new EnumMap<>(TaskBoardStatus.class);
+        for (TaskBoardCard card : cards) {
+            cardsByStatus.computeIfAbsent(card.getStatus(), status -> new ArrayList<>()).add(card);
+        }
+        taskBoard = new TaskBoard(sprint.getProject().getId(), cardsByStatus);
+        //if something was evicted in the meantime, the task board might already be out of date
+        if (evictions.get() == evictionsBeforeLoading) {
+            if (taskBoards.size() >= MAX_CACHED_TASK_BOARDS) {
+                taskBoards.clear();
+            }
+            taskBoards.put(sprint.getId(), taskBoard);
+        }
+        return taskBoard;
+    }
+
+    /**
+     * this method removes the task board of a sprint from the cache, it is called every time a card of the sprint is
+     * added, moved or removed
+     *
+     * @param sprintId: the sprint whose task board has changed
+     */
+    public void evictTaskBoard(long sprintId) {
+        evict(() -> taskBoards.remove(sprintId));
+    }
+
+    /**
+     * this method removes the task boards of all the sprints of a project from the cache, it is called every time
+     * the items of the project are modified (titles, efforts, assignees etc.)
+     *
+     * @param projectId: the project whose items have changed
+     */
+    public void evictTaskBoardsOfProject(long projectId) {
+        evict(() -> taskBoards.values().removeIf(taskBoard -> taskBoard.getProjectId() == projectId));
+    }
+
+    /**
+     * this method evicts right away and, if there is a transaction, once more after it completes, so that a task board
+     * read by another request before the changes were committed does not stay in the cache
+     *
+     * @param eviction: what needs to be removed from the cache
+     */
+    private void evict(Runnable eviction) {
+        evictions.incrementAndGet();
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictions.incrementAndGet();
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
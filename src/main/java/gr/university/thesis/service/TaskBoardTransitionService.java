@@ -0,0 +1,281 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.dto.AssociationStatus;
+import gr.university.thesis.dto.CumulativeFlowData;
+import gr.university.thesis.dto.TransitionRecord;
+import gr.university.thesis.entity.ItemSprintHistory;
+import gr.university.thesis.entity.Sprint;
+import gr.university.thesis.entity.TaskBoardTransition;
+import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.entity.enumeration.SprintStatus;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import gr.university.thesis.repository.ItemSprintHistoryRepository;
+import gr.university.thesis.repository.SprintRepository;
+import gr.university.thesis.repository.TaskBoardTransitionRepository;
+import gr.university.thesis.util.Time;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * service that keeps the log of every move of the items on the task boards of the sprints
+ */
+@Service
+public class TaskBoardTransitionService {
+
+    /**
+     * the columns of the task board, in the order they are shown in the cumulative flow diagram
+     */
+    private static final TaskBoardStatus[] COLUMNS = {TaskBoardStatus.TO_DO, TaskBoardStatus.IN_PROGRESS,
+            TaskBoardStatus.FOR_REVIEW, TaskBoardStatus.DONE};
+
+    TaskBoardTransitionRepository taskBoardTransitionRepository;
+    ItemSprintHistoryRepository itemSprintHistoryRepository;
+    SprintRepository sprintRepository;
+
+    /**
+     * constructor of this class, correct way to set the autowired attributes
+     *
+     * @param taskBoardTransitionRepository: repository that has access to the moves of all the task boards
+     * @param itemSprintHistoryRepository:   repository for the history of item/sprint
+     * @param sprintRepository:              repository that has access to all sprints
+     */
+    @Autowired
+    public TaskBoardTransitionService(TaskBoardTransitionRepository taskBoardTransitionRepository,
+                                      ItemSprintHistoryRepository itemSprintHistoryRepository,
+                                      SprintRepository sprintRepository) {
+        this.taskBoardTransitionRepository = taskBoardTransitionRepository;
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+        this.sprintRepository = sprintRepository;
+    }
+
+    /**
+     * this method logs a move of an item on the task board of a sprint
+     *
+     * @param association: the association between the item and the sprint, after the move
+     * @param fromStatus:  the status of the item before the move
+     */
+    public void recordMove(ItemSprintHistory association, TaskBoardStatus fromStatus) {
+        taskBoardTransitionRepository.save(createTransition(association, fromStatus, association.getStatus()));
+    }
+
+    /**
+     * this method logs that a group of items were added to a sprint, associations without a status on the task board
+     * (for example parents of transferred items) are skipped
+     *
+     * @param associations: the associations that were created
+     */
+    public void recordAdditions(Collection<ItemSprintHistory> associations) {
+        List<TaskBoardTransition> transitions = new ArrayList<>(associations.size());
+        for (ItemSprintHistory association : associations) {
+            if (association.getStatus() != TaskBoardStatus.NONE) {
+                transitions.add(createTransition(association, TaskBoardStatus.NONE, association.getStatus()));
+            }
+        }
+        taskBoardTransitionRepository.saveAll(transitions);
+    }
+
+    /**
+     * this method logs that a group of items were added to a sprint with the same status at the same time, used when
+     * the associations were created with one statement and were never loaded
+     *
+     * @param sprintId: the sprint that the items were added to
+     * @param itemIds:  the items that were added
+     * @param status:   the status that the items were added with
+     */
+    public void recordAdditions(long sprintId, Collection<Long> itemIds, TaskBoardStatus status) {
+        if (status == TaskBoardStatus.NONE) {
+            return;
+        }
+        Date movedAt = new Date();
+        List<TaskBoardTransition> transitions = new ArrayList<>(itemIds.size());
+        for (long itemId : itemIds) {
+            transitions.add(new TaskBoardTransition(sprintId, itemId, TaskBoardStatus.NONE, status, movedAt));
+        }
+        taskBoardTransitionRepository.saveAll(transitions);
+    }
+
+    /**
+     * this method logs that a group of items were removed from a sprint
+     *
+     * @param associations: the associations that are going to be deleted
+     */
+    public void recordRemovals(Collection<ItemSprintHistory> associations) {
+        List<TaskBoardTransition> transitions = new ArrayList<>(associations.size());
+        for (ItemSprintHistory association : associations) {
+            if (association.getStatus() != TaskBoardStatus.NONE) {
+                transitions.add(new TaskBoardTransition(association.getSprint().getId(),
+                        association.getItem().getId(), association.getStatus(), TaskBoardStatus.NONE, new Date()));
+            }
+        }
+        taskBoardTransitionRepository.saveAll(transitions);
+    }
+
+    /**
+     * @param association: the association between the item and the sprint
+     * @param fromStatus:  the status of the item before the move
+     * @param toStatus:    the status of the item after the move
+     * @return : returns the move, happening when the association was last moved (or now, if it was never moved)
+     */
+    private TaskBoardTransition createTransition(ItemSprintHistory association, TaskBoardStatus fromStatus,
+                                                 TaskBoardStatus toStatus) {
+        Date movedAt = association.getLast_moved() != null ? association.getLast_moved() : new Date();
+        return new TaskBoardTransition(association.getSprint().getId(), association.getItem().getId(), fromStatus,
+                toStatus, movedAt);
+    }
+
+    /**
+     * this method logs the current status of every existing association, in case the associations were created before
+     * the moves were logged, since the earlier moves are not known, each item is considered to have been added with
+     * its current status when it was last moved (or when its sprint started), the statuses of all the associations are
+     * read with one query, without loading the associations or their sprints
+     */
+    @Transactional
+    public void initializeTransitions() {
+        if (taskBoardTransitionRepository.count() != 0 || itemSprintHistoryRepository.count() == 0) {
+            return;
+        }
+        List<AssociationStatus> associationStatuses =
+                itemSprintHistoryRepository.findAssociationStatusesByStatusNot(TaskBoardStatus.NONE);
+        List<TaskBoardTransition> transitions = new ArrayList<>(associationStatuses.size());
+        Date now = new Date();
+        for (AssociationStatus associationStatus : associationStatuses) {
+            Date movedAt = associationStatus.getMovedAt() != null ? associationStatus.getMovedAt() : now;
+            transitions.add(new TaskBoardTransition(associationStatus.getSprintId(), associationStatus.getItemId(),
+                    TaskBoardStatus.NONE, associationStatus.getStatus(), movedAt));
+        }
+        taskBoardTransitionRepository.saveAll(transitions);
+    }
+
+    /**
+     * this method calculates the cumulative flow diagram of a sprint, from the day it started until today (or until
+     * the day it finished/was planned to finish)
+     *
+     * @param sprint: the sprint that the user requested the diagram of
+     * @return : returns the data of the diagram, null if the sprint has not started
+     */
+    @Transactional(readOnly = true)
+    public CumulativeFlowData calculateCumulativeFlowForSprint(Sprint sprint) {
+        if (sprint.getStart_date() == null) {
+            return null;
+        }
+        Date endDate = sprint.getStatus() == SprintStatus.FINISHED.getRepositoryId() && sprint.getEnd_date() != null ?
+                sprint.getEnd_date() : new Date();
+        //the sprint was planned to last (number of weeks * 7) days
+        int numberOfDays = Math.min(Time.calculateDayIndex(sprint.getStart_date(), endDate),
+                (int) sprint.getDuration() * 7) + 1;
+        try (Stream<TransitionRecord> transitions = taskBoardTransitionRepository.streamTransitionsOfSprint(
+                sprint.getId(), ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId())) {
+            return aggregate(transitions, sprint.getStart_date(), numberOfDays);
+        }
+    }
+
+    /**
+     * this method calculates the cumulative flow diagram of a project, from the day its first sprint started until
+     * today, an item that was transferred to a later sprint is counted once, in the column it was moved to last
+     *
+     * @param projectId: the project that the user requested the diagram of
+     * @return : returns the data of the diagram, null if no sprint of the project has started
+     */
+    @Transactional(readOnly = true)
+    public CumulativeFlowData calculateCumulativeFlowForProject(long projectId) {
+        Date startDate = sprintRepository.findFirstStartDateByProjectId(projectId);
+        if (startDate == null) {
+            return null;
+        }
+        int numberOfDays = Time.calculateDayIndex(startDate, new Date()) + 1;
+        try (Stream<TransitionRecord> transitions = taskBoardTransitionRepository.streamTransitionsOfProject(
+                projectId, ItemType.TASK.getRepositoryId(), ItemType.BUG.getRepositoryId())) {
+            return aggregate(transitions, startDate, numberOfDays);
+        }
+    }
+
+    /**
+     * this method goes through the moves once, in order of time, keeping the column that each item is currently in
+     * and the number (and effort) of items in each column, every time a move happens on a later day, the columns are
+     * copied to the days that have passed, moves before the first day are part of the state of the first day
+     *
+     * @param transitions:  the moves, ordered by time
+     * @param startDate:    the first day of the diagram
+     * @param numberOfDays: the number of days of the diagram
+     * @return : returns the data of the diagram
+     */
+    private CumulativeFlowData aggregate(Stream<TransitionRecord> transitions, Date startDate, int numberOfDays) {
+        numberOfDays = Math.max(numberOfDays, 1);
+        //the end of each day is calculated once, so that each move is only compared with a number
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalDate firstDay = Instant.ofEpochMilli(startDate.getTime()).atZone(zoneId).toLocalDate();
+        long[] endOfDay = new long[numberOfDays];
+        String[] categories = new String[numberOfDays];
+        SimpleDateFormat dayFormat = new SimpleDateFormat("dd/MM");
+        for (int day = 0; day < numberOfDays; day++) {
+            endOfDay[day] = firstDay.plusDays(day + 1).atStartOfDay(zoneId).toInstant().toEpochMilli();
+            categories[day] = dayFormat.format(new Date(endOfDay[day] - 1));
+        }
+        int[][] counts = new int[COLUMNS.length][numberOfDays];
+        int[][] efforts = new int[COLUMNS.length][numberOfDays];
+        int[] currentCounts = new int[COLUMNS.length];
+        int[] currentEfforts = new int[COLUMNS.length];
+        Map<Long, TaskBoardStatus> columnOfItem = new HashMap<>();
+        int day = 0;
+        Iterator<TransitionRecord> iterator = transitions.iterator();
+        while (iterator.hasNext()) {
+            TransitionRecord transition = iterator.next();
+            long movedAt = transition.getMovedAt().getTime();
+            while (day < numberOfDays && movedAt >= endOfDay[day]) {
+                copyColumns(currentCounts, currentEfforts, counts, efforts, day++);
+            }
+            if (day == numberOfDays) {
+                break;
+            }
+            int effort = transition.getEffort() == null ? 0 : transition.getEffort();
+            TaskBoardStatus previousColumn = columnOfItem.put(transition.getItemId(), transition.getToStatus());
+            int previousIndex = columnIndex(previousColumn);
+            if (previousIndex >= 0) {
+                currentCounts[previousIndex]--;
+                currentEfforts[previousIndex] -= effort;
+            }
+            int newIndex = columnIndex(transition.getToStatus());
+            if (newIndex >= 0) {
+                currentCounts[newIndex]++;
+                currentEfforts[newIndex] += effort;
+            }
+        }
+        while (day < numberOfDays) {
+            copyColumns(currentCounts, currentEfforts, counts, efforts, day++);
+        }
+        String[] statuses = new String[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            statuses[i] = COLUMNS[i].getName();
+        }
+        return new CumulativeFlowData(categories, statuses, counts, efforts);
+    }
+
+    /**
+     * @param status: a status of the task board
+     * @return : returns the position of the column of the status in the diagram, -1 if the item is not on the board
+     */
+    private int columnIndex(TaskBoardStatus status) {
+        if (status == null || status == TaskBoardStatus.NONE) {
+            return -1;
+        }
+        return status.getRepositoryId() - 1;
+    }
+
+    /**
+     * this method stores the current state of the columns as the state at the end of a day
+     */
+    private void copyColumns(int[] currentCounts, int[] currentEfforts, int[][] counts, int[][] efforts, int day) {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            counts[i][day] = currentCounts[i];
+            efforts[i][day] = currentEfforts[i];
+        }
+    }
+}
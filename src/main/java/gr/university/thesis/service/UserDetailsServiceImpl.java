@@ -1,11 +1,16 @@
 package gr.university.thesis.service;
 
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import gr.university.thesis.entity.Role;
 import gr.university.thesis.entity.SessionUser;
 import gr.university.thesis.entity.User;
 import gr.university.thesis.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,30 +18,60 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 
 /**
- * Class that manages current user details loading
+ * Class that manages current user details loading, the details of each user are kept in a bounded cache for a few
+ * seconds (emails that do not belong to any user as well), so that logins and the sessions that are read on every
+ * request do not hit the repository every time, the cache of this node is invalidated whenever a user is created,
+ * updated or deleted, while the other nodes keep the old user (for example a deleted user, old roles or an old
+ * password) until it expires, which is why it is only kept for a few seconds. Its hits, misses and evictions are
+ * available in the 'cache.*' metrics (cache=users), the emails that failed to login too many times are loaded as a
+ * locked user, whether they belong to a user or not, so that spring refuses them before even checking their password
+ * and the lockout does not tell which emails have an account
  */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     UserRepository userRepository;
+    LoginAttemptService loginAttemptService;
+    LoadingCache<String, Optional<SessionUser>> sessionUsers;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
-     * @param userRepository: repository that has access to all the users of the system
+     * @param userRepository:      repository that has access to all the users of the system
+     * @param loginAttemptService: service that keeps the failed logins of each email
+     * @param meterRegistry:       the registry of the metrics of the application, the cache of the users is monitored
+     * @param maximumSize:         how many users are kept in the cache at most
+     * @param timeToLive:          for how many seconds a user is kept in the cache, which is also how long the other
+     *                             nodes might still use a user that changed
      */
     @Autowired
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, LoginAttemptService loginAttemptService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${user.cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${user.cache.time-to-live:5}") long timeToLive) {
         this.userRepository = userRepository;
+        this.loginAttemptService = loginAttemptService;
+        this.sessionUsers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(timeToLive))
+                .recordStats()
+                .build(this::findSessionUser);
+        CaffeineCacheMetrics.monitor(meterRegistry, sessionUsers, "users");
     }
 
     /**
-     * searches for user in the repository
+     * searches for user in the cache, and if the user is not there, in the repository, this method is called by
+     * spring for every login, an email that is locked gives a locked user without looking the user up, so that the
+     * locked emails are refused the same way whether they belong to a user or not
      *
      * @param email takes as input an email, which is unique to every user
      * @return returns a User if he is found in the repository
@@ -44,22 +79,79 @@ public class UserDetailsServiceImpl implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        //the lock depends on the failed logins at this moment so it is not cached
+        if (!email.isEmpty() && loginAttemptService.isLocked(email)) {
+            return new SessionUser(null, email, "", true, true, true, false, Collections.emptyList());
+        }
+        return loadSessionUser(email);
+    }
+
+    /**
+     * searches for user in the cache, and if the user is not there, in the repository, without checking whether the
+     * email is locked, used to restore the user of a session that logged in before
+     *
+     * @param email: the email of the user
+     * @return : returns the user with this email
+     * @throws UsernameNotFoundException : if no user has this email
+     */
+    public SessionUser loadSessionUser(String email) throws UsernameNotFoundException {
+        SessionUser cachedUser = sessionUsers.get(cacheKey(email))
+                .orElseThrow(() -> new UsernameNotFoundException("User does not exist"));
+        //a copy is returned, as spring erases the password of the user that was authenticated, and the user in the
+        //cache should stay as it is
+        return new SessionUser(cachedUser.getId(), cachedUser.getUsername(), cachedUser.getPassword(),
+                cachedUser.isEnabled(), cachedUser.isAccountNonExpired(), cachedUser.isCredentialsNonExpired(),
+                cachedUser.isAccountNonLocked(), cachedUser.getAuthorities());
+    }
+
+    /**
+     * this method removes a user from the cache of this node, it is called whenever a user is created, updated or
+     * deleted, so that the next login reads the user from the repository again (the other nodes read it again once it
+     * expires from their cache)
+     *
+     * @param email: the email of the user that changed
+     */
+    public void evictUser(String email) {
+        if (email != null) {
+            sessionUsers.invalidate(cacheKey(email));
+        }
+    }
+
+    /**
+     * the emails are compared without case by the repository, so they are compared the same way by the cache
+     *
+     * @param email: the email that the user logs in with
+     * @return : returns the key of the user in the cache
+     */
+    private String cacheKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * this method loads a user from the repository, it is called by the cache when the user is not there
+     *
+     * @param email: the email of the user, already the key of the cache
+     * @return : returns an optional with the user, empty if no user has that email
+     */
+    private Optional<SessionUser> findSessionUser(String email) {
         //these attributes are required by the Spring User Details class
         boolean enabled = true;
         boolean accountNonExpired = true;
         boolean credentialsNonExpired = true;
         boolean accountNonLocked = true;
-        //Search for the user within the repository, and if the user doesn't exist, throw an exception
-        User repoUser =
-                userRepository.findFirstByEmail(email).orElseThrow(() -> new UsernameNotFoundException("User does not exist"));
+        //Search for the user within the repository
+        Optional<User> repoUserOptional = userRepository.findFirstByEmail(email);
+        if (!repoUserOptional.isPresent()) {
+            return Optional.empty();
+        }
+        User repoUser = repoUserOptional.get();
         //Map the authority list with the spring security list
-        List grantList = new ArrayList();
+        List<GrantedAuthority> grantList = new ArrayList<>(repoUser.getRoles().size());
         for (Role role : repoUser.getRoles()) {
             // ROLE:USER or ROLE:ADMIN or BOTH
-            GrantedAuthority grantedAuthority = new SimpleGrantedAuthority(role.getRole());
-            grantList.add(grantedAuthority);
+            grantList.add(new SimpleGrantedAuthority(role.getRole()));
         }
-        SessionUser user = new SessionUser(repoUser.getId(), repoUser.getEmail(), repoUser.getPassword(), enabled, accountNonExpired, credentialsNonExpired, accountNonLocked, grantList);
-        return user;
+        return Optional.of(new SessionUser(repoUser.getId(), repoUser.getEmail(), repoUser.getPassword(), enabled,
+                accountNonExpired, credentialsNonExpired, accountNonLocked, grantList));
     }
 }
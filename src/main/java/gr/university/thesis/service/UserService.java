@@ -1,5 +1,8 @@
 package gr.university.thesis.service;
 
+import gr.university.thesis.dto.UserPage;
+import gr.university.thesis.dto.UserRoleName;
+import gr.university.thesis.dto.UserRow;
 import gr.university.thesis.entity.Role;
 import gr.university.thesis.entity.User;
 import gr.university.thesis.entity.enumeration.RoleEnum;
@@ -7,13 +10,11 @@ import gr.university.thesis.exceptions.UserAlreadyExistsException;
 import gr.university.thesis.exceptions.UserHasEmptyEmailException;
 import gr.university.thesis.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 
 /**
  * this class helps with the management of users, fetches users from the repository, deletes or creates them
@@ -23,17 +24,26 @@ public class UserService {
 
     UserRepository userRepository;
     BCryptPasswordEncoder bCryptPasswordEncoder;
+    UserDetailsServiceImpl userDetailsServiceImpl;
+    ProjectMemberService projectMemberService;
 
     /**
      * constructor of this class, correct way to set the autowired attributes
      *
      * @param userRepository:        repository that has access to all the users of the system
-     * @param bCryptPasswordEncoder: the encoder used when updating a user password or when creating a new user
+     * @param bCryptPasswordEncoder:  the encoder used when updating a user password or when creating a new user
+     * @param userDetailsServiceImpl: the service that loads (and caches) the users that log in, the cached users
+     *                                are removed when they change
+     * @param projectMemberService:   service that manages (and caches) the members of the projects
      */
     @Autowired
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public UserService(UserRepository userRepository, BCryptPasswordEncoder bCryptPasswordEncoder,
+                       UserDetailsServiceImpl userDetailsServiceImpl,
+                       ProjectMemberService projectMemberService) {
         this.userRepository = userRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.userDetailsServiceImpl = userDetailsServiceImpl;
+        this.projectMemberService = projectMemberService;
     }
 
     /**
@@ -55,6 +65,65 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * this method allows an admin to fetch one page of users, the users are ordered by id and each page starts after
+     * the last user of the previous one, the users can be searched by the start of their email, first name or last
+     * name and filtered by their role. A search runs one query for each of the three (each one reads the index of its
+     * column), and the page is made of the users with the smallest ids among the three, as an OR of the three would
+     * read every user in order of id
+     *
+     * @param query:    the start of the email, first name or last name of the users, empty for all the users
+     * @param role:     the role of the users (for example DEVELOPER), null for all the roles
+     * @param afterId:  the id of the last user of the previous page, 0 for the first page
+     * @param pageSize: how many users each page has
+     * @return : returns the users of the page, with their roles, and the id to request the next page with
+     */
+    public UserPage findUserPage(String query, RoleEnum role, long afterId, int pageSize) {
+        //one more user than needed is requested, to know whether there is a next page
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<UserRow> users;
+        if (query.trim().isEmpty()) {
+            users = role == null ? userRepository.findUserRowsAfter(afterId, pageRequest) :
+                    userRepository.findUserRowsByRoleAfter(role.getName(), afterId, pageRequest);
+        } else {
+            //'%' and '_' have a special meaning in LIKE, so the ones the admin typed are escaped
+            String prefix = query.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            //the users of the page are among the first ones of each query, a user that matches twice is kept once
+            TreeMap<Long, UserRow> usersById = new TreeMap<>();
+            List<List<UserRow>> matches = role == null ?
+                    Arrays.asList(userRepository.findUserRowsByEmailAfter(prefix, afterId, pageRequest),
+                            userRepository.findUserRowsByFirstNameAfter(prefix, afterId, pageRequest),
+                            userRepository.findUserRowsByLastNameAfter(prefix, afterId, pageRequest)) :
+                    Arrays.asList(userRepository.findUserRowsByRoleAndEmailAfter(role.getName(), prefix, afterId,
+                            pageRequest),
+                            userRepository.findUserRowsByRoleAndFirstNameAfter(role.getName(), prefix, afterId,
+                                    pageRequest),
+                            userRepository.findUserRowsByRoleAndLastNameAfter(role.getName(), prefix, afterId,
+                                    pageRequest));
+            for (List<UserRow> match : matches) {
+                for (UserRow user : match) {
+                    usersById.putIfAbsent(user.getId(), user);
+                }
+            }
+            users = new ArrayList<>(usersById.values());
+        }
+        Long nextAfterId = null;
+        if (users.size() > pageSize) {
+            users = new ArrayList<>(users.subList(0, pageSize));
+            nextAfterId = users.get(pageSize - 1).getId();
+        }
+        if (!users.isEmpty()) {
+            Map<Long, UserRow> usersById = new HashMap<>();
+            for (UserRow user : users) {
+                usersById.put(user.getId(), user);
+            }
+            for (UserRoleName roleName : userRepository.findRoleNamesOfUsers(usersById.keySet())) {
+                usersById.get(roleName.getUserId()).getRoles().add(roleName.getRole());
+            }
+        }
+        return new UserPage(users, nextAfterId);
+    }
+
     /**
      * this method allows the creation of a user, and is stored in the repository
      *
@@ -90,6 +159,8 @@ public class UserService {
             roles.add(role);
             user.setRoles(roles);
             userRepository.save(user);
+            //someone might have tried to login with this email before it existed
+            userDetailsServiceImpl.evictUser(email);
         } else {
             throw new UserAlreadyExistsException("E-mail '" + email + "' already exists.");
         }
@@ -117,6 +188,7 @@ public class UserService {
         Optional<User> userWithThatEmailOptional = userRepository.findFirstByEmail(email);
         if (userOptional.isPresent()) {
             User user = userOptional.get();
+            String previousEmail = user.getEmail();
             //if the user has input a new email and that is already existent in the repository, throw an exception
             if (userWithThatEmailOptional.isPresent()) {
                 User userWithThatEmail = userWithThatEmailOptional.get();
@@ -147,6 +219,11 @@ public class UserService {
             }
             user.setLastName(lastName);
             userRepository.save(user);
+            //the user can no longer login with the previous email, and the new one might have been cached as missing
+            userDetailsServiceImpl.evictUser(previousEmail);
+            userDetailsServiceImpl.evictUser(email);
+            //the name and email are shown in the member directories of the projects
+            projectMemberService.evictAllMembers();
         }
     }
 
@@ -156,6 +233,9 @@ public class UserService {
      * @param userId: the user id that is needed in order for the user to be found in the repository and to be deleted
      */
     public void deleteUser(long userId) {
+        Optional<User> userOptional = userRepository.findById(userId);
+        projectMemberService.removeMemberships(userId);
         userRepository.deleteById(userId);
+        userOptional.ifPresent(user -> userDetailsServiceImpl.evictUser(user.getEmail()));
     }
 }
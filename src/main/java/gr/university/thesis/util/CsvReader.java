@@ -0,0 +1,84 @@
+package gr.university.thesis.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * this class is used as a util class to read CSV files one record at a time, so that big files never have to be kept
+ * in memory, values can be quoted ("...") in order to contain commas, new lines or quotes (written as "")
+ */
+public class CsvReader implements Closeable {
+
+    private final BufferedReader reader;
+    private boolean firstRecord = true;
+
+    /**
+     * @param reader: the source of the CSV text
+     */
+    public CsvReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    /**
+     * this method reads the next record (line) of the file
+     *
+     * @return : returns the values of the record, or null if the end of the file was reached
+     * @throws IOException : if the file could not be read
+     */
+    public List<String> readRecord() throws IOException {
+        int character = reader.read();
+        //the byte order mark some editors add at the beginning of the file is not part of the first value
+        if (firstRecord && character == '\uFEFF') {
+            character = reader.read();
+        }
+        firstRecord = false;
+        if (character == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (character != -1) {
+            if (quoted) {
+                if (character == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    value.append((char) character);
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (character == '\n') {
+                break;
+            } else if (character != '\r') {
+                value.append((char) character);
+            }
+            character = reader.read();
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * this method closes the underlying reader
+     *
+     * @throws IOException : if the reader could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,6 +1,9 @@
 package gr.university.thesis.util;
 
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 import java.util.Comparator;
 import java.util.Date;
@@ -43,6 +46,20 @@ public class Time implements Comparator<Calendar> {
         return (int) TimeUnit.DAYS.convert(differenceInMs, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * this method takes two dates and calculates how many calendar days the second one is after the first one, for
+     * example 18/3/20 23:00:00 and 19/3/20 01:00:00 are one day apart, as opposed to calculateDaysInBetween()
+     *
+     * @param startDate: the starting date
+     * @param date:      the date that the user requested to find the day of
+     * @return : returns the number of calendar days between the two dates, negative if the date is before the start
+     */
+    public static int calculateDayIndex(Date startDate, Date date) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        return (int) ChronoUnit.DAYS.between(Instant.ofEpochMilli(startDate.getTime()).atZone(zoneId).toLocalDate(),
+                Instant.ofEpochMilli(date.getTime()).atZone(zoneId).toLocalDate());
+    }
+
     /**
      * this method takes two dates and calculates the difference in MS between the two
      *
@@ -112,23 +129,6 @@ public class Time implements Comparator<Calendar> {
         return time.compare(calendar1, calendar2);
     }
 
-    /**
-     * this method sets the clock of a date to zero, mainly used to group dates together
-     *
-     * @param date: the date that the user requested to set the clock to zero
-     * @return : returns a date with its clock set to 00:00:00
-     */
-    public static Date setClockToZero(Date date) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(date);
-        //we set the end date's clock to  00:00:00
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return calendar.getTime();
-    }
-
     /**
      * this method is implemented by the calendar comparator, mainly used to compare two calendars and to check
      * if they are equal or not
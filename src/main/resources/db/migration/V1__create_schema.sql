@@ -0,0 +1,117 @@
+-- the schema of the application, as it was created by hibernate (ddl-auto=update) before the migrations existed
+-- databases that were created that way are baselined at this version (check application.properties), so this script
+-- only runs on empty databases, everything that was added after that is added by the later migrations
+
+CREATE TABLE hibernate_sequence
+(
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO hibernate_sequence (next_val)
+VALUES (1);
+
+CREATE TABLE `user`
+(
+    id         BIGINT NOT NULL,
+    email      VARCHAR(255),
+    password   VARCHAR(255),
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE role
+(
+    id   BIGINT NOT NULL,
+    role VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE role_user
+(
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    CONSTRAINT fk_role_user_user FOREIGN KEY (user_id) REFERENCES `user` (id),
+    CONSTRAINT fk_role_user_role FOREIGN KEY (role_id) REFERENCES role (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE project
+(
+    id                 BIGINT NOT NULL,
+    title              VARCHAR(255),
+    description        VARCHAR(255),
+    developers_working INTEGER NOT NULL,
+    team_velocity      INTEGER NOT NULL,
+    sprint_duration    INTEGER NOT NULL,
+    user_id            BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_project_user FOREIGN KEY (user_id) REFERENCES `user` (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_project
+(
+    user_id    BIGINT NOT NULL,
+    project_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, project_id),
+    CONSTRAINT fk_user_project_user FOREIGN KEY (user_id) REFERENCES `user` (id),
+    CONSTRAINT fk_user_project_project FOREIGN KEY (project_id) REFERENCES project (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE item
+(
+    id                  BIGINT NOT NULL,
+    type                INTEGER NOT NULL,
+    title               VARCHAR(255),
+    description         VARCHAR(255),
+    acceptance_criteria VARCHAR(255),
+    effort              INTEGER NOT NULL,
+    estimated_effort    INTEGER NOT NULL,
+    priority            INTEGER NOT NULL,
+    date_created        DATETIME(6),
+    status              TINYINT NOT NULL,
+    parent_id           BIGINT,
+    project_id          BIGINT NOT NULL,
+    owner_id            BIGINT NOT NULL,
+    assignee_id         BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_item_parent FOREIGN KEY (parent_id) REFERENCES item (id),
+    CONSTRAINT fk_item_project FOREIGN KEY (project_id) REFERENCES project (id),
+    CONSTRAINT fk_item_owner FOREIGN KEY (owner_id) REFERENCES `user` (id),
+    CONSTRAINT fk_item_assignee FOREIGN KEY (assignee_id) REFERENCES `user` (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE comment
+(
+    id           BIGINT NOT NULL,
+    body         VARCHAR(255),
+    date_created DATETIME(6),
+    owner_id     BIGINT NOT NULL,
+    item_id      BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_comment_owner FOREIGN KEY (owner_id) REFERENCES `user` (id),
+    CONSTRAINT fk_comment_item FOREIGN KEY (item_id) REFERENCES item (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE sprint
+(
+    id         BIGINT NOT NULL,
+    duration   BIGINT NOT NULL,
+    start_date DATETIME(6),
+    end_date   DATETIME(6),
+    goal       VARCHAR(255),
+    status     TINYINT NOT NULL,
+    project_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_sprint_project FOREIGN KEY (project_id) REFERENCES project (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE item_sprint_history
+(
+    sprint_id  BIGINT NOT NULL,
+    item_id    BIGINT NOT NULL,
+    status     INTEGER,
+    last_moved DATETIME(6),
+    PRIMARY KEY (item_id, sprint_id),
+    CONSTRAINT fk_item_sprint_history_sprint FOREIGN KEY (sprint_id) REFERENCES sprint (id),
+    CONSTRAINT fk_item_sprint_history_item FOREIGN KEY (item_id) REFERENCES item (id)
+) ENGINE = InnoDB;
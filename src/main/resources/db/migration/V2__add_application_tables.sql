@@ -0,0 +1,90 @@
+-- the tables, columns and indexes that were added to the application after the schema of V1, databases that were
+-- baselined at V1 get them here (the data of the new tables is built by the application on startup, check
+-- ApplicationReadyListener, or when it is first needed)
+
+-- the items, sprints and associations are versioned (optimistic locking), existing rows start from version 0
+ALTER TABLE item
+    ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE sprint
+    ADD COLUMN summary_total_effort BIGINT,
+    ADD COLUMN summary_velocity     BIGINT,
+    ADD COLUMN summary_task_count   BIGINT,
+    ADD COLUMN summary_done_count   BIGINT,
+    ADD COLUMN version              INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE item_sprint_history
+    ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
+
+-- the expired active sprints, finished in the background
+CREATE INDEX idx_sprint_status_end_date ON sprint (status, end_date);
+
+-- the tasks/bugs with a certain status in a sprint, ordered by when they were moved
+CREATE INDEX idx_item_sprint_history_sprint_status_moved ON item_sprint_history (sprint_id, status, last_moved);
+
+CREATE TABLE project_statistics
+(
+    project_id               BIGINT NOT NULL,
+    total_effort             BIGINT NOT NULL,
+    remaining_effort         BIGINT NOT NULL,
+    estimated_total_effort   BIGINT NOT NULL,
+    estimated_sprints_needed BIGINT NOT NULL,
+    executed_sprints         BIGINT NOT NULL,
+    PRIMARY KEY (project_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE item_closure
+(
+    ancestor_id   BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth         INTEGER NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE sprint_burn
+(
+    sprint_id     BIGINT NOT NULL,
+    day_index     INTEGER NOT NULL,
+    burned_effort INTEGER NOT NULL,
+    PRIMARY KEY (sprint_id, day_index)
+) ENGINE = InnoDB;
+
+CREATE TABLE sprint_history
+(
+    sprint_id BIGINT NOT NULL,
+    document  LONGTEXT NOT NULL,
+    frozen_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (sprint_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE task_board_transition
+(
+    id          BIGINT NOT NULL,
+    sprint_id   BIGINT NOT NULL,
+    item_id     BIGINT NOT NULL,
+    from_status INTEGER NOT NULL,
+    to_status   INTEGER NOT NULL,
+    moved_at    DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_task_board_transition_sprint_moved ON task_board_transition (sprint_id, moved_at);
+
+CREATE TABLE lease
+(
+    name         VARCHAR(100) NOT NULL,
+    owner        VARCHAR(255),
+    locked_until DATETIME(6) NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
+
+-- the ids are now taken from hibernate_sequence in blocks of 50 (pooled-lo, the value read is the first id of the
+-- block), so the sequence must not be behind any id that was already given
+UPDATE hibernate_sequence
+SET next_val = GREATEST(COALESCE(next_val, 1),
+                        (SELECT COALESCE(MAX(id), 0) + 1 FROM `user`),
+                        (SELECT COALESCE(MAX(id), 0) + 1 FROM role),
+                        (SELECT COALESCE(MAX(id), 0) + 1 FROM project),
+                        (SELECT COALESCE(MAX(id), 0) + 1 FROM item),
+                        (SELECT COALESCE(MAX(id), 0) + 1 FROM comment),
+                        (SELECT COALESCE(MAX(id), 0) + 1 FROM sprint));
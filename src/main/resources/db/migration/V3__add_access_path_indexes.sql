@@ -0,0 +1,18 @@
+-- indexes for the most frequent lookups, hibernate never created these, as it only creates the primary and foreign
+-- keys (and the indexes declared on the entities)
+
+-- the backlog/sprint items of a project with a certain status, ordered by priority (the index is read backwards)
+CREATE INDEX idx_item_project_status_priority ON item (project_id, status, priority);
+
+-- an item of a project with a certain title, checked every time an item is created or renamed
+CREATE INDEX idx_item_project_title ON item (project_id, title);
+
+-- the ready/active sprint of a project
+CREATE INDEX idx_sprint_project_status ON sprint (project_id, status);
+
+-- the user with a certain email, checked on every login
+CREATE INDEX idx_user_email ON `user` (email);
+
+-- the tasks/bugs with a certain status in a sprint ordered by last_moved use idx_item_sprint_history_sprint_status_moved
+-- (sprint_id, status, last_moved) of V2, it is covering, as the rest of the primary key (item_id) is part of every
+-- index
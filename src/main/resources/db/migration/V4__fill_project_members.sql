@@ -0,0 +1,19 @@
+-- the members of each project (user_project) were never stored, so they are filled from the owner of the project and
+-- the owners and assignees of its items, from now on they are added by the application
+
+INSERT IGNORE INTO user_project (user_id, project_id)
+SELECT user_id, id
+FROM project;
+
+INSERT IGNORE INTO user_project (user_id, project_id)
+SELECT owner_id, project_id
+FROM item;
+
+INSERT IGNORE INTO user_project (user_id, project_id)
+SELECT assignee_id, project_id
+FROM item
+WHERE assignee_id IS NOT NULL;
+
+-- the users that are searched (typeahead) by the start of their first or last name
+CREATE INDEX idx_user_first_name ON `user` (first_name);
+CREATE INDEX idx_user_last_name ON `user` (last_name);
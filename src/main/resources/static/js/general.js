@@ -84,3 +84,82 @@ function showNotificationMessage(text, color) {
     }
 }
 
+
+function showCumulativeFlowChart(elementId, subtitle, cumulativeFlowData) {
+    //the last column (done) is drawn at the bottom, as it only grows
+    const colors = ['rgba(200,200,200,0.8)', 'rgba(0,120,200,0.6)', 'rgba(255,165,0,0.7)', 'rgba(133,200,98,0.8)'];
+    let series = [];
+    for (let i = cumulativeFlowData.statuses.length - 1; i >= 0; i--) {
+        series.push({
+            name: cumulativeFlowData.statuses[i],
+            color: colors[i],
+            data: cumulativeFlowData.counts[i],
+            //the effort of each column is shown in the tooltip
+            efforts: cumulativeFlowData.efforts[i]
+        });
+    }
+    $(function () {
+        $('#' + elementId).highcharts({
+            chart: {
+                type: 'area'
+            },
+            title: {
+                text: 'Cumulative Flow Diagram',
+                x: -20 //center
+            },
+            subtitle: {
+                text: subtitle,
+                x: -20
+            },
+            xAxis: {
+                categories: cumulativeFlowData.categories
+            },
+            yAxis: {
+                title: {
+                    text: 'Tasks'
+                }
+            },
+            plotOptions: {
+                area: {
+                    stacking: 'normal',
+                    lineWidth: 1,
+                    marker: {
+                        enabled: false
+                    }
+                }
+            },
+            tooltip: {
+                shared: true,
+                crosshairs: true,
+                pointFormatter: function () {
+                    return '<span style="color:' + this.color + '">●</span> ' + this.series.name + ': <b>' +
+                        this.y + '</b> tasks (' + this.series.userOptions.efforts[this.index] + ' effort)<br/>';
+                }
+            },
+            legend: {
+                layout: 'vertical',
+                align: 'right',
+                verticalAlign: 'middle',
+                borderWidth: 0
+            },
+            series: series
+        });
+    });
+}
+
+//the assignee dropdowns only list the members of the project, anyone else can be found by typing (at least 2
+//characters) the start of their name or email, the users found are added to the dropdown
+function searchAssignees(projectId, query, selectId) {
+    if (query.trim().length < 2) {
+        return;
+    }
+    $.getJSON('/user/project/' + projectId + '/members', {query: query}, function (users) {
+        let select = $("#" + selectId);
+        users.forEach(function (user) {
+            if (select.find("option[value='" + user.id + "']").length === 0) {
+                select.append($("<option>").val(user.id)
+                    .text(user.firstName + ' ' + user.lastName + ', ' + user.email));
+            }
+        });
+    });
+}
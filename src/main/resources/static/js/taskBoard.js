@@ -12,4 +12,45 @@ function redirectToModal(projectId, itemId, sprintId) {
 
 function updateAssignee(itemId) {
     $('#updateAssignee' + itemId).click();
-}
\ No newline at end of file
+}
+// when each card was last moved, so that moves arriving late (or twice) are ignored
+const cardsLastMoved = {};
+
+function moveCard(move) {
+    if (cardsLastMoved[move.itemId] && cardsLastMoved[move.itemId] >= move.movedAt) {
+        return;
+    }
+    cardsLastMoved[move.itemId] = move.movedAt;
+    const card = $('#card' + move.itemId);
+    if (!card.length) {
+        return;
+    }
+    const column = $('.tasks[data-status="' + move.toStatus + '"]');
+    const cards = column.children('span').first();
+    (cards.length ? cards : column).append(card);
+    card.find('input[name="associationStatus"]').val(move.toStatus);
+}
+
+function enableCardMoves() {
+    $(document).on('click', '.tasks button[name="action"]', function (event) {
+        event.preventDefault();
+        const form = $(this).closest('form');
+        const direction = $(this).val() === 'nextStatus' ? 1 : -1;
+        $.post('/user/moveAssociation', form.serialize() + '&direction=' + direction)
+            .done(moveCard)
+            .fail(function () {
+                // the card could not be moved (or was already moved by someone else), so the board is reloaded
+                window.location.reload();
+            });
+    });
+}
+
+function subscribeToTaskBoard(projectId, sprintId) {
+    if (!window.EventSource) {
+        return;
+    }
+    const events = new EventSource('/user/project/' + projectId + '/sprint/' + sprintId + '/events');
+    events.addEventListener('move', function (event) {
+        moveCard(JSON.parse(event.data));
+    });
+}
@@ -0,0 +1,100 @@
+//the users are fetched from the server one page at a time, the id of the last user shown is sent to get the next page
+let nextAfterId = 0;
+let searchTimeout;
+
+function loadUsers(fromStart) {
+    if (fromStart) {
+        nextAfterId = 0;
+    }
+    let query = $("#userSearchQuery").val();
+    let role = $("#userSearchRole").val();
+    $.getJSON('/admin/users', {query: query, role: role, afterId: nextAfterId}, function (page) {
+        let users = $("#users");
+        if (fromStart) {
+            users.empty();
+        }
+        page.users.forEach(function (user) {
+            users.append(createUserForm(user));
+        });
+        nextAfterId = page.nextAfterId;
+        $("#moreUsers").prop("hidden", page.nextAfterId === null);
+    });
+}
+
+//the select of the role of a user, only the master admin can make someone an admin, and no one can make someone a
+//master admin
+function createRoleSelect(user) {
+    let select = $("<select>").attr("name", "userRole");
+    roleNames.forEach(function (roleName) {
+        if (roleName === "MASTER_ADMIN" || (roleName === "ADMIN" && sessionRole !== "Master Admin")) {
+            return;
+        }
+        select.append($("<option>").val(roleName).text(roleName).prop("selected", user.roles[0] === roleName));
+    });
+    return select;
+}
+
+//a disabled select for the users whose role cannot be changed, together with a hidden one, because the back-end does
+//not receive the disabled one
+function createDisabledRoleSelect() {
+    return [
+        $("<select disabled>").append($("<option selected>").val("master_admin").text("Disabled")),
+        $("<select hidden>").attr("name", "userRole").append($("<option selected>").val("master_admin").text("Disabled"))
+    ];
+}
+
+function createButton(action) {
+    return $("<button type='submit'>").attr("name", "action").val(action)
+        .text(action === "update" ? "Update" : "Delete");
+}
+
+//the same form that the page had for every user, the rules of who can update/delete whom are the same as before
+function createUserForm(user) {
+    let isMasterAdmin = user.roles.length > 1;
+    let form = $("<form method='post'>").attr("action", "/admin/editUser")
+        .append($("<input type='hidden'>").attr("name", csrfParameter).val(csrfToken))
+        .append($("<input type='hidden'>").attr("name", "userId").val(user.id))
+        .append($("<label>").text("Email"))
+        .append($("<input type='email'>").attr("name", "userEmail").val(user.email))
+        .append($("<label>").text("Password"))
+        .append($("<input type='password'>").attr("name", "userPassword"))
+        .append($("<label>").text("First Name"))
+        .append($("<input>").attr("name", "userFirstName").val(user.firstName))
+        .append($("<label>").text("Last Name"))
+        .append($("<input>").attr("name", "userLastName").val(user.lastName));
+    if (isMasterAdmin) {
+        form.append(createDisabledRoleSelect());
+        if (sessionRole === "Master Admin") {
+            form.append(createButton("update"));
+        }
+    } else if (user.roles[0] === "ADMIN") {
+        if (sessionRole === "Master Admin") {
+            form.append(createRoleSelect(user), createButton("update"), createButton("delete"));
+        } else {
+            form.append(createDisabledRoleSelect());
+            if (user.id === sessionUserId) {
+                form.append(createButton("update"));
+            }
+        }
+    } else {
+        form.append(createRoleSelect(user), createButton("update"), createButton("delete"));
+    }
+    return $("<div>").css("border-style", isMasterAdmin ? "dotted" : "solid").append(form);
+}
+
+//the search starts a little after the admin stops typing, so that not every key sends a request
+$("#userSearchQuery").on("input", function () {
+    clearTimeout(searchTimeout);
+    searchTimeout = setTimeout(function () {
+        loadUsers(true);
+    }, 300);
+});
+$("#userSearchRole").on("change", function () {
+    loadUsers(true);
+});
+$("#userSearchForm").on("submit", function (event) {
+    event.preventDefault();
+    loadUsers(true);
+});
+
+loadUsers(true);
@@ -2,6 +2,7 @@ package gr.university.thesis;
 
 import gr.university.thesis.entity.Comment;
 import gr.university.thesis.entity.Item;
+import gr.university.thesis.entity.Project;
 import gr.university.thesis.service.ItemService;
 import gr.university.thesis.service.ProjectService;
 import gr.university.thesis.service.SessionService;
@@ -28,14 +29,27 @@ class ThesisApplicationTests {
         this.itemService = itemService;
     }
 
+    /**
+     * the ids are generated in blocks, so the first epic of the test project is looked up by its title
+     */
+    private Optional<Item> findFirstEpicOfTestProject() {
+        Project project = projectService.findProjectByTitle("Test Project").get();
+        for (Item item : itemService.findAllItemsByProjectId(project.getId())) {
+            if (item.getTitle().equals("Epic 1")) {
+                return itemService.findItemInProject(item.getId(), project.getId());
+            }
+        }
+        return Optional.empty();
+    }
+
     @Test
     void contextLoads() {
-        assertTrue(itemService.findItemInProject(9, 7).isPresent());
+        assertTrue(findFirstEpicOfTestProject().isPresent());
     }
 
     @Test
     void stackOverFlowWithEntitiesTest() {
-        Optional<Item> itemOptional = itemService.findItemInProject(9, 7);
+        Optional<Item> itemOptional = findFirstEpicOfTestProject();
         for (Comment comment : itemOptional.get().getComments()) {
             System.out.println(comment.getBody());
         }
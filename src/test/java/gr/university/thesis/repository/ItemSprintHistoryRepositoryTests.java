@@ -0,0 +1,75 @@
+package gr.university.thesis.repository;
+
+import gr.university.thesis.entity.*;
+import gr.university.thesis.entity.enumeration.ItemStatus;
+import gr.university.thesis.entity.enumeration.ItemType;
+import gr.university.thesis.entity.enumeration.SprintStatus;
+import gr.university.thesis.entity.enumeration.TaskBoardStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest
+@Transactional
+class ItemSprintHistoryRepositoryTests {
+
+    private static final int NUMBER_OF_ASSOCIATIONS = 1000;
+
+    private EntityManager entityManager;
+    private ItemSprintHistoryRepository itemSprintHistoryRepository;
+
+    @Autowired
+    public ItemSprintHistoryRepositoryTests(EntityManager entityManager,
+                                            ItemSprintHistoryRepository itemSprintHistoryRepository) {
+        this.entityManager = entityManager;
+        this.itemSprintHistoryRepository = itemSprintHistoryRepository;
+    }
+
+    @Test
+    void saveAllInsertsAssociationsInBatches() {
+        User owner = new User("batch.test@example.com", "", "Batch", "Test");
+        entityManager.persist(owner);
+        Project project = new Project("Batch Test Project", "", 0, 0, 2, owner);
+        entityManager.persist(project);
+        Sprint sprint = new Sprint(project, (byte) SprintStatus.READY.getRepositoryId());
+        entityManager.persist(sprint);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_ASSOCIATIONS; i++) {
+            Item item = new Item("Batch Task " + i, "", "", ItemType.TASK.getRepositoryId(), 1, 1, 0, project,
+                    null, owner, null, (byte) ItemStatus.READY.getRepositoryId());
+            entityManager.persist(item);
+            items.add(item);
+        }
+        entityManager.flush();
+
+        List<ItemSprintHistory> associations = new ArrayList<>();
+        for (Item item : items) {
+            ItemSprintHistory association = new ItemSprintHistory(item, sprint, TaskBoardStatus.TO_DO);
+            association.getSprintItemId().setItemId(item.getId());
+            association.getSprintItemId().setSprintId(sprint.getId());
+            associations.add(association);
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        itemSprintHistoryRepository.saveAll(associations);
+        entityManager.flush();
+
+        //no select before each insert, and the inserts are sent in batches instead of one statement per association
+        assertEquals(NUMBER_OF_ASSOCIATIONS, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue("statements prepared: " + statistics.getPrepareStatementCount(),
+                statistics.getPrepareStatementCount() <= 30);
+    }
+}
@@ -0,0 +1,141 @@
+package gr.university.thesis.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+class LoginAttemptServiceTests {
+
+    //long enough that the failures do not fade during a test
+    private static final long NO_HALF_LIFE = 1_000_000_000L;
+
+    /**
+     * a clock that only moves when the test moves it
+     */
+    private static class TestClock extends Clock {
+
+        private long millis = 1_000_000L;
+
+        void advanceSeconds(double seconds) {
+            millis += (long) (seconds * 1000);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private final TestClock clock = new TestClock();
+
+    private void fail(LoginAttemptService loginAttemptService, String email, int times) {
+        for (int i = 0; i < times; i++) {
+            loginAttemptService.loginFailed(email);
+        }
+    }
+
+    @Test
+    void emailIsLockedAfterTheFreeAttempts() {
+        LoginAttemptService loginAttemptService = new LoginAttemptService(1024, 3, NO_HALF_LIFE, 30, 900, clock);
+        fail(loginAttemptService, "user@example.com", 3);
+        assertFalse(loginAttemptService.isLocked("user@example.com"));
+
+        loginAttemptService.loginFailed("user@example.com");
+        assertTrue(loginAttemptService.isLocked("user@example.com"));
+        //the emails are compared without case, like the repository does
+        assertTrue(loginAttemptService.isLocked(" USER@example.com "));
+        assertFalse(loginAttemptService.isLocked("other@example.com"));
+    }
+
+    @Test
+    void lockoutDoublesWithEveryFailureUpToTheMaximum() {
+        LoginAttemptService loginAttemptService = new LoginAttemptService(1024, 0, NO_HALF_LIFE, 10, 40, clock);
+        long[] expectedLockouts = {10, 20, 40, 40};
+        for (long expectedLockout : expectedLockouts) {
+            loginAttemptService.loginFailed("user@example.com");
+            clock.advanceSeconds(expectedLockout - 0.001);
+            assertTrue(loginAttemptService.isLocked("user@example.com"));
+            clock.advanceSeconds(0.001);
+            assertFalse(loginAttemptService.isLocked("user@example.com"));
+        }
+    }
+
+    @Test
+    void failuresAreHalvedEveryHalfLife() {
+        LoginAttemptService loginAttemptService = new LoginAttemptService(1024, 3, 60, 30, 900, clock);
+        fail(loginAttemptService, "user@example.com", 4);
+        assertTrue(loginAttemptService.isLocked("user@example.com"));
+
+        //the 4 failures have faded to 2, so one more failure makes 3, which are still free
+        clock.advanceSeconds(60);
+        loginAttemptService.loginFailed("user@example.com");
+        assertFalse(loginAttemptService.isLocked("user@example.com"));
+
+        loginAttemptService.loginFailed("user@example.com");
+        assertTrue(loginAttemptService.isLocked("user@example.com"));
+    }
+
+    @Test
+    void successfulLoginForgetsTheFailures() {
+        LoginAttemptService loginAttemptService = new LoginAttemptService(1024, 0, NO_HALF_LIFE, 30, 900, clock);
+        loginAttemptService.loginFailed("user@example.com");
+        assertTrue(loginAttemptService.isLocked("user@example.com"));
+
+        loginAttemptService.loginSucceeded("User@Example.com");
+        assertFalse(loginAttemptService.isLocked("user@example.com"));
+        loginAttemptService.loginFailed("user@example.com");
+        assertTrue(loginAttemptService.isLocked("user@example.com"));
+    }
+
+    @Test
+    void leastRecentFailureIsForgottenWhenTheSlotsAreFull() {
+        //the smallest table has 8 slots per stripe, so every email of a stripe is checked in the same 8 slots
+        LoginAttemptService loginAttemptService = new LoginAttemptService(1, 0, NO_HALF_LIFE, 3600, 3600, clock);
+        List<String> emails = new ArrayList<>();
+        long stripe = LoginAttemptService.hash("user0@example.com") >>> 58;
+        for (int i = 0; emails.size() < 9; i++) {
+            String email = "user" + i + "@example.com";
+            if (LoginAttemptService.hash(email) >>> 58 == stripe) {
+                emails.add(email);
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            loginAttemptService.loginFailed(emails.get(i));
+            clock.advanceSeconds(1);
+        }
+        //the first email fails again, so the second one is now the least recent
+        loginAttemptService.loginFailed(emails.get(0));
+        clock.advanceSeconds(1);
+
+        loginAttemptService.loginFailed(emails.get(8));
+
+        assertFalse(loginAttemptService.isLocked(emails.get(1)));
+        assertTrue(loginAttemptService.isLocked(emails.get(0)));
+        for (int i = 2; i < 9; i++) {
+            assertTrue(loginAttemptService.isLocked(emails.get(i)));
+        }
+    }
+}
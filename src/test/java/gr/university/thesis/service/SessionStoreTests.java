@@ -0,0 +1,148 @@
+package gr.university.thesis.service;
+
+import gr.university.thesis.entity.SessionUser;
+import gr.university.thesis.entity.enumeration.RoleEnum;
+import gr.university.thesis.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest
+class SessionStoreTests {
+
+    private SessionRepository<? extends Session> sessionRepository;
+    private SessionAttributeSerializer sessionAttributeSerializer;
+    private SessionCleanupService sessionCleanupService;
+    private JdbcTemplate jdbcTemplate;
+    private UserService userService;
+    private UserRepository userRepository;
+    private UserDetailsServiceImpl userDetailsServiceImpl;
+
+    @Autowired
+    public SessionStoreTests(SessionRepository<? extends Session> sessionRepository,
+                             SessionAttributeSerializer sessionAttributeSerializer,
+                             SessionCleanupService sessionCleanupService, JdbcTemplate jdbcTemplate,
+                             UserService userService, UserRepository userRepository,
+                             UserDetailsServiceImpl userDetailsServiceImpl) {
+        this.sessionRepository = sessionRepository;
+        this.sessionAttributeSerializer = sessionAttributeSerializer;
+        this.sessionCleanupService = sessionCleanupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.userDetailsServiceImpl = userDetailsServiceImpl;
+    }
+
+    /**
+     * the session is created and saved through a method with a type parameter, as the type of the sessions of the
+     * jdbc repository is not public
+     */
+    private <S extends Session> String saveSession(SessionRepository<S> repository, Instant lastAccessedTime) {
+        S session = repository.createSession();
+        session.setAttribute("userId", 42L);
+        session.setAttribute("userEmail", "session.test@example.com");
+        session.setAttribute("role", "Scrum Master");
+        session.setAttribute(CsrfToken.class.getName(), new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token"));
+        session.setLastAccessedTime(lastAccessedTime);
+        repository.save(session);
+        return session.getId();
+    }
+
+    private <S extends Session> String saveSession(SessionRepository<S> repository, String name, Object value) {
+        S session = repository.createSession();
+        session.setAttribute(name, value);
+        repository.save(session);
+        return session.getId();
+    }
+
+    private int countSessions(String sessionId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SPRING_SESSION WHERE SESSION_ID = ?",
+                Integer.class, sessionId);
+    }
+
+    @Test
+    void attributesAreStoredCompactly() {
+        //a type byte and the value, instead of the dozens of bytes of java serialization
+        assertEquals(9, sessionAttributeSerializer.serialize(42L).length);
+        assertEquals(14, sessionAttributeSerializer.serialize("Scrum Master").length);
+        assertEquals(42L, sessionAttributeSerializer.deserialize(sessionAttributeSerializer.serialize(42L)));
+        assertEquals("Scrum Master",
+                sessionAttributeSerializer.deserialize(sessionAttributeSerializer.serialize("Scrum Master")));
+    }
+
+    @Test
+    void sessionsAreReadBackFromTheDatabase() {
+        String sessionId = saveSession(sessionRepository, Instant.now());
+        Session session = sessionRepository.findById(sessionId);
+        assertNotNull(session);
+        Long userId = session.getAttribute("userId");
+        assertEquals(Long.valueOf(42L), userId);
+        assertEquals("session.test@example.com", session.getAttribute("userEmail"));
+        assertEquals("Scrum Master", session.getAttribute("role"));
+        CsrfToken csrfToken = session.getAttribute(CsrfToken.class.getName());
+        assertEquals("_csrf", csrfToken.getParameterName());
+        assertEquals("token", csrfToken.getToken());
+        sessionRepository.deleteById(sessionId);
+    }
+
+    @Test
+    void expiredSessionsAreDeleted() {
+        String expiredSessionId = saveSession(sessionRepository, Instant.now().minus(Duration.ofDays(1)));
+        String activeSessionId = saveSession(sessionRepository, Instant.now());
+        assertEquals(1, countSessions(expiredSessionId));
+
+        assertTrue(sessionCleanupService.deleteExpiredSessions() >= 1);
+
+        assertEquals(0, countSessions(expiredSessionId));
+        assertEquals(1, countSessions(activeSessionId));
+        sessionRepository.deleteById(activeSessionId);
+    }
+
+    @Test
+    void securityContextIsRestoredFromTheUserAndDroppedWhenTheUserIsDeleted() throws Exception {
+        String email = "session.context.test@example.com";
+        userRepository.findFirstByEmail(email).ifPresent(user -> userService.deleteUser(user.getId()));
+        userService.createUser(email, "password", "Session", "Test", RoleEnum.DEVELOPER.name());
+        SessionUser user = (SessionUser) userDetailsServiceImpl.loadUserByUsername(email);
+        SecurityContext securityContext = new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        String sessionId = saveSession(sessionRepository,
+                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
+
+        //only the email is stored, the user is loaded again when the session is read
+        SecurityContext restoredContext = sessionRepository.findById(sessionId)
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertNotNull(restoredContext);
+        SessionUser restoredUser = (SessionUser) restoredContext.getAuthentication().getPrincipal();
+        assertEquals(user.getId(), restoredUser.getId());
+        assertTrue(restoredContext.getAuthentication().isAuthenticated());
+        assertEquals(1, restoredUser.getAuthorities().size());
+        for (GrantedAuthority authority : restoredContext.getAuthentication().getAuthorities()) {
+            assertEquals(RoleEnum.DEVELOPER.getName(), authority.getAuthority());
+        }
+
+        //the user has to login again once they are deleted
+        userService.deleteUser(user.getId());
+        assertNull(sessionRepository.findById(sessionId)
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY));
+        sessionRepository.deleteById(sessionId);
+    }
+}